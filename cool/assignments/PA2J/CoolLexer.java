@@ -6,14 +6,14 @@ import java_cup.runtime.Symbol;
 
 class CoolLexer implements java_cup.runtime.Scanner {
 	private final int YY_BUFFER_SIZE = 512;
-	private final int YY_F = -1;
-	private final int YY_NO_STATE = -1;
-	private final int YY_NOT_ACCEPT = 0;
-	private final int YY_START = 1;
-	private final int YY_END = 2;
-	private final int YY_NO_ANCHOR = 4;
-	private final int YY_BOL = 128;
-	private final int YY_EOF = 129;
+	private static final int YY_F = -1;
+	private static final int YY_NO_STATE = -1;
+	private static final int YY_NOT_ACCEPT = 0;
+	private static final int YY_START = 1;
+	private static final int YY_END = 2;
+	private static final int YY_NO_ANCHOR = 4;
+	private static final int YY_BOL = 128;
+	private static final int YY_EOF = 129;
 
 /*  Stuff enclosed in %{ %} is copied verbatim to the lexer class
  *  definition, all the extra variables/functions you want to use in the
@@ -36,12 +36,98 @@ class CoolLexer implements java_cup.runtime.Scanner {
     AbstractSymbol curr_filename() {
         return filename;
     }
-	private java.io.BufferedReader yy_reader;
+    // For IncrementalLexer: the offset just past the last token
+    // returned, and the lexer state it checkpoints and restores
+    int get_offset() {
+        return yy_buffer_index;
+    }
+    int get_lexical_state() {
+        return yy_lexical_state;
+    }
+    void restore(int state, int depth, int lineno, String buf, boolean valid) {
+        yybegin(state);
+        comment_depth = depth;
+        curr_lineno = lineno;
+        string_buf = new StringBuffer(buf);
+        string_valid = valid;
+    }
+    // The characters at which skip_run stops in each state: those that
+    // may start a token of their own there.  Characters from 128 on
+    // are always left to the automaton.
+    private static final String MCOMMENT_STOPS = "*(\\\n\r";
+    private static final String SCOMMENT_STOPS = "\n\r";
+    private static final String STRING_STOPS = "\"\\\n\r\000";
+    // Extends the current match over the run of ordinary characters
+    // that follows it, without going through the automaton one
+    // character at a time
+    private void skip_run(String stops) {
+        int i = yy_buffer_index;
+        while (i < yy_input_end) {
+            char c = yy_input.charAt(i);
+            if (c >= 128 || stops.indexOf(c) >= 0) {
+                break;
+            }
+            i++;
+        }
+        yy_buffer_index = i;
+        yy_buffer_end = i;
+    }
+    // Keywords are matched by the identifier rule and recognized by a
+    // perfect hash of their lower-cased first and last characters and
+    // their length.  true and false both map to BOOL_CONST, and the
+    // action looks at the case of the first letter, as True is a type.
+    private static final String[] KEYWORDS = new String[32];
+    private static final int[] KEYWORD_TOKENS = new int[32];
+    static {
+        String[] words = {
+            "case", "class", "else", "esac", "fi", "if", "in", "inherits",
+            "isvoid", "let", "loop", "new", "not", "of", "pool", "then",
+            "while", "true", "false"
+        };
+        int[] tokens = {
+            TokenConstants.CASE, TokenConstants.CLASS, TokenConstants.ELSE,
+            TokenConstants.ESAC, TokenConstants.FI, TokenConstants.IF,
+            TokenConstants.IN, TokenConstants.INHERITS,
+            TokenConstants.ISVOID, TokenConstants.LET, TokenConstants.LOOP,
+            TokenConstants.NEW, TokenConstants.NOT, TokenConstants.OF,
+            TokenConstants.POOL, TokenConstants.THEN, TokenConstants.WHILE,
+            TokenConstants.BOOL_CONST, TokenConstants.BOOL_CONST
+        };
+        for (int i = 0; i < words.length; i++) {
+            String word = words[i];
+            int h = keyword_hash(word, word.length());
+            if (KEYWORDS[h] != null) {
+                throw new Error("keyword hash collision: " + word);
+            }
+            KEYWORDS[h] = word;
+            KEYWORD_TOKENS[h] = tokens[i];
+        }
+    }
+    private static int keyword_hash(CharSequence text, int len) {
+        return ((text.charAt(0) | 0x20) * 8
+                + (text.charAt(len - 1) | 0x20) * 5 + len) & 31;
+    }
+    // Returns the token of the keyword text spells in any case, or -1
+    private static int keyword(CharSequence text) {
+        int len = text.length();
+        int h = keyword_hash(text, len);
+        String word = KEYWORDS[h];
+        if (word == null || word.length() != len) {
+            return -1;
+        }
+        for (int i = 0; i < len; i++) {
+            // keywords are all letters, so this folds exactly their case
+            if ((text.charAt(i) | 0x20) != word.charAt(i)) {
+                return -1;
+            }
+        }
+        return KEYWORD_TOKENS[h];
+    }
+	private java.lang.CharSequence yy_input;
+	private int yy_input_end;
 	private int yy_buffer_index;
-	private int yy_buffer_read;
 	private int yy_buffer_start;
 	private int yy_buffer_end;
-	private char yy_buffer[];
 	private boolean yy_at_bol;
 	private int yy_lexical_state;
 
@@ -50,7 +136,8 @@ class CoolLexer implements java_cup.runtime.Scanner {
 		if (null == reader) {
 			throw (new Error("Error: Bad input stream initializer."));
 		}
-		yy_reader = new java.io.BufferedReader(reader);
+		yy_input = yy_read_all(reader);
+		yy_input_end = yy_input.length();
 	}
 
 	CoolLexer (java.io.InputStream instream) {
@@ -58,12 +145,29 @@ class CoolLexer implements java_cup.runtime.Scanner {
 		if (null == instream) {
 			throw (new Error("Error: Bad input stream initializer."));
 		}
-		yy_reader = new java.io.BufferedReader(new java.io.InputStreamReader(instream));
+		yy_input = yy_read_all(new java.io.InputStreamReader(instream));
+		yy_input_end = yy_input.length();
+	}
+
+	CoolLexer (java.nio.CharBuffer buffer) {
+		this ();
+		if (null == buffer) {
+			throw (new Error("Error: Bad input buffer initializer."));
+		}
+		yy_input = buffer.slice();
+		yy_input_end = yy_input.length();
+	}
+
+	CoolLexer (java.nio.ByteBuffer buffer) {
+		this ();
+		if (null == buffer) {
+			throw (new Error("Error: Bad input buffer initializer."));
+		}
+		yy_input = new Yy_byte_chars(buffer.slice());
+		yy_input_end = yy_input.length();
 	}
 
 	private CoolLexer () {
-		yy_buffer = new char[YY_BUFFER_SIZE];
-		yy_buffer_read = 0;
 		yy_buffer_index = 0;
 		yy_buffer_start = 0;
 		yy_buffer_end = 0;
@@ -81,66 +185,71 @@ class CoolLexer implements java_cup.runtime.Scanner {
 	private final int YYINITIAL = 0;
 	private final int SCOMMENT = 2;
 	private final int MCOMMENT = 1;
-	private final int yy_state_dtrans[] = {
+	private static final int yy_state_dtrans[] = {
 		0,
-		56,
-		61,
-		64
+		30,
+		37,
+		40
 	};
 	private void yybegin (int state) {
 		yy_lexical_state = state;
 	}
 	private int yy_advance ()
 		throws java.io.IOException {
-		int next_read;
-		int i;
-		int j;
-
-		if (yy_buffer_index < yy_buffer_read) {
-			return yy_buffer[yy_buffer_index++];
+		if (yy_buffer_index < yy_input_end) {
+			return yy_input.charAt(yy_buffer_index++);
 		}
-
-		if (0 != yy_buffer_start) {
-			i = yy_buffer_start;
-			j = 0;
-			while (i < yy_buffer_read) {
-				yy_buffer[j] = yy_buffer[i];
-				++i;
-				++j;
-			}
-			yy_buffer_end = yy_buffer_end - yy_buffer_start;
-			yy_buffer_start = 0;
-			yy_buffer_read = j;
-			yy_buffer_index = j;
-			next_read = yy_reader.read(yy_buffer,
-					yy_buffer_read,
-					yy_buffer.length - yy_buffer_read);
-			if (-1 == next_read) {
-				return YY_EOF;
+		return YY_EOF;
+	}
+	private static java.nio.CharBuffer yy_read_all (java.io.Reader reader) {
+		char buf[] = new char[4096];
+		int read = 0;
+		int next_read;
+		try {
+			while (-1 != (next_read = reader.read(buf, read, buf.length - read))) {
+				read = read + next_read;
+				if (read == buf.length) {
+					char newbuf[] = new char[2*buf.length];
+					java.lang.System.arraycopy(buf, 0, newbuf, 0, read);
+					buf = newbuf;
+				}
 			}
-			yy_buffer_read = yy_buffer_read + next_read;
+		} catch (java.io.IOException e) {
+			throw (new Error("Error: Unable to read input: " + e.getMessage()));
 		}
-
-		while (yy_buffer_index >= yy_buffer_read) {
-			if (yy_buffer_index >= yy_buffer.length) {
-				yy_buffer = yy_double(yy_buffer);
-			}
-			next_read = yy_reader.read(yy_buffer,
-					yy_buffer_read,
-					yy_buffer.length - yy_buffer_read);
-			if (-1 == next_read) {
-				return YY_EOF;
+		return java.nio.CharBuffer.wrap(buf, 0, read);
+	}
+	private static class Yy_byte_chars implements java.lang.CharSequence {
+		private java.nio.ByteBuffer bytes;
+		Yy_byte_chars (java.nio.ByteBuffer bytes) {
+			this.bytes = bytes;
+		}
+		public int length () {
+			return bytes.limit();
+		}
+		public char charAt (int index) {
+			return (char) (bytes.get(index) & 0xff);
+		}
+		public java.lang.CharSequence subSequence (int start, int end) {
+			java.nio.ByteBuffer sub = bytes.duplicate();
+			sub.position(start);
+			sub.limit(end);
+			return new Yy_byte_chars(sub.slice());
+		}
+		public java.lang.String toString () {
+			char buf[] = new char[bytes.limit()];
+			for (int i = 0; i < buf.length; ++i) {
+				buf[i] = (char) (bytes.get(i) & 0xff);
 			}
-			yy_buffer_read = yy_buffer_read + next_read;
+			return new java.lang.String(buf);
 		}
-		return yy_buffer[yy_buffer_index++];
 	}
 	private void yy_move_end () {
 		if (yy_buffer_end > yy_buffer_start &&
-		    '\n' == yy_buffer[yy_buffer_end-1])
+		    '\n' == yy_input.charAt(yy_buffer_end-1))
 			yy_buffer_end--;
 		if (yy_buffer_end > yy_buffer_start &&
-		    '\r' == yy_buffer[yy_buffer_end-1])
+		    '\r' == yy_input.charAt(yy_buffer_end-1))
 			yy_buffer_end--;
 	}
 	private boolean yy_last_was_cr=false;
@@ -153,27 +262,35 @@ class CoolLexer implements java_cup.runtime.Scanner {
 	private void yy_to_mark () {
 		yy_buffer_index = yy_buffer_end;
 		yy_at_bol = (yy_buffer_end > yy_buffer_start) &&
-		            ('\r' == yy_buffer[yy_buffer_end-1] ||
-		             '\n' == yy_buffer[yy_buffer_end-1] ||
-		             2028/*LS*/ == yy_buffer[yy_buffer_end-1] ||
-		             2029/*PS*/ == yy_buffer[yy_buffer_end-1]);
+		            ('\r' == yy_input.charAt(yy_buffer_end-1) ||
+		             '\n' == yy_input.charAt(yy_buffer_end-1) ||
+		             2028/*LS*/ == yy_input.charAt(yy_buffer_end-1) ||
+		             2029/*PS*/ == yy_input.charAt(yy_buffer_end-1));
 	}
 	private java.lang.String yytext () {
-		return (new java.lang.String(yy_buffer,
-			yy_buffer_start,
-			yy_buffer_end - yy_buffer_start));
+		return yy_input.subSequence(yy_buffer_start,
+			yy_buffer_end).toString();
 	}
 	private int yylength () {
 		return yy_buffer_end - yy_buffer_start;
 	}
-	private char[] yy_double (char buf[]) {
-		int i;
-		char newbuf[];
-		newbuf = new char[2*buf.length];
-		for (i = 0; i < buf.length; ++i) {
-			newbuf[i] = buf[i];
+	private final Yy_text yy_text = new Yy_text();
+	private java.lang.CharSequence yytext_view () {
+		return yy_text;
+	}
+	private class Yy_text implements java.lang.CharSequence {
+		public int length () {
+			return yy_buffer_end - yy_buffer_start;
+		}
+		public char charAt (int index) {
+			return yy_input.charAt(yy_buffer_start + index);
+		}
+		public java.lang.CharSequence subSequence (int start, int end) {
+			return yytext().substring(start, end);
+		}
+		public java.lang.String toString () {
+			return yytext();
 		}
-		return newbuf;
 	}
 	private final int YY_E_INTERNAL = 0;
 	private final int YY_E_MATCH = 1;
@@ -188,7 +305,7 @@ class CoolLexer implements java_cup.runtime.Scanner {
 			throw new Error("Fatal Error.\n");
 		}
 	}
-	private int[][] unpackFromString(int size1, int size2, String st) {
+	private static int[][] unpackFromString(int size1, int size2, String st) {
 		int colonIndex = -1;
 		String lengthString;
 		int sequenceLength = 0;
@@ -225,7 +342,7 @@ class CoolLexer implements java_cup.runtime.Scanner {
 		}
 		return res;
 	}
-	private int yy_acpt[] = {
+	private static final int yy_acpt[] = {
 		/* 0 */ YY_NOT_ACCEPT,
 		/* 1 */ YY_NO_ANCHOR,
 		/* 2 */ YY_NO_ANCHOR,
@@ -256,123 +373,67 @@ class CoolLexer implements java_cup.runtime.Scanner {
 		/* 27 */ YY_NO_ANCHOR,
 		/* 28 */ YY_NO_ANCHOR,
 		/* 29 */ YY_NO_ANCHOR,
-		/* 30 */ YY_NO_ANCHOR,
+		/* 30 */ YY_NOT_ACCEPT,
 		/* 31 */ YY_NO_ANCHOR,
 		/* 32 */ YY_NO_ANCHOR,
 		/* 33 */ YY_NO_ANCHOR,
 		/* 34 */ YY_NO_ANCHOR,
 		/* 35 */ YY_NO_ANCHOR,
 		/* 36 */ YY_NO_ANCHOR,
-		/* 37 */ YY_NO_ANCHOR,
+		/* 37 */ YY_NOT_ACCEPT,
 		/* 38 */ YY_NO_ANCHOR,
 		/* 39 */ YY_NO_ANCHOR,
-		/* 40 */ YY_NO_ANCHOR,
+		/* 40 */ YY_NOT_ACCEPT,
 		/* 41 */ YY_NO_ANCHOR,
 		/* 42 */ YY_NO_ANCHOR,
 		/* 43 */ YY_NO_ANCHOR,
 		/* 44 */ YY_NO_ANCHOR,
 		/* 45 */ YY_NO_ANCHOR,
-		/* 46 */ YY_NO_ANCHOR,
-		/* 47 */ YY_NO_ANCHOR,
-		/* 48 */ YY_NO_ANCHOR,
-		/* 49 */ YY_NO_ANCHOR,
-		/* 50 */ YY_NO_ANCHOR,
-		/* 51 */ YY_NO_ANCHOR,
-		/* 52 */ YY_NO_ANCHOR,
-		/* 53 */ YY_NO_ANCHOR,
-		/* 54 */ YY_NO_ANCHOR,
-		/* 55 */ YY_NO_ANCHOR,
-		/* 56 */ YY_NOT_ACCEPT,
-		/* 57 */ YY_NO_ANCHOR,
-		/* 58 */ YY_NO_ANCHOR,
-		/* 59 */ YY_NO_ANCHOR,
-		/* 60 */ YY_NO_ANCHOR,
-		/* 61 */ YY_NOT_ACCEPT,
-		/* 62 */ YY_NO_ANCHOR,
-		/* 63 */ YY_NO_ANCHOR,
-		/* 64 */ YY_NOT_ACCEPT,
-		/* 65 */ YY_NO_ANCHOR,
-		/* 66 */ YY_NO_ANCHOR,
-		/* 67 */ YY_NO_ANCHOR,
-		/* 68 */ YY_NO_ANCHOR,
-		/* 69 */ YY_NO_ANCHOR,
-		/* 70 */ YY_NO_ANCHOR,
-		/* 71 */ YY_NO_ANCHOR,
-		/* 72 */ YY_NO_ANCHOR,
-		/* 73 */ YY_NO_ANCHOR,
-		/* 74 */ YY_NO_ANCHOR,
-		/* 75 */ YY_NO_ANCHOR,
-		/* 76 */ YY_NO_ANCHOR,
-		/* 77 */ YY_NO_ANCHOR,
-		/* 78 */ YY_NO_ANCHOR,
-		/* 79 */ YY_NO_ANCHOR,
-		/* 80 */ YY_NO_ANCHOR,
-		/* 81 */ YY_NO_ANCHOR,
-		/* 82 */ YY_NO_ANCHOR,
-		/* 83 */ YY_NO_ANCHOR,
-		/* 84 */ YY_NO_ANCHOR,
-		/* 85 */ YY_NO_ANCHOR,
-		/* 86 */ YY_NO_ANCHOR,
-		/* 87 */ YY_NO_ANCHOR,
-		/* 88 */ YY_NO_ANCHOR,
-		/* 89 */ YY_NO_ANCHOR,
-		/* 90 */ YY_NO_ANCHOR,
-		/* 91 */ YY_NO_ANCHOR,
-		/* 92 */ YY_NO_ANCHOR,
-		/* 93 */ YY_NO_ANCHOR,
-		/* 94 */ YY_NO_ANCHOR,
-		/* 95 */ YY_NO_ANCHOR,
-		/* 96 */ YY_NO_ANCHOR,
-		/* 97 */ YY_NO_ANCHOR,
-		/* 98 */ YY_NO_ANCHOR,
-		/* 99 */ YY_NO_ANCHOR,
-		/* 100 */ YY_NO_ANCHOR,
-		/* 101 */ YY_NO_ANCHOR,
-		/* 102 */ YY_NO_ANCHOR,
-		/* 103 */ YY_NO_ANCHOR,
-		/* 104 */ YY_NO_ANCHOR,
-		/* 105 */ YY_NO_ANCHOR,
-		/* 106 */ YY_NO_ANCHOR,
-		/* 107 */ YY_NO_ANCHOR
+		/* 46 */ YY_NO_ANCHOR
 	};
-	private int yy_cmap[] = unpackFromString(1,130,
-"3:9,4,5,3,4,1,3:18,4,3,43,3:5,6,9,7,36,31,2,32,35,42:10,29,30,37,38,39,3,34" +
-",11,40,10,23,13,15,40,18,16,40:2,14,40,17,22,24,40,19,12,20,26,21,25,40:3,3" +
-",8,3:2,41,3,11,40,10,23,13,15,40,18,16,40:2,14,40,17,22,24,40,19,12,20,26,2" +
-"1,25,40:3,27,3,28,33,3,0:2")[0];
+	private static final int yy_acpt_rule[] = unpackFromString(1,47,
+"-1,0,1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16,17,18,19,20,21,22,23,24,25,26,2" +
+"7,28,-1,29,30:4,31,-1,32,33,-1,34,35,36,35,37,38")[0];
+
+	private static final byte yy_amap[] = {
+		8,27,27,27,27,27,27,27,27,4,5,4,4,1,27,27,
+		27,27,27,27,27,27,27,27,27,27,27,27,27,27,27,27,
+		4,27,26,27,27,27,27,27,6,9,7,19,14,2,15,18,
+		25,25,25,25,25,25,25,25,25,25,12,13,20,21,22,27,
+		17,23,23,23,23,23,23,23,23,23,23,23,23,23,23,23,
+		23,23,23,23,23,23,23,23,23,23,23,27,3,27,27,24,
+		27,23,23,23,23,23,23,23,23,23,23,23,23,23,23,23,
+		23,23,23,23,23,23,23,23,23,23,23,10,27,11,16,27
+	};
+	private static final int yy_rstart[] = unpackFromString(1,1,
+"128")[0];
+	private static final int yy_rclass[] = unpackFromString(1,1,
+"0")[0];
+	private static int yy_cclass (int c) {
+		if (c > YY_EOF) {
+			throw new java.lang.ArrayIndexOutOfBoundsException(c);
+		}
+		int lo = 0;
+		int hi = yy_rstart.length - 1;
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			if (yy_rstart[mid] <= c) {
+				lo = mid;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return yy_rclass[lo];
+	}
 
-	private int yy_rmap[] = unpackFromString(1,108,
-"0,1:2,2,1:2,3,4,1,5,1:10,6,7,8,1:4,9:2,10,9,1:3,9:14,1:8,11,9,12,3,13,14,15" +
-",16,17,18,19,20,21,22,23,24,25,26,27,28,29,30,31,32,33,34,35,36,37,38,39,40" +
-",41,42,43,44,45,46,47,48,49,50,51,52,53,54,55,9,56,57,58,59")[0];
+	private static final int yy_rmap[] = unpackFromString(1,47,
+"0,1,2,3,1:2,4,5,1:11,6,7,8,9,1:7,10,1,11,4,12,1:2,13,1:2,14,1,15,1:4")[0];
 
-	private int yy_nxt[][] = unpackFromString(60,44,
-"1,2,3,4,2,5,6,7,4,8,9,103:2,104,81,58,62,82,103:2,105,57,65,103,106,107,103" +
-",10,11,12,13,14,15,16,17,18,19,20,21,4,103,4,22,23,-1:46,24,-1:48,25,-1:45," +
-"26,-1:44,103,83,103:2,84,103:12,-1:13,103:3,-1:3,31,-1:35,32,-1:44,33,-1:46" +
-",22,-1:11,103:17,-1:13,103:3,-1:11,103:8,97,103:8,-1:13,103:3,-1,1,2,48:2,2" +
-",5,59,63,66,48:12,2,48:22,-1:10,103,88,103:4,27,103:10,-1:13,103:3,-1:3,55:" +
-"42,1,-1,50:3,51,50:38,-1:10,103:2,89,103:2,28,103,29,103:9,-1:13,103:3,-1:1" +
-"0,49,-1:34,1,52:4,53,52:2,60,52:34,54,-1:10,103:5,30,103:11,-1:13,103:3,-1:" +
-"3,48:3,-1,48:38,-1:10,103:10,34,103:6,-1:13,103:3,-1:11,103:15,35,103,-1:13" +
-",103:3,-1:11,103:10,36,103:6,-1:13,103:3,-1:11,103:3,37,103:13,-1:13,103:3," +
-"-1:11,38,103:16,-1:13,103:3,-1:11,103:3,39,103:13,-1:13,103:3,-1:11,103:14," +
-"40,103:2,-1:13,103:3,-1:11,103:7,41,103:9,-1:13,103:3,-1:11,103:3,42,103:13" +
-",-1:13,103:3,-1:11,103:4,43,103:12,-1:13,103:3,-1:11,103:2,44,103:14,-1:13," +
-"103:3,-1:11,103:3,45,103:13,-1:13,103:3,-1:11,103:13,46,103:3,-1:13,103:3,-" +
-"1:11,103:2,47,103:14,-1:13,103:3,-1:11,103:3,67,103:8,87,103:4,-1:13,103:3," +
-"-1:11,103:3,68,103:8,69,103:4,-1:13,103:3,-1:11,103:2,70,103:14,-1:13,103:3" +
-",-1:11,103,94,103:15,-1:13,103:3,-1:11,103,71,103:15,-1:13,103:3,-1:11,103:" +
-"2,72,103:14,-1:13,103:3,-1:11,103:12,73,103:4,-1:13,103:3,-1:11,103:4,95,10" +
-"3:12,-1:13,103:3,-1:11,103:11,96,103:5,-1:13,103:3,-1:11,103:3,74,103:13,-1" +
-":13,103:3,-1:11,103:16,75,-1:13,103:3,-1:11,103:12,76,103:4,-1:13,103:3,-1:" +
-"11,103:6,98,103:10,-1:13,103:3,-1:11,103:2,77,103:14,-1:13,103:3,-1:11,103:" +
-"2,75,103:14,-1:13,103:3,-1:11,103:12,99,103:4,-1:13,103:3,-1:11,103:3,100,1" +
-"03:13,-1:13,103:3,-1:11,103:4,78,103:12,-1:13,103:3,-1:11,103:6,79,103:10,-" +
-"1:13,103:3,-1:11,103:9,101,103:7,-1:13,103:3,-1:11,103:6,102,103:10,-1:13,1" +
-"03:3,-1:11,103:10,80,103:6,-1:13,103:3,-1:11,103:2,85,103,86,103:12,-1:13,1" +
-"03:3,-1:11,103:8,90,91,103:7,-1:13,103:3,-1:11,103:12,92,103:4,-1:13,103:3," +
-"-1:11,103:8,93,103:8,-1:13,103:3,-1");
+	private static final int yy_nxt[][] = unpackFromString(16,28,
+"1,2,3,4,2,5,6,7,4,8,9,10,11,12,13,14,15,16,17,18,19,20,4,21,4,22,23,4,-1:29" +
+",2,-1:2,2,-1:25,24,-1:32,25,-1:29,26,-1:20,27,-1:18,28,-1:28,29,-1:28,21:3," +
+"-1:27,22,-1:2,1,31:2,32,31,5,33,34,31:20,-1:2,35:3,-1,35:22,-1:9,36,-1:18,1" +
+",-1,38:3,39,38:22,1,41:2,42,41,43,41:2,44,41:17,45,41,-1:2,46:26");
 
 	public java_cup.runtime.Symbol next_token ()
 		throws java.io.IOException {
@@ -383,6 +444,7 @@ class CoolLexer implements java_cup.runtime.Scanner {
 		int yy_last_accept_state = YY_NO_STATE;
 		boolean yy_initial = true;
 		int yy_this_accept;
+		java_cup.runtime.Symbol yy_value;
 
 		yy_mark_start();
 		yy_this_accept = yy_acpt[yy_state];
@@ -394,7 +456,7 @@ class CoolLexer implements java_cup.runtime.Scanner {
 			if (yy_initial && yy_at_bol) yy_lookahead = YY_BOL;
 			else yy_lookahead = yy_advance();
 			yy_next_state = YY_F;
-			yy_next_state = yy_nxt[yy_rmap[yy_state]][yy_cmap[yy_lookahead]];
+			yy_next_state = yy_nxt[yy_rmap[yy_state]][(yy_lookahead < 128 ? yy_amap[yy_lookahead] : yy_cclass(yy_lookahead))];
 			if (YY_EOF == yy_lookahead && true == yy_initial) {
 
 /*  Stuff enclosed in %eofval{ %eofval} specifies java code that is
@@ -436,262 +498,456 @@ class CoolLexer implements java_cup.runtime.Scanner {
 						yy_move_end();
 					}
 					yy_to_mark();
-					switch (yy_last_accept_state) {
-					case 1:
-						
-					case -2:
-						break;
-					case 2:
-						{}
-					case -3:
-						break;
-					case 3:
-						{   return new Symbol(TokenConstants.MINUS);    }
-					case -4:
-						break;
-					case 4:
-						{   if (yytext().charAt(0) != 11)
+					yy_value = yy_do_action(yy_acpt_rule[yy_last_accept_state]);
+					if (yy_resume) {
+						yy_resume = false;
+					}
+					else {
+						return yy_value;
+					}
+					yy_initial = true;
+					yy_state = yy_state_dtrans[yy_lexical_state];
+					yy_next_state = YY_NO_STATE;
+					yy_last_accept_state = YY_NO_STATE;
+					yy_mark_start();
+					yy_this_accept = yy_acpt[yy_state];
+					if (YY_NOT_ACCEPT != yy_this_accept) {
+						yy_last_accept_state = yy_state;
+						yy_mark_end();
+					}
+				}
+			}
+		}
+	}
+
+	private boolean yy_resume = false;
+	private java_cup.runtime.Symbol yy_do_action (int yy_rule)
+		throws java.io.IOException {
+		switch (yy_rule) {
+		case 0:
+			return yy_action_0();
+		case 1:
+			return yy_action_1();
+		case 2:
+			return yy_action_2();
+		case 3:
+			return yy_action_3();
+		case 4:
+			return yy_action_4();
+		case 5:
+			return yy_action_5();
+		case 6:
+			return yy_action_6();
+		case 7:
+			return yy_action_7();
+		case 8:
+			return yy_action_8();
+		case 9:
+			return yy_action_9();
+		case 10:
+			return yy_action_10();
+		case 11:
+			return yy_action_11();
+		case 12:
+			return yy_action_12();
+		case 13:
+			return yy_action_13();
+		case 14:
+			return yy_action_14();
+		case 15:
+			return yy_action_15();
+		case 16:
+			return yy_action_16();
+		case 17:
+			return yy_action_17();
+		case 18:
+			return yy_action_18();
+		case 19:
+			return yy_action_19();
+		case 20:
+			return yy_action_20();
+		case 21:
+			return yy_action_21();
+		case 22:
+			return yy_action_22();
+		case 23:
+			return yy_action_23();
+		case 24:
+			return yy_action_24();
+		case 25:
+			return yy_action_25();
+		case 26:
+			return yy_action_26();
+		case 27:
+			return yy_action_27();
+		case 28:
+			return yy_action_28();
+		case 29:
+			return yy_action_29();
+		case 30:
+			return yy_action_30();
+		case 31:
+			return yy_action_31();
+		case 32:
+			return yy_action_32();
+		case 33:
+			return yy_action_33();
+		case 34:
+			return yy_action_34();
+		case 35:
+			return yy_action_35();
+		case 36:
+			return yy_action_36();
+		case 37:
+			return yy_action_37();
+		case 38:
+			return yy_action_38();
+		default:
+			yy_error(YY_E_INTERNAL,false);
+			yy_resume = true;
+			return null;
+		}
+	}
+	private java_cup.runtime.Symbol yy_action_0 ()
+		throws java.io.IOException {
+		if (true) {
+			
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_1 ()
+		throws java.io.IOException {
+		if (true) {
+			{}
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_2 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.MINUS);    }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_3 ()
+		throws java.io.IOException {
+		if (true) {
+			{   if (yytext().charAt(0) != 11)
                                         return new Symbol(TokenConstants.ERROR, yytext());
                                 }
-					case -5:
-						break;
-					case 5:
-						{   curr_lineno++;  }
-					case -6:
-						break;
-					case 6:
-						{   return new Symbol(TokenConstants.LPAREN);   }
-					case -7:
-						break;
-					case 7:
-						{   return new Symbol(TokenConstants.MULT);     }
-					case -8:
-						break;
-					case 8:
-						{   return new Symbol(TokenConstants.RPAREN);   }
-					case -9:
-						break;
-					case 9:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_4 ()
+		throws java.io.IOException {
+		if (true) {
+			{   curr_lineno++;  }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_5 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.LPAREN);   }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_6 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.MULT);     }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_7 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.RPAREN);   }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_8 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.LBRACE);   }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_9 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.RBRACE);   }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_10 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.COLON);    }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_11 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.SEMI);     }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_12 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.COMMA);    }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_13 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.DOT);      }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_14 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.NEG);      }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_15 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.AT);       }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_16 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.DIV);      }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_17 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.PLUS);     }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_18 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.LT);       }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_19 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.EQ);       }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_20 ()
+		throws java.io.IOException {
+		if (true) {
+			{   CharSequence text = yytext_view();
+                                    char first = text.charAt(0);
+                                    int kind = keyword(text);
+                                    if (kind == TokenConstants.BOOL_CONST) {
+                                        if (first == 't')
+                                            return new Symbol(TokenConstants.BOOL_CONST, "true");
+                                        else if (first == 'f')
+                                            return new Symbol(TokenConstants.BOOL_CONST, "false");
+                                    } else if (kind >= 0) {
+                                        return new Symbol(kind);
+                                    }
                                     int type;
-                                    if (first.toLowerCase().equals(first))
+                                    if (Character.toLowerCase(first) == first)
                                         type = TokenConstants.OBJECTID;
                                     else
                                         type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
+                                    return new Symbol(type, AbstractTable.idtable.addString(text));
                                 }
-					case -10:
-						break;
-					case 10:
-						{   return new Symbol(TokenConstants.LBRACE);   }
-					case -11:
-						break;
-					case 11:
-						{   return new Symbol(TokenConstants.RBRACE);   }
-					case -12:
-						break;
-					case 12:
-						{   return new Symbol(TokenConstants.COLON);    }
-					case -13:
-						break;
-					case 13:
-						{   return new Symbol(TokenConstants.SEMI);     }
-					case -14:
-						break;
-					case 14:
-						{   return new Symbol(TokenConstants.COMMA);    }
-					case -15:
-						break;
-					case 15:
-						{   return new Symbol(TokenConstants.DOT);      }
-					case -16:
-						break;
-					case 16:
-						{   return new Symbol(TokenConstants.NEG);      }
-					case -17:
-						break;
-					case 17:
-						{   return new Symbol(TokenConstants.AT);       }
-					case -18:
-						break;
-					case 18:
-						{   return new Symbol(TokenConstants.DIV);      }
-					case -19:
-						break;
-					case 19:
-						{   return new Symbol(TokenConstants.PLUS);     }
-					case -20:
-						break;
-					case 20:
-						{   return new Symbol(TokenConstants.LT);       }
-					case -21:
-						break;
-					case 21:
-						{   return new Symbol(TokenConstants.EQ);       }
-					case -22:
-						break;
-					case 22:
-						{   AbstractTable.inttable.addString(yytext());
-                                    return new Symbol(TokenConstants.INT_CONST, AbstractTable.inttable.lookup(yytext()));
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_21 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.INT_CONST, AbstractTable.inttable.addString(yytext_view()));
                                 }
-					case -23:
-						break;
-					case 23:
-						{
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_22 ()
+		throws java.io.IOException {
+		if (true) {
+			{
                                     yybegin(STRING);
                                     string_buf = new StringBuffer();
                                     string_valid = true;
                                 }
-					case -24:
-						break;
-					case 24:
-						{   yybegin(SCOMMENT); }
-					case -25:
-						break;
-					case 25:
-						{   comment_depth++;
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_23 ()
+		throws java.io.IOException {
+		if (true) {
+			{   yybegin(SCOMMENT); }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_24 ()
+		throws java.io.IOException {
+		if (true) {
+			{   comment_depth++;
                                     yybegin(MCOMMENT);
                                 }
-					case -26:
-						break;
-					case 26:
-						{   return new Symbol(TokenConstants.ERROR, "Unmatched *)"); }
-					case -27:
-						break;
-					case 27:
-						{   return new Symbol(TokenConstants.FI);       }
-					case -28:
-						break;
-					case 28:
-						{   return new Symbol(TokenConstants.IF);       }
-					case -29:
-						break;
-					case 29:
-						{   return new Symbol(TokenConstants.IN);       }
-					case -30:
-						break;
-					case 30:
-						{   return new Symbol(TokenConstants.OF);       }
-					case -31:
-						break;
-					case 31:
-						{   return new Symbol(TokenConstants.ASSIGN);   }
-					case -32:
-						break;
-					case 32:
-						{   return new Symbol(TokenConstants.LE);       }
-					case -33:
-						break;
-					case 33:
-						{   return new Symbol(TokenConstants.DARROW);   }
-					case -34:
-						break;
-					case 34:
-						{   return new Symbol(TokenConstants.LET);      }
-					case -35:
-						break;
-					case 35:
-						{   return new Symbol(TokenConstants.NEW);      }
-					case -36:
-						break;
-					case 36:
-						{   return new Symbol(TokenConstants.NOT);      }
-					case -37:
-						break;
-					case 37:
-						{   return new Symbol(TokenConstants.CASE);     }
-					case -38:
-						break;
-					case 38:
-						{   return new Symbol(TokenConstants.ESAC);     }
-					case -39:
-						break;
-					case 39:
-						{   return new Symbol(TokenConstants.ELSE);     }
-					case -40:
-						break;
-					case 40:
-						{   return new Symbol(TokenConstants.LOOP);     }
-					case -41:
-						break;
-					case 41:
-						{   return new Symbol(TokenConstants.THEN);     }
-					case -42:
-						break;
-					case 42:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    if (first.toUpperCase().equals(first)) {
-                                        AbstractTable.idtable.addString(text);
-                                        return new Symbol(TokenConstants.TYPEID, AbstractTable.idtable.lookup(text));
-                                    } else if (first.equals("t")) {
-                                        return new Symbol(TokenConstants.BOOL_CONST, "true");
-                                    } else {
-                                        return new Symbol(TokenConstants.BOOL_CONST, "false");
-                                    }
-                                }
-					case -43:
-						break;
-					case 43:
-						{   return new Symbol(TokenConstants.POOL);     }
-					case -44:
-						break;
-					case 44:
-						{   return new Symbol(TokenConstants.CLASS);    }
-					case -45:
-						break;
-					case 45:
-						{   return new Symbol(TokenConstants.WHILE);    }
-					case -46:
-						break;
-					case 46:
-						{   return new Symbol(TokenConstants.ISVOID);   }
-					case -47:
-						break;
-					case 47:
-						{   return new Symbol(TokenConstants.INHERITS); }
-					case -48:
-						break;
-					case 48:
-						{}
-					case -49:
-						break;
-					case 49:
-						{   comment_depth--;
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_25 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.ERROR, "Unmatched *)"); }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_26 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.ASSIGN);   }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_27 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.LE);       }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_28 ()
+		throws java.io.IOException {
+		if (true) {
+			{   return new Symbol(TokenConstants.DARROW);   }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_29 ()
+		throws java.io.IOException {
+		if (true) {
+			{   skip_run(MCOMMENT_STOPS);   }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_30 ()
+		throws java.io.IOException {
+		if (true) {
+			{}
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_31 ()
+		throws java.io.IOException {
+		if (true) {
+			{   comment_depth--;
                                     if (comment_depth == 0) yybegin(YYINITIAL);
                                 }
-					case -50:
-						break;
-					case 50:
-						{}
-					case -51:
-						break;
-					case 51:
-						{   curr_lineno++;
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_32 ()
+		throws java.io.IOException {
+		if (true) {
+			{   skip_run(SCOMMENT_STOPS);   }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_33 ()
+		throws java.io.IOException {
+		if (true) {
+			{   curr_lineno++;
                                     yybegin(YYINITIAL);
                                 }
-					case -52:
-						break;
-					case 52:
-						{
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_34 ()
+		throws java.io.IOException {
+		if (true) {
+			{   skip_run(STRING_STOPS);
+                                    string_buf.append(yytext_view());
+                                }
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_35 ()
+		throws java.io.IOException {
+		if (true) {
+			{
                                     String text = yytext();
                                     if (text.charAt(0) == 0) string_valid = false;
                                     string_buf.append(text);
                                 }
-					case -53:
-						break;
-					case 53:
-						{
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_36 ()
+		throws java.io.IOException {
+		if (true) {
+			{
                                     curr_lineno++;
                                     yybegin(YYINITIAL);
                                     return new Symbol(TokenConstants.ERROR, "Unterminated string constant");
                                 }
-					case -54:
-						break;
-					case 54:
-						{
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_37 ()
+		throws java.io.IOException {
+		if (true) {
+			{
                                     yybegin(YYINITIAL);
                                     String text = string_buf.toString();
                                     Symbol symbol;
@@ -705,10 +961,14 @@ class CoolLexer implements java_cup.runtime.Scanner {
                                     }
                                     return symbol;
                                 }
-					case -55:
-						break;
-					case 55:
-						{
+		}
+		yy_resume = true;
+		return null;
+	}
+	private java_cup.runtime.Symbol yy_action_38 ()
+		throws java.io.IOException {
+		if (true) {
+			{
                                     String text = yytext();
                                     if (text.substring(1,2).equals("\n")) curr_lineno++;
                                     if (text.charAt(1) == 0)        string_valid = false;
@@ -719,620 +979,8 @@ class CoolLexer implements java_cup.runtime.Scanner {
                                     else
                                         string_buf.append(text.substring(1));
                                 }
-					case -56:
-						break;
-					case 57:
-						{}
-					case -57:
-						break;
-					case 58:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -58:
-						break;
-					case 59:
-						{}
-					case -59:
-						break;
-					case 60:
-						{
-                                    String text = yytext();
-                                    if (text.charAt(0) == 0) string_valid = false;
-                                    string_buf.append(text);
-                                }
-					case -60:
-						break;
-					case 62:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -61:
-						break;
-					case 63:
-						{}
-					case -62:
-						break;
-					case 65:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -63:
-						break;
-					case 66:
-						{}
-					case -64:
-						break;
-					case 67:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -65:
-						break;
-					case 68:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -66:
-						break;
-					case 69:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -67:
-						break;
-					case 70:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -68:
-						break;
-					case 71:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -69:
-						break;
-					case 72:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -70:
-						break;
-					case 73:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -71:
-						break;
-					case 74:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -72:
-						break;
-					case 75:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -73:
-						break;
-					case 76:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -74:
-						break;
-					case 77:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -75:
-						break;
-					case 78:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -76:
-						break;
-					case 79:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -77:
-						break;
-					case 80:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -78:
-						break;
-					case 81:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -79:
-						break;
-					case 82:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -80:
-						break;
-					case 83:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -81:
-						break;
-					case 84:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -82:
-						break;
-					case 85:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -83:
-						break;
-					case 86:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -84:
-						break;
-					case 87:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -85:
-						break;
-					case 88:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -86:
-						break;
-					case 89:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -87:
-						break;
-					case 90:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -88:
-						break;
-					case 91:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -89:
-						break;
-					case 92:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -90:
-						break;
-					case 93:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -91:
-						break;
-					case 94:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -92:
-						break;
-					case 95:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -93:
-						break;
-					case 96:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -94:
-						break;
-					case 97:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -95:
-						break;
-					case 98:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -96:
-						break;
-					case 99:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -97:
-						break;
-					case 100:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -98:
-						break;
-					case 101:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -99:
-						break;
-					case 102:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -100:
-						break;
-					case 103:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -101:
-						break;
-					case 104:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -102:
-						break;
-					case 105:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -103:
-						break;
-					case 106:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -104:
-						break;
-					case 107:
-						{   String text = yytext();
-                                    String first = text.substring(0,1);
-                                    int type;
-                                    if (first.toLowerCase().equals(first))
-                                        type = TokenConstants.OBJECTID;
-                                    else
-                                        type = TokenConstants.TYPEID;
-                                    AbstractTable.idtable.addString(text);
-                                    return new Symbol(type, AbstractTable.idtable.lookup(text));
-                                }
-					case -105:
-						break;
-					default:
-						yy_error(YY_E_INTERNAL,false);
-					case -1:
-					}
-					yy_initial = true;
-					yy_state = yy_state_dtrans[yy_lexical_state];
-					yy_next_state = YY_NO_STATE;
-					yy_last_accept_state = YY_NO_STATE;
-					yy_mark_start();
-					yy_this_accept = yy_acpt[yy_state];
-					if (YY_NOT_ACCEPT != yy_this_accept) {
-						yy_last_accept_state = yy_state;
-						yy_mark_end();
-					}
-				}
-			}
 		}
+		yy_resume = true;
+		return null;
 	}
 }
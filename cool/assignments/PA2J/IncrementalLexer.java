@@ -0,0 +1,451 @@
+/*
+Copyright (c) 2000 The Regents of the University of California.
+All rights reserved.
+
+Permission to use, copy, modify, and distribute this software for any
+purpose, without fee, and without written agreement is hereby granted,
+provided that the above copyright notice and the following two
+paragraphs appear in all copies of this software.
+
+IN NO EVENT SHALL THE UNIVERSITY OF CALIFORNIA BE LIABLE TO ANY PARTY FOR
+DIRECT, INDIRECT, SPECIAL, INCIDENTAL, OR CONSEQUENTIAL DAMAGES ARISING OUT
+OF THE USE OF THIS SOFTWARE AND ITS DOCUMENTATION, EVEN IF THE UNIVERSITY OF
+CALIFORNIA HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+THE UNIVERSITY OF CALIFORNIA SPECIFICALLY DISCLAIMS ANY WARRANTIES,
+INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY
+AND FITNESS FOR A PARTICULAR PURPOSE.  THE SOFTWARE PROVIDED HEREUNDER IS
+ON AN "AS IS" BASIS, AND THE UNIVERSITY OF CALIFORNIA HAS NO OBLIGATION TO
+PROVIDE MAINTENANCE, SUPPORT, UPDATES, ENHANCEMENTS, OR MODIFICATIONS.
+*/
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java_cup.runtime.Symbol;
+
+/** The token stream of a Cool source text, kept up to date as the text
+ * is edited.
+ *
+ * <p>
+ *
+ * The text is lexed once in full.  Every <code>interval</code> lines a
+ * checkpoint records the state of the lexer between two tokens: the
+ * input offset, the lexical state, the comment depth, the line number,
+ * and the partial string constant.  After an edit, lexing restarts at
+ * the last checkpoint before the change, and stops as soon as a token
+ * ends where an old token ended, past the change, in the same lexer
+ * state.  From there on the old tokens are kept, with their offsets and
+ * line numbers shifted.  The edit reports the range of tokens that
+ * actually changed, so that later phases need only look at those.
+ *
+ * <p>
+ *
+ * Restarting at a checkpoint is sound because no rule of the Cool lexer
+ * looks more than one character past the end of the token it matches,
+ * and a checkpoint is only used if it lies strictly before the change.
+ *
+ * @see CoolLexer
+ * */
+class IncrementalLexer {
+    /** The default number of lines between checkpoints */
+    static final int DEFAULT_INTERVAL = 64;
+
+    /** The number JLex always gives the initial lexical state */
+    private static final int YYINITIAL = 0;
+
+    /** The tokens replaced by an edit */
+    static class Range {
+	/** Index of the first changed token */
+	final int first;
+
+	/** Number of old tokens removed from <code>first</code> on */
+	final int removed;
+
+	/** Number of new tokens inserted at <code>first</code> */
+	final int added;
+
+	Range(int first, int removed, int added) {
+	    this.first = first;
+	    this.removed = removed;
+	    this.added = added;
+	}
+
+	public String toString() {
+	    return "[" + first + ", -" + removed + ", +" + added + "]";
+	}
+    }
+
+    /** The lexer state between two tokens */
+    private static class Checkpoint {
+	int token;		// index of the next token
+	int offset;		// input offset of the next token
+	int lineno;
+	int state;
+	int depth;
+	String buf;
+	boolean valid;
+    }
+
+    /** The token stream, in parallel arrays */
+    private static class Tokens {
+	Symbol[] syms = new Symbol[64];
+	int[] ends = new int[64];	// offset just past each token
+	int[] lines = new int[64];	// line number after each token
+	int[] states = new int[64];	// lexical state after each token
+	int[] depths = new int[64];	// comment depth after each token
+	int count = 0;
+
+	void add(Symbol sym, int end, int line, int state, int depth) {
+	    if (count == syms.length) {
+		grow(2 * count);
+	    }
+	    syms[count] = sym;
+	    ends[count] = end;
+	    lines[count] = line;
+	    states[count] = state;
+	    depths[count] = depth;
+	    count++;
+	}
+
+	void grow(int size) {
+	    Symbol[] s = new Symbol[size];
+	    System.arraycopy(syms, 0, s, 0, count);
+	    syms = s;
+	    ends = copy(ends, size, count);
+	    lines = copy(lines, size, count);
+	    states = copy(states, size, count);
+	    depths = copy(depths, size, count);
+	}
+
+	/** Replaces <code>removed</code> tokens at <code>first</code> with
+	 * <code>added</code> tokens of <code>from</code> starting at
+	 * <code>src</code>, and shifts the tokens after them. */
+	void splice(int first, int removed, Tokens from, int src, int added,
+		    int delta, int lineDelta) {
+	    int tail = count - first - removed;
+	    if (count - removed + added > syms.length) {
+		grow(Math.max(2 * syms.length, count - removed + added));
+	    }
+	    int dst = first + added;
+	    System.arraycopy(syms, first + removed, syms, dst, tail);
+	    System.arraycopy(ends, first + removed, ends, dst, tail);
+	    System.arraycopy(lines, first + removed, lines, dst, tail);
+	    System.arraycopy(states, first + removed, states, dst, tail);
+	    System.arraycopy(depths, first + removed, depths, dst, tail);
+	    System.arraycopy(from.syms, src, syms, first, added);
+	    System.arraycopy(from.ends, src, ends, first, added);
+	    System.arraycopy(from.lines, src, lines, first, added);
+	    System.arraycopy(from.states, src, states, first, added);
+	    System.arraycopy(from.depths, src, depths, first, added);
+	    for (int i = dst; i < dst + tail; i++) {
+		ends[i] += delta;
+		lines[i] += lineDelta;
+	    }
+	    for (int i = dst + tail; i < count; i++) {
+		syms[i] = null;
+	    }
+	    count = dst + tail;
+	}
+
+	private static int[] copy(int[] a, int size, int count) {
+	    int[] b = new int[size];
+	    System.arraycopy(a, 0, b, 0, count);
+	    return b;
+	}
+    }
+
+    private final StringBuilder text;
+    private final String filename;
+    private final int interval;
+    private Tokens tokens;
+    private Checkpoint[] checkpoints;
+    private int ncheckpoints;
+
+    /** The index of the old token at which the last call of lex synced,
+     * or -1 */
+    private int synced;
+
+    /** Lexes a text, with a checkpoint every <code>interval</code>
+     * lines.
+     *
+     * @param text the Cool source
+     * @param filename the name reported by the lexer, or null
+     * @param interval the number of lines between checkpoints
+     * */
+    IncrementalLexer(CharSequence text, String filename, int interval)
+	throws IOException {
+	if (interval < 1) {
+	    throw new IllegalArgumentException("interval " + interval);
+	}
+	this.text = new StringBuilder(text);
+	this.filename = filename;
+	this.interval = interval;
+	this.checkpoints = new Checkpoint[16];
+
+	Checkpoint start = new Checkpoint();
+	start.state = YYINITIAL;
+	start.lineno = 1;
+	start.buf = "";
+	start.valid = true;
+	ncheckpoints = 0;
+	addCheckpoint(start);
+
+	Tokens lexed = new Tokens();
+	Checkpoint[] found = lex(start, lexed, -1, 0, 0, 0);
+	tokens = lexed;
+	for (int i = 0; i < found.length; i++) {
+	    addCheckpoint(found[i]);
+	}
+    }
+
+    /** Lexes a text, with a checkpoint every <code>DEFAULT_INTERVAL</code>
+     * lines */
+    IncrementalLexer(CharSequence text, String filename) throws IOException {
+	this(text, filename, DEFAULT_INTERVAL);
+    }
+
+    /** Returns the number of tokens, including the final EOF token */
+    int size() {
+	return tokens.count;
+    }
+
+    /** Returns the token at an index */
+    Symbol token(int i) {
+	check(i);
+	return tokens.syms[i];
+    }
+
+    /** Returns the line number after the token at an index, as
+     * reported by <code>CoolLexer.get_curr_lineno()</code> */
+    int line(int i) {
+	check(i);
+	return tokens.lines[i];
+    }
+
+    /** Returns the input offset just past the token at an index */
+    int end(int i) {
+	check(i);
+	return tokens.ends[i];
+    }
+
+    /** Returns the current text */
+    CharSequence text() {
+	return text;
+    }
+
+    /** Returns the number of checkpoints */
+    int checkpoints() {
+	return ncheckpoints;
+    }
+
+    /** Replaces the text from <code>start</code> up to
+     * <code>end</code> by <code>replacement</code>, and relexes.
+     *
+     * @return the range of tokens that changed
+     * */
+    Range edit(int start, int end, CharSequence replacement)
+	throws IOException {
+	if (start < 0 || start > end || end > text.length()) {
+	    throw new IndexOutOfBoundsException("edit " + start + ".." + end
+						+ " of " + text.length());
+	}
+	int delta = replacement.length() - (end - start);
+	int lineDelta = newlines(replacement, 0, replacement.length())
+	    - newlines(text, start, end);
+	text.replace(start, end, replacement.toString());
+
+	// the last checkpoint strictly before the change
+	int c = ncheckpoints - 1;
+	while (c > 0 && checkpoints[c].offset >= start) {
+	    c--;
+	}
+	Checkpoint from = checkpoints[c];
+
+	Tokens lexed = new Tokens();
+	Checkpoint[] found = lex(from, lexed, end, start + replacement.length(),
+				 delta, lineDelta);
+
+	// lexed replaces the old tokens from.token up to the synced one
+	int removed;
+	if (lexed.count > 0 && synced >= 0) {
+	    removed = synced - from.token + 1;
+	} else {
+	    removed = tokens.count - from.token;
+	}
+
+	// narrow to the tokens that actually differ
+	int head = 0;
+	while (head < lexed.count && head < removed
+	       && same(lexed, head, from.token + head, 0, 0)) {
+	    head++;
+	}
+	int tail = 0;
+	while (tail < lexed.count - head && tail < removed - head
+	       && same(lexed, lexed.count - 1 - tail,
+		       from.token + removed - 1 - tail, delta, lineDelta)) {
+	    tail++;
+	}
+
+	int first = from.token + head;
+	int oldCount = removed - head - tail;
+	int newCount = lexed.count - head - tail;
+	tokens.splice(first, oldCount, lexed, head, newCount,
+		      delta, lineDelta);
+	updateCheckpoints(c, from.token + removed, found,
+			  lexed.count - removed, delta, lineDelta);
+	return new Range(first, oldCount, newCount);
+    }
+
+    /** Lexes from a checkpoint into <code>out</code>, to the end of the
+     * input, or until the stream syncs with the old tokens.
+     *
+     * @param oldEnd the end of the change in the old text, or -1 to
+     * lex everything
+     * @param newEnd the end of the change in the new text
+     * @param delta the change in length
+     * @param lineDelta the change in the number of lines
+     * @return the checkpoints passed
+     * */
+    private Checkpoint[] lex(Checkpoint from, Tokens out, int oldEnd,
+			     int newEnd, int delta, int lineDelta)
+	throws IOException {
+	CoolLexer lexer =
+	    new CoolLexer(CharBuffer.wrap(text, from.offset, text.length()));
+	if (filename != null) {
+	    lexer.set_filename(filename);
+	}
+	lexer.restore(from.state, from.depth, from.lineno, from.buf,
+		      from.valid);
+
+	Checkpoint[] found = new Checkpoint[4];
+	int nfound = 0;
+	int lastLine = from.lineno;
+	int old = from.token;	// old token to compare with
+	synced = -1;
+
+	while (true) {
+	    Symbol sym = lexer.next_token();
+	    int offset = from.offset + lexer.get_offset();
+	    int line = lexer.get_curr_lineno();
+	    int state = lexer.get_lexical_state();
+	    out.add(sym, offset, line, state, lexer.comment_depth);
+	    if (sym.sym == TokenConstants.EOF) {
+		break;
+	    }
+
+	    if (oldEnd >= 0 && offset >= newEnd) {
+		while (old < tokens.count && tokens.ends[old] + delta < offset) {
+		    old++;
+		}
+		if (old < tokens.count
+		    && tokens.ends[old] >= oldEnd
+		    && tokens.ends[old] + delta == offset
+		    && tokens.lines[old] + lineDelta == line
+		    && tokens.states[old] == state
+		    && tokens.depths[old] == lexer.comment_depth
+		    && tokens.syms[old].sym != TokenConstants.EOF
+		    && (state == YYINITIAL || lexer.string_buf.length() == 0)) {
+		    synced = old;
+		    break;
+		}
+	    }
+
+	    if (line - lastLine >= interval) {
+		Checkpoint cp = new Checkpoint();
+		cp.token = from.token + out.count;
+		cp.offset = offset;
+		cp.lineno = line;
+		cp.state = state;
+		cp.depth = lexer.comment_depth;
+		cp.buf = lexer.string_buf.toString();
+		cp.valid = lexer.string_valid;
+		if (nfound == found.length) {
+		    Checkpoint[] f = new Checkpoint[2 * nfound];
+		    System.arraycopy(found, 0, f, 0, nfound);
+		    found = f;
+		}
+		found[nfound++] = cp;
+		lastLine = line;
+	    }
+	}
+
+	Checkpoint[] result = new Checkpoint[nfound];
+	System.arraycopy(found, 0, result, 0, nfound);
+	return result;
+    }
+
+    /** Replaces the checkpoints after <code>c</code> that lie inside
+     * the relexed tokens with those found while relexing, and shifts
+     * the ones after them.
+     *
+     * @param stop the old index of the first token kept after the
+     * relexed ones
+     * @param shift the change in the number of tokens
+     * */
+    private void updateCheckpoints(int c, int stop, Checkpoint[] found,
+				   int shift, int delta, int lineDelta) {
+	int keep = c + 1;
+	while (keep < ncheckpoints && checkpoints[keep].token < stop) {
+	    keep++;
+	}
+	int rest = ncheckpoints - keep;
+	Checkpoint[] cps = checkpoints;
+	if (c + 1 + found.length + rest > cps.length) {
+	    cps = new Checkpoint[2 * (c + 1 + found.length + rest)];
+	    System.arraycopy(checkpoints, 0, cps, 0, c + 1);
+	}
+	System.arraycopy(checkpoints, keep, cps, c + 1 + found.length, rest);
+	System.arraycopy(found, 0, cps, c + 1, found.length);
+	for (int i = c + 1 + found.length; i < c + 1 + found.length + rest;
+	     i++) {
+	    cps[i].token += shift;
+	    cps[i].offset += delta;
+	    cps[i].lineno += lineDelta;
+	}
+	for (int i = c + 1 + found.length + rest; i < ncheckpoints; i++) {
+	    cps[i] = null;
+	}
+	checkpoints = cps;
+	ncheckpoints = c + 1 + found.length + rest;
+    }
+
+    private void addCheckpoint(Checkpoint cp) {
+	if (ncheckpoints == checkpoints.length) {
+	    Checkpoint[] cps = new Checkpoint[2 * ncheckpoints];
+	    System.arraycopy(checkpoints, 0, cps, 0, ncheckpoints);
+	    checkpoints = cps;
+	}
+	checkpoints[ncheckpoints++] = cp;
+    }
+
+    /** Tells whether a new token equals an old one, once the old one is
+     * shifted by <code>delta</code> and <code>lineDelta</code> */
+    private boolean same(Tokens lexed, int i, int old, int delta,
+			 int lineDelta) {
+	Symbol a = lexed.syms[i];
+	Symbol b = tokens.syms[old];
+	return a.sym == b.sym
+	    && (a.value == null ? b.value == null : a.value.equals(b.value))
+	    && lexed.ends[i] == tokens.ends[old] + delta
+	    && lexed.lines[i] == tokens.lines[old] + lineDelta
+	    && lexed.states[i] == tokens.states[old]
+	    && lexed.depths[i] == tokens.depths[old];
+    }
+
+    private void check(int i) {
+	if (i < 0 || i >= tokens.count) {
+	    throw new IndexOutOfBoundsException("token " + i + " of "
+						+ tokens.count);
+	}
+    }
+
+    private static int newlines(CharSequence s, int start, int end) {
+	int n = 0;
+	for (int i = start; i < end; i++) {
+	    if (s.charAt(i) == '\n') {
+		n++;
+	    }
+	}
+	return n;
+    }
+}
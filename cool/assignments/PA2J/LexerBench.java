@@ -0,0 +1,275 @@
+/*
+Copyright (c) 2000 The Regents of the University of California.
+All rights reserved.
+
+Permission to use, copy, modify, and distribute this software for any
+purpose, without fee, and without written agreement is hereby granted,
+provided that the above copyright notice and the following two
+paragraphs appear in all copies of this software.
+
+IN NO EVENT SHALL THE UNIVERSITY OF CALIFORNIA BE LIABLE TO ANY PARTY FOR
+DIRECT, INDIRECT, SPECIAL, INCIDENTAL, OR CONSEQUENTIAL DAMAGES ARISING OUT
+OF THE USE OF THIS SOFTWARE AND ITS DOCUMENTATION, EVEN IF THE UNIVERSITY OF
+CALIFORNIA HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+THE UNIVERSITY OF CALIFORNIA SPECIFICALLY DISCLAIMS ANY WARRANTIES,
+INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY
+AND FITNESS FOR A PARTICULAR PURPOSE.  THE SOFTWARE PROVIDED HEREUNDER IS
+ON AN "AS IS" BASIS, AND THE UNIVERSITY OF CALIFORNIA HAS NO OBLIGATION TO
+PROVIDE MAINTENANCE, SUPPORT, UPDATES, ENHANCEMENTS, OR MODIFICATIONS.
+*/
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.CharBuffer;
+import java.util.Random;
+import java_cup.runtime.Scanner;
+import java_cup.runtime.Symbol;
+
+/** A throughput comparison of lexers generated from Cool specs.
+ *
+ * <p>
+ *
+ * The lexers are named by class and built by reflection, so the same
+ * spec generated with different JLex directives can be compared.  By
+ * default <code>CoolLexer</code> is compared against
+ * <code>SwitchCoolLexer</code>, which the Makefile generates from
+ * cool.lex with <code>%switch</code>.  Each lexer must have a
+ * constructor taking a <code>CharBuffer</code>.
+ *
+ * <p>
+ *
+ * There are two inputs.  One is the given source files back to back,
+ * repeated up to the input size; the other is a synthetic program of
+ * that size with a realistic mix of keywords, identifiers, constants,
+ * operators, comments and white space.  Before anything is timed every
+ * lexer must produce the same tokens, values and line numbers as the
+ * first on both inputs.  Then the lexers take turns lexing each input,
+ * and the best of the runs of each is reported in millions of
+ * characters per second.
+ *
+ * <p>
+ *
+ * Usage: <code>LexerBench [-reps n] [-size chars] [-lexers name,...] [file ...]</code>
+ * */
+class LexerBench {
+    /** Keywords of Cool, in the mix of cases the lexer accepts */
+    private static final String[] KEYWORDS = {
+	"class", "else", "fi", "if", "in", "inherits", "isvoid", "let", 
+	"loop", "pool", "then", "while", "case", "esac", "new", "of", 
+	"not", "true", "false", "CLASS", "Then", "fALSE"
+    };
+
+    /** Operators and punctuation of Cool */
+    private static final String[] OPERATORS = {
+	"<-", "<=", "=>", "+", "-", "*", "/", "~", "<", "=", "(", ")", 
+	"{", "}", ":", ";", ",", ".", "@"
+    };
+
+    public static void main(String args[]) throws Exception {
+	int reps = 10;
+	int size = 4 << 20;
+	String lexernames = "CoolLexer,SwitchCoolLexer";
+	int arg = 0;
+	while (arg + 1 < args.length && args[arg].startsWith("-")) {
+	    if (args[arg].equals("-reps")) {
+		reps = Integer.parseInt(args[arg + 1]);
+	    } else if (args[arg].equals("-size")) {
+		size = Integer.parseInt(args[arg + 1]);
+	    } else if (args[arg].equals("-lexers")) {
+		lexernames = args[arg + 1];
+	    } else {
+		usage();
+	    }
+	    arg += 2;
+	}
+
+	String[] names = lexernames.split(",");
+	Constructor[] lexers = new Constructor[names.length];
+	for (int i = 0; i < names.length; i++) {
+	    lexers[i] = Class.forName(names[i])
+		.getDeclaredConstructor(new Class[] { CharBuffer.class });
+	    lexers[i].setAccessible(true);
+	}
+
+	StringBuffer files = new StringBuffer();
+	for (; arg < args.length; arg++) {
+	    files.append(read(args[arg])).append('\n');
+	}
+
+	if (files.length() > 0) {
+	    StringBuffer examples = new StringBuffer(size + files.length());
+	    while (examples.length() < size) {
+		examples.append(files);
+	    }
+	    compare("files", examples.toString(), names, lexers, reps);
+	}
+	compare("synthetic", synthetic(size, new Random(143)), names, lexers, 
+		reps);
+    }
+
+    static void usage() {
+	System.err.println("usage: LexerBench [-reps n] [-size chars] " 
+			   + "[-lexers name,...] [file ...]");
+	System.exit(2);
+    }
+
+    /** Reads a source file as Latin-1 */
+    static String read(String filename) throws IOException {
+	FileInputStream in = new FileInputStream(filename);
+	try {
+	    byte[] buf = new byte[in.available()];
+	    int n = 0;
+	    while (n < buf.length) {
+		int r = in.read(buf, n, buf.length - n);
+		if (r < 0) {
+		    break;
+		}
+		n += r;
+	    }
+	    return new String(buf, 0, n, "ISO-8859-1");
+	} finally {
+	    in.close();
+	}
+    }
+
+    /** Checks that all lexers agree on a text, then times them */
+    static void compare(String what, String text, String[] names, 
+			Constructor[] lexers, int reps) throws Exception {
+	String first = tokens(lexers[0], text);
+	for (int i = 1; i < lexers.length; i++) {
+	    if (!tokens(lexers[i], text).equals(first)) {
+		System.out.println(what + ": " + names[i] 
+				   + " disagrees with " + names[0]);
+		System.exit(1);
+	    }
+	}
+
+	long[] best = new long[lexers.length];
+	int count = 0;
+	for (int i = 0; i < lexers.length; i++) {
+	    best[i] = Long.MAX_VALUE;
+	}
+	for (int r = 0; r < reps; r++) {
+	    for (int i = 0; i < lexers.length; i++) {
+		long start = System.nanoTime();
+		count = lex(lexers[i], text);
+		best[i] = Math.min(best[i], System.nanoTime() - start);
+	    }
+	}
+
+	System.out.println(what + ": " + text.length() + " chars, " 
+			   + count + " tokens");
+	for (int i = 0; i < lexers.length; i++) {
+	    System.out.println("  " + names[i] + ": " + best[i] / 1000000 
+			       + " ms, " 
+			       + (text.length() * 10000L / best[i]) / 10.0 
+			       + " Mchar/s");
+	}
+    }
+
+    /** Lexes a text and returns the number of tokens */
+    static int lex(Constructor lexer, String text) throws Exception {
+	Scanner s = (Scanner)lexer.newInstance(new Object[] { 
+	    CharBuffer.wrap(text) 
+	});
+	int count = 0;
+	while (s.next_token().sym != TokenConstants.EOF) {
+	    count++;
+	}
+	return count;
+    }
+
+    /** Lexes a text and returns its tokens, values and line numbers,
+     * one to a line */
+    static String tokens(Constructor lexer, String text) throws Exception {
+	Scanner s = (Scanner)lexer.newInstance(new Object[] { 
+	    CharBuffer.wrap(text) 
+	});
+	Method lineno = s.getClass().getDeclaredMethod("get_curr_lineno", 
+						       new Class[0]);
+	lineno.setAccessible(true);
+	StringBuffer out = new StringBuffer();
+	Symbol sym;
+	do {
+	    sym = s.next_token();
+	    out.append(lineno.invoke(s, new Object[0])).append(' ')
+		.append(sym.sym).append(' ').append(sym.value).append('\n');
+	} while (sym.sym != TokenConstants.EOF);
+	return out.toString();
+    }
+
+    /** Builds a synthetic Cool text of about the given size */
+    static String synthetic(int size, Random rand) {
+	StringBuffer out = new StringBuffer(size + 256);
+	int column = 0;
+	while (out.length() < size) {
+	    int start = out.length();
+	    int pick = rand.nextInt(100);
+	    if (pick < 30) {
+		ident(out, rand, 'a' + rand.nextInt(26));
+	    } else if (pick < 36) {
+		ident(out, rand, 'A' + rand.nextInt(26));
+	    } else if (pick < 50) {
+		out.append(KEYWORDS[rand.nextInt(KEYWORDS.length)]);
+	    } else if (pick < 75) {
+		out.append(OPERATORS[rand.nextInt(OPERATORS.length)]);
+	    } else if (pick < 83) {
+		out.append(rand.nextInt(pick < 80 ? 100 : 1000000));
+	    } else if (pick < 89) {
+		out.append('"');
+		int n = rand.nextInt(30);
+		for (int i = 0; i < n; i++) {
+		    int c = rand.nextInt(40);
+		    if (c == 0) {
+			out.append("\\n");
+		    } else if (c == 1) {
+			out.append("\\\"");
+		    } else {
+			out.append((char)(' ' + 1 + rand.nextInt(90)));
+			if (out.charAt(out.length() - 1) == '"' 
+			    || out.charAt(out.length() - 1) == '\\') {
+			    out.setLength(out.length() - 1);
+			}
+		    }
+		}
+		out.append('"');
+	    } else if (pick < 93) {
+		out.append("-- a line comment with some words in it\n");
+		column = 0;
+		continue;
+	    } else if (pick < 95) {
+		out.append("(* a comment (* nested *) spanning\n   lines *)");
+	    } else {
+		out.append('\n');
+		int indent = rand.nextInt(4);
+		for (int i = 0; i < indent; i++) {
+		    out.append('\t');
+		}
+		column = 0;
+		continue;
+	    }
+	    column += out.length() - start;
+	    if (column > 72) {
+		out.append('\n');
+		column = 0;
+	    } else {
+		out.append(' ');
+		column++;
+	    }
+	}
+	return out.toString();
+    }
+
+    /** Appends an identifier starting with the given letter */
+    static void ident(StringBuffer out, Random rand, int first) {
+	out.append((char)first);
+	int n = rand.nextInt(10);
+	for (int i = 0; i < n; i++) {
+	    int c = rand.nextInt(38);
+	    out.append((char)(c < 26 ? 'a' + c : c < 36 ? '0' + c - 26 : '_'));
+	}
+    }
+}
@@ -0,0 +1,296 @@
+/*
+Copyright (c) 2000 The Regents of the University of California.
+All rights reserved.
+
+Permission to use, copy, modify, and distribute this software for any
+purpose, without fee, and without written agreement is hereby granted,
+provided that the above copyright notice and the following two
+paragraphs appear in all copies of this software.
+
+IN NO EVENT SHALL THE UNIVERSITY OF CALIFORNIA BE LIABLE TO ANY PARTY FOR
+DIRECT, INDIRECT, SPECIAL, INCIDENTAL, OR CONSEQUENTIAL DAMAGES ARISING OUT
+OF THE USE OF THIS SOFTWARE AND ITS DOCUMENTATION, EVEN IF THE UNIVERSITY OF
+CALIFORNIA HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+THE UNIVERSITY OF CALIFORNIA SPECIFICALLY DISCLAIMS ANY WARRANTIES,
+INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY
+AND FITNESS FOR A PARTICULAR PURPOSE.  THE SOFTWARE PROVIDED HEREUNDER IS
+ON AN "AS IS" BASIS, AND THE UNIVERSITY OF CALIFORNIA HAS NO OBLIGATION TO
+PROVIDE MAINTENANCE, SUPPORT, UPDATES, ENHANCEMENTS, OR MODIFICATIONS.
+*/
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.nio.CharBuffer;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.Vector;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedObject;
+import jdk.jfr.consumer.RecordingFile;
+
+/** A report on how the JIT compiler treats the lexing methods of
+ * generated lexers.
+ *
+ * <p>
+ *
+ * For each lexer the report gives the bytecode size of
+ * <code>next_token</code> and of the largest of its other methods, as
+ * read from the class file.  It then lexes the same inputs as
+ * <code>LexerBench</code> with each lexer in turn while a flight
+ * recording of the compiler's events is running, and gives for each
+ * method of the lexer the highest tier it was compiled at and the size
+ * of that code.  For the last compilation of <code>next_token</code>
+ * and <code>yy_do_action</code> by the optimizing compiler, tier 4, it
+ * lists the calls to other methods of the lexer that were inlined and
+ * those that were not, with the compiler's reasons.  By default it compares
+ * <code>CoolLexer</code>, whose actions are methods of their own under
+ * <code>%actionmethods</code>, with <code>InlineCoolLexer</code>, which
+ * the Makefile generates from cool.lex without the directive.
+ *
+ * <p>
+ *
+ * Usage: <code>LexerJit [-reps n] [-size chars] [-lexers name,...] [file ...]</code>
+ *
+ * @see LexerBench
+ * */
+class LexerJit {
+    public static void main(String args[]) throws Exception {
+	int reps = 10;
+	int size = 4 << 20;
+	String lexernames = "CoolLexer,InlineCoolLexer";
+	int arg = 0;
+	while (arg + 1 < args.length && args[arg].startsWith("-")) {
+	    if (args[arg].equals("-reps")) {
+		reps = Integer.parseInt(args[arg + 1]);
+	    } else if (args[arg].equals("-size")) {
+		size = Integer.parseInt(args[arg + 1]);
+	    } else if (args[arg].equals("-lexers")) {
+		lexernames = args[arg + 1];
+	    } else {
+		System.err.println("usage: LexerJit [-reps n] [-size chars] " 
+				   + "[-lexers name,...] [file ...]");
+		System.exit(2);
+	    }
+	    arg += 2;
+	}
+
+	StringBuffer files = new StringBuffer();
+	for (; arg < args.length; arg++) {
+	    files.append(LexerBench.read(args[arg])).append('\n');
+	}
+	StringBuffer text = new StringBuffer();
+	while (files.length() > 0 && text.length() < size) {
+	    text.append(files);
+	}
+	text.append(LexerBench.synthetic(size, new Random(143)));
+	String input = text.toString();
+
+	String[] names = lexernames.split(",");
+	for (int i = 0; i < names.length; i++) {
+	    report(names[i], input, reps);
+	}
+    }
+
+    /** Lexes the input with one lexer under a flight recording and
+     * reports on its methods */
+    static void report(String name, String input, int reps) 
+	throws Exception {
+	Class cls = Class.forName(name);
+	Constructor lexer = 
+	    cls.getDeclaredConstructor(new Class[] { CharBuffer.class });
+	lexer.setAccessible(true);
+
+	Hashtable sizes = codeSizes(name);
+	String largest = null;
+	for (Iterator i = sizes.keySet().iterator(); i.hasNext(); ) {
+	    String m = (String)i.next();
+	    if (!m.equals("next_token") && !m.startsWith("<") 
+		&& (largest == null || 
+		((Integer)sizes.get(m)).intValue() > 
+		((Integer)sizes.get(largest)).intValue())) {
+		largest = m;
+	    }
+	}
+	System.out.println(name + ": next_token " + sizes.get("next_token") 
+			   + " bytes of bytecode, largest other method " 
+			   + largest + " " + sizes.get(largest) + " bytes");
+
+	Recording rec = new Recording();
+	rec.enable("jdk.Compilation").withThreshold(java.time.Duration.ZERO);
+	rec.enable("jdk.CompilerInlining");
+	rec.start();
+	long best = Long.MAX_VALUE;
+	for (int r = 0; r < reps; r++) {
+	    long start = System.nanoTime();
+	    LexerBench.lex(lexer, input);
+	    best = Math.min(best, System.nanoTime() - start);
+	}
+	rec.stop();
+	File dump = File.createTempFile("lexerjit", ".jfr");
+	rec.dump(dump.toPath());
+	rec.close();
+
+	// highest tier and its code size for each method, the last
+	// optimized compilation of each method, and the inlining
+	// decisions of all compilations
+	TreeMap tiers = new TreeMap();
+	Hashtable optimized = new Hashtable();
+	Vector inlining = new Vector();
+	RecordingFile events = new RecordingFile(dump.toPath());
+	while (events.hasMoreEvents()) {
+	    RecordedEvent e = events.readEvent();
+	    String type = e.getEventType().getName();
+	    if (type.equals("jdk.Compilation")) {
+		RecordedMethod m = (RecordedMethod)e.getValue("method");
+		if (!m.getType().getName().equals(name) 
+		    || !e.getBoolean("succeded")) {
+		    continue;
+		}
+		int tier = e.getShort("compileLevel");
+		int[] seen = (int[])tiers.get(m.getName());
+		if (seen == null || tier >= seen[0]) {
+		    tiers.put(m.getName(), new int[] { 
+			tier, (int)e.getLong("codeSize") 
+		    });
+		}
+		Integer id = Integer.valueOf(e.getInt("compileId"));
+		Integer last = (Integer)optimized.get(m.getName());
+		if (tier == 4 && (last == null || id.compareTo(last) > 0)) {
+		    optimized.put(m.getName(), id);
+		}
+	    } else if (type.equals("jdk.CompilerInlining")) {
+		inlining.addElement(e);
+	    }
+	}
+	events.close();
+	dump.delete();
+
+	System.out.println("  " + input.length() + " chars, best " 
+			   + best / 1000000 + " ms, " 
+			   + (input.length() * 10000L / best) / 10.0 
+			   + " Mchar/s");
+	for (Iterator i = tiers.keySet().iterator(); i.hasNext(); ) {
+	    String m = (String)i.next();
+	    int[] t = (int[])tiers.get(m);
+	    if (m.equals("next_token") || m.equals("yy_do_action") 
+		|| t[1] >= 4096) {
+		System.out.println("  " + m + ": tier " + t[0] + ", " 
+				   + t[1] + " bytes of code");
+	    }
+	}
+	if (!tiers.containsKey("next_token")) {
+	    System.out.println("  next_token: not compiled");
+	}
+	String[] drivers = { "next_token", "yy_do_action" };
+	for (int d = 0; d < drivers.length; d++) {
+	    Integer id = (Integer)optimized.get(drivers[d]);
+	    if (id == null) {
+		continue;
+	    }
+	    TreeMap inlined = new TreeMap();
+	    TreeMap declined = new TreeMap();
+	    for (int i = 0; i < inlining.size(); i++) {
+		RecordedEvent e = (RecordedEvent)inlining.elementAt(i);
+		RecordedObject callee = (RecordedObject)e.getValue("callee");
+		if (e.getInt("compileId") != id.intValue() 
+		    || !callee.getString("type").equals(name)) {
+		    continue;
+		}
+		if (e.getBoolean("succeeded")) {
+		    inlined.put(callee.getString("name"), "");
+		} else {
+		    declined.put(callee.getString("name"), 
+				 e.getString("message"));
+		}
+	    }
+	    System.out.println("  " + drivers[d] + " inlines " 
+			       + inlined.keySet());
+	    for (Iterator i = declined.keySet().iterator(); i.hasNext(); ) {
+		String callee = (String)i.next();
+		System.out.println("  " + drivers[d] + " does not inline " 
+				   + callee + ": " + declined.get(callee));
+	    }
+	}
+    }
+
+    /** Reads the bytecode size of each method of a class from its class
+     * file.  A name that is overloaded gets the size of its largest
+     * version. */
+    static Hashtable codeSizes(String name) throws IOException {
+	InputStream in = LexerJit.class.getClassLoader()
+	    .getResourceAsStream(name.replace('.', '/') + ".class");
+	DataInputStream data = new DataInputStream(in);
+	Hashtable sizes = new Hashtable();
+	try {
+	    data.readInt();		// magic
+	    data.readInt();		// version
+	    int count = data.readUnsignedShort();
+	    String[] utf8 = new String[count];
+	    for (int i = 1; i < count; i++) {
+		int tag = data.readUnsignedByte();
+		switch (tag) {
+		case 1:			// Utf8
+		    utf8[i] = data.readUTF();
+		    break;
+		case 5:			// Long
+		case 6:			// Double
+		    data.readLong();
+		    i++;
+		    break;
+		case 7:			// Class
+		case 8:			// String
+		case 16:		// MethodType
+		case 19:		// Module
+		case 20:		// Package
+		    data.readUnsignedShort();
+		    break;
+		case 15:		// MethodHandle
+		    data.readUnsignedByte();
+		    data.readUnsignedShort();
+		    break;
+		default:		// four bytes of references or value
+		    data.readInt();
+		}
+	    }
+	    data.readUnsignedShort();	// access
+	    data.readUnsignedShort();	// this
+	    data.readUnsignedShort();	// super
+	    data.skipBytes(2 * data.readUnsignedShort());
+	    for (int pass = 0; pass < 2; pass++) {
+		int members = data.readUnsignedShort();
+		for (int m = 0; m < members; m++) {
+		    data.readUnsignedShort();
+		    String member = utf8[data.readUnsignedShort()];
+		    data.readUnsignedShort();
+		    int attrs = data.readUnsignedShort();
+		    for (int a = 0; a < attrs; a++) {
+			String attr = utf8[data.readUnsignedShort()];
+			int len = data.readInt();
+			if (pass == 1 && attr.equals("Code")) {
+			    data.readInt();	// max stack and locals
+			    int code = data.readInt();
+			    Integer old = (Integer)sizes.get(member);
+			    if (old == null || old.intValue() < code) {
+				sizes.put(member, Integer.valueOf(code));
+			    }
+			    data.skipBytes(len - 8);
+			} else {
+			    data.skipBytes(len);
+			}
+		    }
+		}
+	    }
+	} finally {
+	    data.close();
+	}
+	return sizes;
+    }
+}
@@ -0,0 +1,390 @@
+/*
+Copyright (c) 2000 The Regents of the University of California.
+All rights reserved.
+
+Permission to use, copy, modify, and distribute this software for any
+purpose, without fee, and without written agreement is hereby granted,
+provided that the above copyright notice and the following two
+paragraphs appear in all copies of this software.
+
+IN NO EVENT SHALL THE UNIVERSITY OF CALIFORNIA BE LIABLE TO ANY PARTY FOR
+DIRECT, INDIRECT, SPECIAL, INCIDENTAL, OR CONSEQUENTIAL DAMAGES ARISING OUT
+OF THE USE OF THIS SOFTWARE AND ITS DOCUMENTATION, EVEN IF THE UNIVERSITY OF
+CALIFORNIA HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+THE UNIVERSITY OF CALIFORNIA SPECIFICALLY DISCLAIMS ANY WARRANTIES,
+INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY
+AND FITNESS FOR A PARTICULAR PURPOSE.  THE SOFTWARE PROVIDED HEREUNDER IS
+ON AN "AS IS" BASIS, AND THE UNIVERSITY OF CALIFORNIA HAS NO OBLIGATION TO
+PROVIDE MAINTENANCE, SUPPORT, UPDATES, ENHANCEMENTS, OR MODIFICATIONS.
+*/
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java_cup.runtime.Symbol;
+
+/** The token stream of a large Cool source text, lexed in parallel.
+ *
+ * <p>
+ *
+ * The text is split into chunks that are lexed at the same time on the
+ * common fork-join pool, and the token streams of the chunks are
+ * joined in order.  A chunk may only start where the sequential lexer
+ * would be between two tokens in a state a fresh lexer can be put in,
+ * so a quick sequential pre-scan follows the lexical state through the
+ * text: nested <code>(* *)</code> comments, <code>--</code> comments
+ * and string constants, with the escapes that can hide their ends.  A
+ * chunk starts at the first line start past its share of the text
+ * where the pre-scan is in the initial state, outside any comment or
+ * string.  No rule of the Cool lexer matches past a newline, so a
+ * token never crosses such a line start, and the line number there is
+ * one more than the number of newlines before it.  A text that offers
+ * no such line start, such as one long comment, is lexed in fewer
+ * chunks.
+ *
+ * <p>
+ *
+ * The identifiers and constants of each chunk are entered in a string
+ * table of a compilation context of the chunk's own.  When the chunks
+ * are joined the symbols are entered again, in token order, in the
+ * tables of the caller's context, so that the tables end up with the
+ * same entries in the same order as after lexing sequentially, and the
+ * tokens are the same symbols.
+ *
+ * @see CoolLexer
+ * @see CompilationContext
+ * */
+class ParallelLexer {
+    /** The smallest share of the text worth lexing as a chunk of its
+     * own by default */
+    static final int MIN_CHUNK = 1 << 16;
+
+    /** The number JLex always gives the initial lexical state */
+    private static final int YYINITIAL = 0;
+
+    /** States of the pre-scan */
+    private static final int INITIAL = 0;
+    private static final int COMMENT = 1;
+    private static final int LINE_COMMENT = 2;
+    private static final int STRING = 3;
+
+    /** A chunk of the text and the tokens lexed from it */
+    private static class Chunk extends RecursiveAction {
+	final CharSequence text;
+	final int start;
+	final int end;
+	final int lineno;	// line number at start
+	final boolean last;
+
+	Symbol[] syms = new Symbol[64];
+	int[] lines = new int[64];	// line number after each token
+	int count = 0;
+
+	/** The context the chunk's symbols were entered in, or null if
+	 * it was the caller's */
+	CompilationContext ctx;
+
+	Chunk(CharSequence text, int start, int end, int lineno,
+	      boolean last) {
+	    this.text = text;
+	    this.start = start;
+	    this.end = end;
+	    this.lineno = lineno;
+	    this.last = last;
+	}
+
+	/** Lexes the chunk in a context of its own */
+	protected void compute() {
+	    CompilationContext saved = CompilationContext.current();
+	    ctx = new CompilationContext();
+	    ctx.enter();
+	    try {
+		lex();
+	    } catch (IOException ex) {
+		// a CharBuffer is not read from an actual device
+		throw new RuntimeException(ex);
+	    } finally {
+		saved.enter();
+	    }
+	}
+
+	/** Lexes the chunk up to its end.  The EOF token is kept only in
+	 * the last chunk. */
+	void lex() throws IOException {
+	    CoolLexer lexer = new CoolLexer(CharBuffer.wrap(text, start, end));
+	    lexer.restore(YYINITIAL, 0, lineno, "", true);
+	    while (true) {
+		Symbol sym = lexer.next_token();
+		if (sym.sym == TokenConstants.EOF && !last) {
+		    break;
+		}
+		if (count == syms.length) {
+		    Symbol[] s = new Symbol[2 * count];
+		    System.arraycopy(syms, 0, s, 0, count);
+		    syms = s;
+		    int[] l = new int[2 * count];
+		    System.arraycopy(lines, 0, l, 0, count);
+		    lines = l;
+		}
+		syms[count] = sym;
+		lines[count] = lexer.get_curr_lineno();
+		count++;
+		if (sym.sym == TokenConstants.EOF) {
+		    break;
+		}
+	    }
+	}
+    }
+
+    /** Lexes a range of chunks, splitting it in halves */
+    private static class Chunks extends RecursiveAction {
+	final Chunk[] chunks;
+	final int lo;
+	final int hi;
+
+	Chunks(Chunk[] chunks, int lo, int hi) {
+	    this.chunks = chunks;
+	    this.lo = lo;
+	    this.hi = hi;
+	}
+
+	protected void compute() {
+	    if (hi - lo == 1) {
+		chunks[lo].compute();
+	    } else {
+		int mid = (lo + hi) >>> 1;
+		invokeAll(new Chunks(chunks, lo, mid),
+			  new Chunks(chunks, mid, hi));
+	    }
+	}
+    }
+
+    private Symbol[] syms;
+    private int[] lines;
+    private int nchunks;
+
+    /** Lexes a text in at most <code>chunks</code> chunks.
+     *
+     * @param text the Cool source
+     * @param filename the name reported by the lexer, or null
+     * @param chunks the number of chunks wanted
+     * */
+    ParallelLexer(CharSequence text, String filename, int chunks)
+	throws IOException {
+	if (chunks < 1) {
+	    throw new IllegalArgumentException("chunks " + chunks);
+	}
+	if (filename != null) {
+	    // the sequential lexer enters the name before any token
+	    AbstractTable.stringtable.addString(filename);
+	}
+
+	int[][] split = split(text, chunks);
+	int[] starts = split[0];
+	int[] linenos = split[1];
+	nchunks = starts.length;
+
+	Chunk[] parts = new Chunk[nchunks];
+	for (int i = 0; i < nchunks; i++) {
+	    int end = i + 1 < nchunks ? starts[i + 1] : text.length();
+	    parts[i] = new Chunk(text, starts[i], end, linenos[i],
+				 i + 1 == nchunks);
+	}
+	if (nchunks == 1) {
+	    parts[0].lex();
+	} else {
+	    ForkJoinPool.commonPool().invoke(new Chunks(parts, 0, nchunks));
+	}
+	join(parts);
+    }
+
+    /** Lexes a text in as many chunks as are worth it on this machine */
+    ParallelLexer(CharSequence text, String filename) throws IOException {
+	this(text, filename, defaultChunks(text.length()));
+    }
+
+    /** Returns the number of chunks for a text of a given length: a few
+     * per thread of the common pool, so that the threads stay busy when
+     * the chunks take unequal time, but none under
+     * <code>MIN_CHUNK</code> characters. */
+    static int defaultChunks(int length) {
+	int threads = ForkJoinPool.getCommonPoolParallelism();
+	if (threads < 2) {
+	    return 1;
+	}
+	return Math.max(1, Math.min(4 * threads, length / MIN_CHUNK));
+    }
+
+    /** Returns the number of tokens, including the final EOF token */
+    int size() {
+	return syms.length;
+    }
+
+    /** Returns the token at an index */
+    Symbol token(int i) {
+	check(i);
+	return syms[i];
+    }
+
+    /** Returns the line number after the token at an index, as
+     * reported by <code>CoolLexer.get_curr_lineno()</code> */
+    int line(int i) {
+	check(i);
+	return lines[i];
+    }
+
+    /** Returns the number of chunks the text was actually lexed in */
+    int chunks() {
+	return nchunks;
+    }
+
+    /** Finds where the chunks start.  Chunk <code>k</code> of
+     * <code>n</code> starts at the first line start at or past
+     * <code>k/n</code> of the text where the lexer is in its initial
+     * state.  The pre-scan takes the longest match at every character
+     * that can begin or end a comment or string, just as the lexer
+     * does.
+     *
+     * @return the start offsets and the line numbers there
+     * */
+    private static int[][] split(CharSequence text, int chunks) {
+	int len = text.length();
+	int[] starts = new int[chunks];
+	int[] linenos = new int[chunks];
+	starts[0] = 0;
+	linenos[0] = 1;
+	int n = 1;
+	long target = (long)len / chunks;
+
+	int state = INITIAL;
+	int depth = 0;
+	int lineno = 1;
+	int i = 0;
+	while (i < len && n < chunks) {
+	    char c = text.charAt(i++);
+	    char next = i < len ? text.charAt(i) : '\0';
+	    if (c == '\n') {
+		lineno++;
+		if (state == LINE_COMMENT || state == STRING) {
+		    state = INITIAL;
+		}
+		if (state == INITIAL && i >= target && i < len) {
+		    starts[n] = i;
+		    linenos[n] = lineno;
+		    n++;
+		    target = (long)len * n / chunks;
+		}
+		continue;
+	    }
+	    switch (state) {
+	    case INITIAL:
+		if (c == '-' && next == '-') {
+		    state = LINE_COMMENT;
+		    i++;
+		} else if (c == '(' && next == '*') {
+		    state = COMMENT;
+		    depth = 1;
+		    i++;
+		} else if (c == '"') {
+		    state = STRING;
+		} else if ((c == '<' && (next == '-' || next == '='))
+			   || (c == '*' && next == ')')) {
+		    // "<--" is an assignment and a minus, not a comment
+		    i++;
+		}
+		break;
+	    case COMMENT:
+		if (c == '(' && next == '*') {
+		    depth++;
+		    i++;
+		} else if (c == '*' && next == ')') {
+		    if (--depth == 0) {
+			state = INITIAL;
+		    }
+		    i++;
+		} else if (c == '\\' && i < len
+			   && next != '\n' && next != '\r') {
+		    i++;
+		}
+		break;
+	    case STRING:
+		if (c == '"') {
+		    state = INITIAL;
+		} else if (c == '\\' && i < len && next != '\r') {
+		    // an escaped newline continues the string
+		    if (next == '\n') {
+			lineno++;
+		    }
+		    i++;
+		}
+		break;
+	    }
+	}
+
+	if (n < chunks) {
+	    int[] s = new int[n];
+	    int[] l = new int[n];
+	    System.arraycopy(starts, 0, s, 0, n);
+	    System.arraycopy(linenos, 0, l, 0, n);
+	    starts = s;
+	    linenos = l;
+	}
+	return new int[][] { starts, linenos };
+    }
+
+    /** Joins the tokens of the chunks, entering the symbols of chunks
+     * lexed in contexts of their own in the caller's tables */
+    private void join(Chunk[] parts) {
+	int total = 0;
+	for (int i = 0; i < parts.length; i++) {
+	    total += parts[i].count;
+	}
+	syms = new Symbol[total];
+	lines = new int[total];
+	int k = 0;
+	for (int i = 0; i < parts.length; i++) {
+	    Chunk part = parts[i];
+	    IdentityHashMap entered = new IdentityHashMap();
+	    for (int j = 0; j < part.count; j++) {
+		Symbol sym = part.syms[j];
+		if (part.ctx != null && sym.value instanceof AbstractSymbol) {
+		    AbstractSymbol own = (AbstractSymbol)sym.value;
+		    AbstractSymbol s = (AbstractSymbol)entered.get(own);
+		    if (s == null) {
+			s = tableFor(sym.sym).addString(own.getString());
+			entered.put(own, s);
+		    }
+		    sym.value = s;
+		}
+		syms[k] = sym;
+		lines[k] = part.lines[j];
+		k++;
+	    }
+	    part.syms = null;
+	    part.lines = null;
+	}
+    }
+
+    /** Returns the global table the lexer enters the value of a token
+     * of a given kind in */
+    private static AbstractTable tableFor(int kind) {
+	switch (kind) {
+	case TokenConstants.STR_CONST:
+	    return AbstractTable.stringtable;
+	case TokenConstants.INT_CONST:
+	    return AbstractTable.inttable;
+	default:
+	    return AbstractTable.idtable;
+	}
+    }
+
+    private void check(int i) {
+	if (i < 0 || i >= syms.length) {
+	    throw new IndexOutOfBoundsException("token " + i + " of "
+						+ syms.length);
+	}
+    }
+}
@@ -0,0 +1 @@
+/usr/class/cs143/cool/src/PA3J/TableCounters.java
\ No newline at end of file
@@ -115,33 +115,63 @@ class ClassTable {
     private int semantErrors;
     private PrintStream errorStream;
 
+    /** Stack of the identifiers bound by enclosing formals, lets and
+     * case branches.  One stack is reused for a whole program: a
+     * construct that binds an identifier takes a mark, declares its
+     * bindings and resets to the mark when it is done, so checking an
+     * expression allocates nothing once the arrays are large enough. */
     public static class Scope {
         private ClassTable classTable;
-        private Scope parent;
-        private Map<AbstractSymbol,Type> bindings;
+        private AbstractSymbol[] ids;
+        private AbstractSymbol[] types;
+        private int size;
         
         public static class UndefinedIdentifierError extends Exception {}
         
-        Scope(ClassTable classTable_, Scope parent_) {
+        Scope(ClassTable classTable_) {
             classTable = classTable_;
-            parent = parent_;
-            bindings = new HashMap<AbstractSymbol,Type>();
+            ids = new AbstractSymbol[16];
+            types = new AbstractSymbol[16];
+            size = 0;
         }
         
-        public void declare(AbstractSymbol context, AbstractSymbol identifier, AbstractSymbol type) {
-            bindings.put(identifier, Type.resolve(context, type));
+        public int mark() {
+            return size;
+        }
+        
+        public void reset(int mark) {
+            size = mark;
+        }
+        
+        public void declare(AbstractSymbol identifier, AbstractSymbol type) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                types = Arrays.copyOf(types, size * 2);
+            }
+            ids[size] = identifier;
+            types[size] = type;
+            size++;
+        }
+        
+        public boolean declaredSince(int mark, AbstractSymbol identifier) {
+            for (int i = size - 1; i >= mark; i--) {
+                if (ids[i].equals(identifier)) {
+                    return true;
+                }
+            }
+            return false;
         }
         
         public AbstractSymbol getType(AbstractSymbol identifier, AbstractSymbol context) throws UndefinedIdentifierError {
-            Type local = resolve(identifier, context);
             AbstractSymbol type;
             
             if (identifier.equals(TreeConstants.self)) {
                 type = TreeConstants.SELF_TYPE;
-            } else if (local != null) {
-                type = local.name;
             } else {
-                type = classTable.getType(context, identifier);
+                type = resolve(identifier);
+                if (type == null) {
+                    type = classTable.getType(context, identifier);
+                }
             }
             
             if (type == null) {
@@ -151,15 +181,13 @@ class ClassTable {
             }
         }
         
-        private Type resolve(AbstractSymbol identifier, AbstractSymbol context) {
-            Type type = bindings.get(identifier);
-            if (type != null) {
-                return type;
-            } else if (parent != null) {
-                return parent.resolve(identifier, context);
-            } else {
-                return null;
+        private AbstractSymbol resolve(AbstractSymbol identifier) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (ids[i].equals(identifier)) {
+                    return types[i];
+                }
             }
+            return null;
         }
     }
 
@@ -519,11 +547,18 @@ class ClassTable {
             return t1.equals(TreeConstants.SELF_TYPE);
         }
         
-        AbstractSymbol r1 = Type.resolve(context, t1).context,
-                       r2 = Type.resolve(context, t2).context;
+        // walk up from t1 rather than listing its ancestors, so the
+        // check allocates nothing
+        AbstractSymbol r1 = t1.equals(TreeConstants.SELF_TYPE) ? context : t1,
+                       r2 = t2;
         
-        List<AbstractSymbol> ancestors = getAncestors(r1);
-        return ancestors.indexOf(r2) >= 0;
+        while (!r1.equals(r2)) {
+            if (r1.equals(TreeConstants.Object_)) {
+                return false;
+            }
+            r1 = parents.get(r1);
+        }
+        return true;
     }
 
     /** Prints line number and file name of the given class.
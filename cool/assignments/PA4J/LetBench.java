@@ -0,0 +1,131 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/** A benchmark of type checking nested scopes.
+ *
+ * <p>
+ *
+ * For each depth the benchmark builds a method whose body is a chain of
+ * that many nested <code>let</code>s, each initialised from the one
+ * before, around a <code>case</code> on the innermost identifier.  It
+ * annotates the method over and over with one <code>Scope</code>, the
+ * way <code>programc.annotate</code> reuses one for a whole program,
+ * and reports the time and the bytes allocated per annotate.
+ *
+ * <p>
+ *
+ * Once the scope stack has grown to the depth of the chain, binding and
+ * unbinding the lets allocates nothing, so the bytes per annotate
+ * should stay flat as the depth grows.  What is left is allocated by
+ * the <code>case</code> and by the enumerations of the formal and
+ * branch lists.  Allocated bytes are read from
+ * <code>com.sun.management.ThreadMXBean</code> and shown as
+ * <code>-</code> on a VM that does not count them.
+ *
+ * <p>
+ *
+ * Usage: <code>LetBench [max [iters [reps]]]</code>.  annotate
+ * recurses once per <code>let</code>, so chains much deeper than the
+ * default need a larger thread stack (<code>java -Xss</code>).
+ * */
+class LetBench {
+    public static void main(String args[]) {
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int iters = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int reps = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        System.out.println("     depth   annotate ns   let ns   bytes");
+        for (int n = 10; n <= max; n = n < max && n * 10 > max ? max : n * 10) {
+            method function = body(n);
+            ClassTable classTable = new ClassTable(new Classes(0)
+                .appendElement(new class_c(0, TreeConstants.Main, TreeConstants.Object_,
+                                           new Features(0).appendElement(function),
+                                           AbstractTable.stringtable.addString("<bench>"))));
+            Scope scope = new Scope(classTable);
+
+            // warm up, and let the stack grow to the depth of the chain
+            annotate(classTable, function, scope, iters);
+
+            long time = Long.MAX_VALUE;
+            long bytes = Long.MAX_VALUE;
+            for (int r = 0; r < reps; r++) {
+                long[] t = annotate(classTable, function, scope, iters);
+                time = Math.min(time, t[0]);
+                bytes = Math.min(bytes, t[1]);
+            }
+            System.out.println(pad(n, 10) + pad(time / iters, 14)
+                               + pad(time / iters / n, 9)
+                               + (bytes < 0 ? "       -" : pad(bytes / iters, 8)));
+            if (n == max) {
+                break;
+            }
+        }
+    }
+
+    /** Builds <code>f() : Object { let x0 : Int &lt;- 0 in let x1 : Int
+     * &lt;- x0 in ... case x<i>n-1</i> of i : Int =&gt; i; o : Object
+     * =&gt; x0; esac }</code> */
+    static method body(int n) {
+        AbstractSymbol Int = TreeConstants.Int;
+        AbstractSymbol[] x = new AbstractSymbol[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = AbstractTable.idtable.addString("x" + i);
+        }
+        Expression expr = new typcase(0, new object(0, x[n - 1]), new Cases(0)
+            .appendElement(new branch(0, AbstractTable.idtable.addString("i"), Int,
+                                      new object(0, AbstractTable.idtable.addString("i"))))
+            .appendElement(new branch(0, AbstractTable.idtable.addString("o"),
+                                      TreeConstants.Object_, new object(0, x[0]))));
+        for (int i = n - 1; i >= 0; i--) {
+            Expression init = i == 0
+                ? (Expression)new int_const(0, AbstractTable.inttable.addString("0"))
+                : (Expression)new object(0, x[i - 1]);
+            expr = new let(0, x[i], Int, init, expr);
+        }
+        return new method(0, AbstractTable.idtable.addString("f"), new Formals(0),
+                          TreeConstants.Object_, expr);
+    }
+
+    /** Annotates the method iters times with the same scope; returns
+     * the time taken and the bytes allocated, or -1 for the bytes if
+     * the VM does not count them */
+    static long[] annotate(ClassTable classTable, method function, Scope scope, int iters) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean counter = null;
+        if (bean instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported()) {
+            counter = (com.sun.management.ThreadMXBean)bean;
+            counter.setThreadAllocatedMemoryEnabled(true);
+        }
+        long thread = Thread.currentThread().getId();
+
+        long before = counter == null ? 0 : counter.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < iters; i++) {
+                function.annotate(classTable, TreeConstants.Main, scope);
+            }
+        } catch (TypeMismatchError e) {
+            throw new RuntimeException("let chain does not type check");
+        }
+        long end = System.nanoTime();
+        long after = counter == null ? 0 : counter.getThreadAllocatedBytes(thread);
+
+        if (scope.mark() != 0) {
+            throw new RuntimeException("scope left " + scope.mark() + " bindings");
+        }
+        if (!function.expr.get_type().equals(TreeConstants.Int)) {
+            throw new RuntimeException("let chain has type " + function.expr.get_type());
+        }
+        return new long[] { end - start, counter == null ? -1 : after - before };
+    }
+
+    /** Right-justifies a number in a field of the given width */
+    static String pad(long n, int width) {
+        String s = Long.toString(n);
+        while (s.length() < width) {
+            s = " " + s;
+        }
+        return s;
+    }
+}
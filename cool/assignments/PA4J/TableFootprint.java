@@ -0,0 +1 @@
+/usr/class/cs143/cool/src/PA4J/TableFootprint.java
\ No newline at end of file
@@ -11,8 +11,8 @@ import java.util.*;
 
 
 class Scope extends ClassTable.Scope {
-    Scope(ClassTable classTable, Scope scope) {
-        super(classTable, scope);
+    Scope(ClassTable classTable) {
+        super(classTable);
     }
 }
 
@@ -295,8 +295,9 @@ class programc extends Program {
     }
     
     public void annotate(ClassTable classTable) throws TypeMismatchError {
+        Scope scope = new Scope(classTable);
         for (Enumeration e = classes.getElements(); e.hasMoreElements(); ) {
-            ((class_c)e.nextElement()).annotate(classTable);
+            ((class_c)e.nextElement()).annotate(classTable, scope);
         }
     }
 
@@ -356,14 +357,14 @@ class class_c extends Class_ {
         out.println(Utilities.pad(n + 2) + ")");
     }
     
-    public void annotate(ClassTable classTable) throws TypeMismatchError {
+    public void annotate(ClassTable classTable, Scope scope) throws TypeMismatchError {
         Feature feature;
         for (Enumeration e = features.getElements(); e.hasMoreElements(); ) {
             feature = (Feature)e.nextElement();
             if (feature instanceof method) {
-                ((method)feature).annotate(classTable, this.name);
+                ((method)feature).annotate(classTable, this.name, scope);
             } else if (feature instanceof attr) {
-                ((attr)feature).annotate(classTable, this.name);
+                ((attr)feature).annotate(classTable, this.name, scope);
             }
         }
     }
@@ -417,30 +418,32 @@ class method extends Feature {
         expr.dump_with_types(out, n + 2);
     }
     
-    public void annotate(ClassTable classTable, AbstractSymbol context) throws TypeMismatchError {
+    public void annotate(ClassTable classTable, AbstractSymbol context, Scope scope) throws TypeMismatchError {
         if (!classTable.typeExists(return_type)) {
             throw new TypeMismatchError();
         }
         
-        Set<AbstractSymbol> formalNames = new HashSet<AbstractSymbol>();
-        Scope scope = new Scope(classTable, null);
-        
-        formalc formal;
-        for (Enumeration e = formals.getElements(); e.hasMoreElements(); ) {
-            formal = ((formalc)e.nextElement());
-            
-            if (!formalNames.add(formal.name) ||
-                formal.type_decl.equals(TreeConstants.SELF_TYPE) ||
-                !classTable.legalVarname(formal.name) ||
-                !classTable.typeExists(formal.type_decl)
-               ) {
-                throw new TypeMismatchError();
+        int mark = scope.mark();
+        try {
+            formalc formal;
+            for (Enumeration e = formals.getElements(); e.hasMoreElements(); ) {
+                formal = ((formalc)e.nextElement());
+                
+                if (scope.declaredSince(mark, formal.name) ||
+                    formal.type_decl.equals(TreeConstants.SELF_TYPE) ||
+                    !classTable.legalVarname(formal.name) ||
+                    !classTable.typeExists(formal.type_decl)
+                   ) {
+                    throw new TypeMismatchError();
+                }
+                scope.declare(formal.name, formal.type_decl);
             }
-            scope.declare(context, formal.name, formal.type_decl);
+            
+            expr.annotate(classTable, context, scope);
+        } finally {
+            scope.reset(mark);
         }
         
-        expr.annotate(classTable, context, scope);
-        
         if (!classTable.isSubtype(context, expr.get_type(), return_type)) {
             throw new TypeMismatchError();
         }
@@ -487,14 +490,13 @@ class attr extends Feature {
         init.dump_with_types(out, n + 2);
     }
     
-    public void annotate(ClassTable classTable, AbstractSymbol context) throws TypeMismatchError {
+    public void annotate(ClassTable classTable, AbstractSymbol context, Scope scope) throws TypeMismatchError {
         if (!classTable.legalVarname(name)) {
             throw new TypeMismatchError();
         }
         if (!classTable.typeExists(type_decl)) {
             throw new TypeMismatchError();
         }
-        Scope scope = new Scope(classTable, null);
         init.annotate(classTable, context, scope);
         AbstractSymbol t = init.get_type();
         if (!t.equals(TreeConstants.No_type) && !classTable.isSubtype(context, t, type_decl)) {
@@ -588,9 +590,13 @@ class branch extends Case {
         if (!classTable.typeExists(type_decl)) {
             throw new TypeMismatchError();
         }
-        Scope inner = new Scope(classTable, scope);
-        inner.declare(context, name, type_decl);
-        expr.annotate(classTable, context, inner);
+        int mark = scope.mark();
+        try {
+            scope.declare(name, type_decl);
+            expr.annotate(classTable, context, scope);
+        } finally {
+            scope.reset(mark);
+        }
     }
 
 }
@@ -1066,9 +1072,13 @@ class let extends Expression {
             throw new TypeMismatchError();
         }
         
-        Scope inner = new Scope(classTable, scope);
-        inner.declare(context, identifier, type_decl);
-        body.annotate(classTable, context, inner);
+        int mark = scope.mark();
+        try {
+            scope.declare(identifier, type_decl);
+            body.annotate(classTable, context, scope);
+        } finally {
+            scope.reset(mark);
+        }
         set_type(body.get_type());
     }
 
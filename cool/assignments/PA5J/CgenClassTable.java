@@ -22,6 +22,8 @@ PROVIDE MAINTENANCE, SUPPORT, UPDATES, ENHANCEMENTS, OR MODIFICATIONS.
 // This is a project skeleton file
 
 import java.io.PrintStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.*;
 
 /** This class is used for representing the inheritance tree during code
@@ -145,8 +147,10 @@ class CgenClassTable extends SymbolTable {
         AbstractTable.stringtable.addString("");
         AbstractTable.inttable.addString("0");
 
-        AbstractTable.stringtable.codeStringTable(stringclasstag, str);
-        AbstractTable.inttable.codeStringTable(intclasstag, str);
+        // Only the constants the generated code refers to are emitted.
+        // Strings go first: coding a string marks its length constant.
+        AbstractTable.stringtable.codeReachable(stringclasstag, str);
+        AbstractTable.inttable.codeReachable(intclasstag, str);
         codeBools(boolclasstag);
     }
 
@@ -418,9 +422,13 @@ class CgenClassTable extends SymbolTable {
         if (Flags.cgen_debug) System.out.println("choosing gc");
         codeSelectGc();
 
-        if (Flags.cgen_debug) System.out.println("coding constants");
-        codeConstants();
-        
+        // The rest of the program is coded into a buffer first, so that
+        // every string and int constant it refers to is marked reachable
+        // before the constants are emitted ahead of it.
+        PrintStream out = str;
+        ByteArrayOutputStream rest = new ByteArrayOutputStream();
+        str = new PrintStream(rest);
+
         CgenNode cnode;
         StringSymbol ssym;
         
@@ -451,6 +459,18 @@ class CgenClassTable extends SymbolTable {
             cnode = (CgenNode)e.nextElement();
             cnode.codeMethods(str, this);
         }
+
+        str.flush();
+        str = out;
+
+        if (Flags.cgen_debug) System.out.println("coding constants");
+        codeConstants();
+
+        try {
+            rest.writeTo(str);
+        } catch (IOException ex) {
+            Utilities.fatalError("Unexpected exception: " + ex);
+        }
     }
     
     public StringSymbol filename(AbstractSymbol className) {
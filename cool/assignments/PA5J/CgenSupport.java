@@ -568,26 +568,28 @@ class CgenSupport {
         s.println(JAL + "_gc_check");
     }
 
-    private static boolean ascii = false;
-
     /** Switch output mode to ASCII.
+     * @param ascii whether the output is already in ASCII mode
      * @param s the output stream
+     * @return true, the new mode
      * */
-    static void asciiMode(PrintStream s) {
+    static boolean asciiMode(boolean ascii, PrintStream s) {
         if (!ascii) {
             s.print("\t.ascii\t\"");
-            ascii = true;
         }
+        return true;
     }
 
     /** Switch output mode to BYTE
+     * @param ascii whether the output is in ASCII mode
      * @param s the output stream
+     * @return false, the new mode
      * */
-    static void byteMode(PrintStream s) {
+    static boolean byteMode(boolean ascii, PrintStream s) {
         if (ascii) {
             s.println("\"");
-            ascii = false;
         }
+        return false;
     }
     
     /** Emits a string constant.
@@ -595,39 +597,39 @@ class CgenSupport {
      * @param s the output stream
      * */
     static void emitStringConstant(String str, PrintStream s) {
-        ascii = false;
+        boolean ascii = false;
         
         for (int i = 0; i < str.length(); i++) {
             char c = str.charAt(i);
             
             switch (c) {
             case '\n':
-                asciiMode(s);
+                ascii = asciiMode(ascii, s);
                 s.print("\\n");
                 break;
             case '\t':
-                asciiMode(s);
+                ascii = asciiMode(ascii, s);
                 s.print("\\t");
                 break;
             case '\\':
-                byteMode(s);
+                ascii = byteMode(ascii, s);
                 s.println("\t.byte\t" + (byte) '\\');
                 break;
             case '"':
-                asciiMode(s);
+                ascii = asciiMode(ascii, s);
                 s.print("\\\"");
                 break;
             default:
                 if (c >= 0x20 && c <= 0x7f) {
-                    asciiMode(s);
+                    ascii = asciiMode(ascii, s);
                     s.print(c);
                 } else {
-                    byteMode(s);
+                    ascii = byteMode(ascii, s);
                     s.println("\t.byte\t" + (byte) c);
                 }
             }
         }
-        byteMode(s);
+        byteMode(ascii, s);
         s.println("\t.byte\t0\t");
     }
 }
@@ -0,0 +1,162 @@
+/*
+Copyright (c) 2000 The Regents of the University of California.
+All rights reserved.
+
+Permission to use, copy, modify, and distribute this software for any
+purpose, without fee, and without written agreement is hereby granted,
+provided that the above copyright notice and the following two
+paragraphs appear in all copies of this software.
+
+IN NO EVENT SHALL THE UNIVERSITY OF CALIFORNIA BE LIABLE TO ANY PARTY FOR
+DIRECT, INDIRECT, SPECIAL, INCIDENTAL, OR CONSEQUENTIAL DAMAGES ARISING OUT
+OF THE USE OF THIS SOFTWARE AND ITS DOCUMENTATION, EVEN IF THE UNIVERSITY OF
+CALIFORNIA HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+THE UNIVERSITY OF CALIFORNIA SPECIFICALLY DISCLAIMS ANY WARRANTIES,
+INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY
+AND FITNESS FOR A PARTICULAR PURPOSE.  THE SOFTWARE PROVIDED HEREUNDER IS
+ON AN "AS IS" BASIS, AND THE UNIVERSITY OF CALIFORNIA HAS NO OBLIGATION TO
+PROVIDE MAINTENANCE, SUPPORT, UPDATES, ENHANCEMENTS, OR MODIFICATIONS.
+*/
+
+/** State belonging to a single compilation.
+ *
+ * <p>
+ *
+ * The string tables are reached through the static fields <a
+ * href="AbstractTable.html#stringtable">AbstractTable.stringtable</a>,
+ * <a href="AbstractTable.html#idtable">AbstractTable.idtable</a> and <a
+ * href="AbstractTable.html#inttable">AbstractTable.inttable</a>.  These
+ * are the tables of the default context.  Once a thread has entered a
+ * context of its own, every operation on one of the default tables made
+ * by that thread is forwarded to the corresponding table of its
+ * context.  Several independent compilations can therefore run on
+ * separate threads of one process without sharing strings or indices.
+ * A thread that never enters a context uses the default context, so a
+ * compiler phase that processes one program behaves exactly as before.
+ *
+ * <p>
+ *
+ * A new context starts with the entries the default context tables
+ * hold when it is created.  They are shared, not copied: the tables of
+ * the context look strings up in the default tables first and number
+ * their own entries after them.  Symbols that are interned once per
+ * process, such as the ones in TreeConstants, are therefore the same
+ * objects in every context and can still be compared with ==.  The
+ * boolean constants in BoolConst carry no mutable state and are shared
+ * as well.
+ *
+ * <p>
+ *
+ * Only while some thread is bound to a context of its own do the
+ * default tables look up the context of the calling thread, so a
+ * process that has finished with its contexts pays nothing for them.
+ *
+ * @see AbstractTable
+ * */
+class CompilationContext {
+    /** The context of threads that have not entered one */
+    private static final CompilationContext defaultContext =
+        new CompilationContext(AbstractTable.stringtable,
+                               AbstractTable.idtable,
+                               AbstractTable.inttable);
+
+    /** The context entered by each thread */
+    private static final ThreadLocal current = new ThreadLocal();
+
+    /** Number of threads bound to a context other than the default
+     * one */
+    private static int bound = 0;
+
+    /** Set while any thread is bound to a context other than the
+     * default one.  Otherwise the tables skip the thread lookup. */
+    static volatile boolean entered = false;
+
+    /** String table of string constants */
+    final StringTable stringtable;
+
+    /** String table of identifiers */
+    final IdTable idtable;
+
+    /** String table of integer constants */
+    final IntTable inttable;
+
+    private CompilationContext(StringTable stringtable, IdTable idtable,
+                               IntTable inttable) {
+        this.stringtable = stringtable;
+        this.idtable = idtable;
+        this.inttable = inttable;
+    }
+
+    /** Creates a new context whose tables start with the entries of the
+     * default context, which they share. */
+    public CompilationContext() {
+        // Make sure the per-process symbols are in the default tables
+        // before they are shared.  Phases before the parser have no tree
+        // constants.
+        Object entered = current.get();
+        current.remove();
+        try {
+            Class.forName("TreeConstants");
+        } catch (ClassNotFoundException ex) {
+        } finally {
+            current.set(entered);
+        }
+        stringtable = new StringTable();
+        idtable = new IdTable();
+        inttable = new IntTable();
+        stringtable.share(defaultContext.stringtable);
+        idtable.share(defaultContext.idtable);
+        inttable.share(defaultContext.inttable);
+    }
+
+    /** Binds this context to the current thread.  Entering the default
+     * context is the same as exiting the current one. */
+    public void enter() {
+        if (this == defaultContext) {
+            exit();
+            return;
+        }
+        if (current.get() == null) {
+            count(1);
+        }
+        current.set(this);
+    }
+
+    /** Returns the current thread to the default context. */
+    public void exit() {
+        if (current.get() != null) {
+            current.remove();
+            count(-1);
+        }
+    }
+
+    /** Counts threads binding to or leaving contexts of their own, and
+     * clears the flag when the last one leaves */
+    private static synchronized void count(int delta) {
+        bound += delta;
+        entered = bound > 0;
+    }
+
+    /** Returns the context bound to the current thread.
+     *
+     * @return the context entered by this thread, or the default context
+     * */
+    public static CompilationContext current() {
+        CompilationContext ctx = (CompilationContext)current.get();
+        return ctx == null ? defaultContext : ctx;
+    }
+
+    /** Returns the table of this context that corresponds to a table of
+     * the default context.  Any other table is returned unchanged. */
+    AbstractTable tableFor(AbstractTable table) {
+        if (table == defaultContext.stringtable) {
+            return stringtable;
+        } else if (table == defaultContext.idtable) {
+            return idtable;
+        } else if (table == defaultContext.inttable) {
+            return inttable;
+        }
+        return table;
+    }
+}
@@ -75,6 +75,19 @@ class Flags {
     /** Enable code gen debugging */
     public static boolean cgen_debug = false;
 
+    /** Symbol table snapshot file for warm starts
+     * @see AbstractTable#warmStart(String)
+     */
+    public static String symtab_snapshot = null;
+
+    /** Maintain and report the string and symbol table counters
+     * @see TableCounters
+     */
+    public static boolean table_counters = false;
+
+    /** File the table counters are reported to (default stderr) */
+    public static String counters_filename = null;
+
     /**
      * Processes command line flags and extracts filenames to be compiled
      *
@@ -123,6 +136,26 @@ class Flags {
                     case 'c':
                         cgen_debug = true;
                         break;
+                    case 'i':
+                        table_counters = true;
+                        break;
+                    case 'I':
+                        if ((i+1) < args.length) {
+                            table_counters = true;
+                            counters_filename = args[i + 1];
+                            args[i + 1] = null;
+                        } else {
+                            unknownopt = true;
+                        }
+                        break;
+                    case 'S':
+                        if ((i+1) < args.length) {
+                            symtab_snapshot = args[i + 1];
+                            args[i + 1] = null;
+                        } else {
+                            unknownopt = true;
+                        }
+                        break;
                     default:
                         unknownopt = true;
                         break;
@@ -137,10 +170,18 @@ class Flags {
         }
 
         if (unknownopt) {
-            System.err.println("usage: <program> [-OgtT -o outname] [input-files]\n");
+            System.err.println("usage: <program> [-OgtTi -o outname -I countfile -S snapshot] [input-files]\n");
             System.exit(1);
         }
 
+        if (table_counters) {
+            TableCounters.enable(counters_filename);
+        }
+
+        if (symtab_snapshot != null) {
+            AbstractTable.warmStart(symtab_snapshot);
+        }
+
         String[] res = new String[filecnt];
         int ind = 0;
         for (int i = 0; i < args.length; i++) {
@@ -24,7 +24,7 @@ class IdTable extends AbstractTable {
      * 
      * @see IdSymbol
      * */
-    protected AbstractSymbol getNewSymbol(String s, int len, int index) {
-        return new IdSymbol(s, len, index);
+    protected AbstractSymbol getNewSymbol(int offset, int len, int index) {
+        return new IdSymbol(this, offset, len, index);
     }
 }
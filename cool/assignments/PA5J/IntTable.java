@@ -22,12 +22,100 @@ PROVIDE MAINTENANCE, SUPPORT, UPDATES, ENHANCEMENTS, OR MODIFICATIONS.
 import java.io.PrintStream;
 
 class IntTable extends AbstractTable {
+    /** Keys of the open-addressed map from int values to symbols */
+    private int[] intkeys = new int[64];
+
+    /** Symbols of the open-addressed map; null marks an empty slot */
+    private IntSymbol[] intsyms = new IntSymbol[64];
+
+    /** Number of occupied slots in the int map */
+    private int intcount = 0;
+
     /** Creates a new IntSymbol object.
      * 
      * @see IntSymbol
      * */
-    protected AbstractSymbol getNewSymbol(String s, int len, int index) {
-        return new IntSymbol(s, len, index);
+    protected AbstractSymbol getNewSymbol(int offset, int len, int index) {
+        return new IntSymbol(this, offset, len, index);
+    }
+
+    /** Adds the string representation of the specified integer to this
+     * string table.
+     *
+     * Integers are first looked up in a map keyed on the int value
+     * itself, so adding an integer that is already in the table does
+     * not allocate.  The string representation is only formatted the
+     * first time a value is seen.  In concurrent mode the int map is
+     * guarded by the table's monitor.
+     *
+     * @param i the integer to add
+     * @return the symbol for the integer i
+     * */
+    public AbstractSymbol addInt(int i) {
+        AbstractTable t = forContext();
+        if (t != this) {
+            return t.addInt(i);
+        }
+        if (concurrent) {
+            synchronized (this) {
+                return findInt(i);
+            }
+        }
+        return findInt(i);
+    }
+
+    /** Returns the symbol for an int value, adding it if necessary */
+    private AbstractSymbol findInt(int i) {
+        int mask = intkeys.length - 1;
+        int slot = hashInt(i) & mask;
+        int n = 1;
+        while (intsyms[slot] != null) {
+            if (intkeys[slot] == i) {
+                if (TableCounters.enabled) {
+                    interns++;
+                    hits++;
+                    probes += n;
+                    if (n > maxProbe) {
+                        maxProbe = n;
+                    }
+                }
+                return intsyms[slot];
+            }
+            slot = (slot + 1) & mask;
+            n++;
+        }
+        IntSymbol sym = (IntSymbol)addString(Integer.toString(i));
+        intkeys[slot] = i;
+        intsyms[slot] = sym;
+        if (++intcount * 2 > intkeys.length) {
+            growIntMap();
+        }
+        return sym;
+    }
+
+    /** Spreads the bits of an int value for use as a map slot */
+    private static int hashInt(int i) {
+        int h = i * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** Doubles the capacity of the int map and rehashes its entries */
+    private void growIntMap() {
+        int[] oldkeys = intkeys;
+        IntSymbol[] oldsyms = intsyms;
+        intkeys = new int[oldkeys.length * 2];
+        intsyms = new IntSymbol[oldsyms.length * 2];
+        int mask = intkeys.length - 1;
+        for (int j = 0; j < oldkeys.length; j++) {
+            if (oldsyms[j] != null) {
+                int slot = hashInt(oldkeys[j]) & mask;
+                while (intsyms[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                intkeys[slot] = oldkeys[j];
+                intsyms[slot] = oldsyms[j];
+            }
+        }
     }
 
     /** Generates code for all int constants in the int table.  
@@ -35,6 +123,11 @@ class IntTable extends AbstractTable {
      * @param s the output stream
      * */
     public void codeStringTable(int intclasstag, PrintStream s) {
+        IntTable t = (IntTable)forContext();
+        if (t != this) {
+            t.codeStringTable(intclasstag, s);
+            return;
+        }
         IntSymbol sym = null;
         for (int i = tbl.size() - 1; i >= 0; i--) {
             try {
@@ -45,5 +138,30 @@ class IntTable extends AbstractTable {
             sym.codeDef(intclasstag, s);
         }
     }
-}
 
+    /** Generates code for the int constants in the int table that
+     * were marked reachable.  Constants nothing refers to are left out
+     * of the data segment.
+     * @param intclasstag the class tag for Int
+     * @param s the output stream
+     * @see AbstractTable#markReachable(AbstractSymbol)
+     * */
+    public void codeReachable(int intclasstag, PrintStream s) {
+        IntTable t = (IntTable)forContext();
+        if (t != this) {
+            t.codeReachable(intclasstag, s);
+            return;
+        }
+        IntSymbol sym = null;
+        for (int i = tbl.size() - 1; i >= 0; i--) {
+            try {
+                sym = (IntSymbol)tbl.elementAt(i);
+            } catch (ArrayIndexOutOfBoundsException ex) {
+                Utilities.fatalError("Unexpected exception: " + ex);
+            }
+            if (isReachable(sym)) {
+                sym.codeDef(intclasstag, s);
+            }
+        }
+    }
+}
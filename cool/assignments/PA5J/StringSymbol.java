@@ -27,8 +27,8 @@ class StringSymbol extends AbstractSymbol {
      * 
      * @see AbstractSymbol
      * */
-    public StringSymbol(String str, int len, int index) {
-        super(str, len, index);
+    public StringSymbol(AbstractTable table, int offset, int len, int index) {
+        super(table, offset, len, index);
     }
 
     /** Generates code for the string constant definition.  This method
@@ -39,7 +39,7 @@ class StringSymbol extends AbstractSymbol {
      *
      * */
     public void codeDef(int stringclasstag, PrintStream s) {
-        IntSymbol lensym = (IntSymbol)AbstractTable.inttable.addInt(str.length());
+        IntSymbol lensym = (IntSymbol)AbstractTable.inttable.addInt(len);
         
         // Add -1 eye catcher
         s.println(CgenSupport.WORD + "-1");
@@ -47,27 +47,29 @@ class StringSymbol extends AbstractSymbol {
         s.println(CgenSupport.WORD + stringclasstag); // tag
         s.println(CgenSupport.WORD + (CgenSupport.DEFAULT_OBJFIELDS +
                                       CgenSupport.STRING_SLOTS +
-                                      (str.length() + 4) / 4)); // object size
+                                      (len + 4) / 4)); // object size
         s.print(CgenSupport.WORD);
 
         /* Add code to reference the dispatch table for class String here */
 
         s.println("String_dispTab");                // dispatch table
         s.print(CgenSupport.WORD); lensym.codeRef(s); s.println(""); // length
-        CgenSupport.emitStringConstant(str, s); // ascii string
+        CgenSupport.emitStringConstant(getString(), s); // ascii string
         s.print(CgenSupport.ALIGN); // align to word
     }
 
-    /** Emits a reference to this string constant.
+    /** Emits a reference to this string constant and marks it
+     * reachable.
      * @param s the output stream
      * */
     public void codeRef(PrintStream s) {
+        AbstractTable.stringtable.markReachable(this);
         s.print(CgenSupport.STRCONST_PREFIX + index);
     }
 
     /** Returns a copy of this symbol */
     public Object clone() {
-        return new StringSymbol(str, str.length(), index);
+        return new StringSymbol(table, offset, len, index);
     }
 }
 
@@ -26,8 +26,8 @@ class StringTable extends AbstractTable {
      * 
      * @see StringSymbol
      * */
-    protected AbstractSymbol getNewSymbol(String s, int len, int index) {
-        return new StringSymbol(s, len, index);
+    protected AbstractSymbol getNewSymbol(int offset, int len, int index) {
+        return new StringSymbol(this, offset, len, index);
     }
 
     /** Generates code for all string constants in the string table.  
@@ -35,6 +35,11 @@ class StringTable extends AbstractTable {
      * @param s the output stream
      * */
     public void codeStringTable(int stringclasstag, PrintStream s) {
+        StringTable t = (StringTable)forContext();
+        if (t != this) {
+            t.codeStringTable(stringclasstag, s);
+            return;
+        }
         StringSymbol sym = null;
         for (int i = tbl.size() - 1; i >= 0; i--) {
             try {
@@ -45,4 +50,30 @@ class StringTable extends AbstractTable {
             sym.codeDef(stringclasstag, s);
         }
     }
+
+    /** Generates code for the string constants in the string table that
+     * were marked reachable.  Constants nothing refers to are left out
+     * of the data segment.
+     * @param stringclasstag the class tag for String
+     * @param s the output stream
+     * @see AbstractTable#markReachable(AbstractSymbol)
+     * */
+    public void codeReachable(int stringclasstag, PrintStream s) {
+        StringTable t = (StringTable)forContext();
+        if (t != this) {
+            t.codeReachable(stringclasstag, s);
+            return;
+        }
+        StringSymbol sym = null;
+        for (int i = tbl.size() - 1; i >= 0; i--) {
+            try {
+                sym = (StringSymbol)tbl.elementAt(i);
+            } catch (ArrayIndexOutOfBoundsException ex) {
+                Utilities.fatalError("Unexpected exception: " + ex);
+            }
+            if (isReachable(sym)) {
+                sym.codeDef(stringclasstag, s);
+            }
+        }
+    }
 }
@@ -0,0 +1,192 @@
+/*
+Copyright (c) 2000 The Regents of the University of California.
+All rights reserved.
+
+Permission to use, copy, modify, and distribute this software for any
+purpose, without fee, and without written agreement is hereby granted,
+provided that the above copyright notice and the following two
+paragraphs appear in all copies of this software.
+
+IN NO EVENT SHALL THE UNIVERSITY OF CALIFORNIA BE LIABLE TO ANY PARTY FOR
+DIRECT, INDIRECT, SPECIAL, INCIDENTAL, OR CONSEQUENTIAL DAMAGES ARISING OUT
+OF THE USE OF THIS SOFTWARE AND ITS DOCUMENTATION, EVEN IF THE UNIVERSITY OF
+CALIFORNIA HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+THE UNIVERSITY OF CALIFORNIA SPECIFICALLY DISCLAIMS ANY WARRANTIES,
+INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY
+AND FITNESS FOR A PARTICULAR PURPOSE.  THE SOFTWARE PROVIDED HEREUNDER IS
+ON AN "AS IS" BASIS, AND THE UNIVERSITY OF CALIFORNIA HAS NO OBLIGATION TO
+PROVIDE MAINTENANCE, SUPPORT, UPDATES, ENHANCEMENTS, OR MODIFICATIONS.
+*/
+
+import java.util.Enumeration;
+import java.util.Random;
+import java.util.Vector;
+
+/** A benchmark of interning throughput.
+ *
+ * <p>
+ *
+ * For each size the benchmark fills a fresh string table with that many
+ * distinct strings and times the inserts, then times adding every
+ * string a second time, which only hits entries already in the table,
+ * and looking every string up with <code>lookup</code>.  All three are
+ * reported in nanoseconds per operation; with the hashed index they
+ * should stay roughly flat as the table grows.  Up to
+ * <code>scan</code> entries the same inserts are also timed against a
+ * linear scan of a <code>Vector</code>, the way the tables used to
+ * work, for comparison.
+ *
+ * <p>
+ *
+ * Before timing anything the benchmark checks that the index leaves
+ * the numbering of the entries as it was: a stream of strings with
+ * repeats must get the indices the linear scan gives them, and
+ * <code>getSymbols</code> must enumerate the entries in that order,
+ * which is the order the code generator emits them in.
+ *
+ * <p>
+ *
+ * Usage: <code>TableBench [max [scan [reps]]]</code>
+ * */
+class TableBench {
+    public static void main(String args[]) {
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int scan = args.length > 1 ? Integer.parseInt(args[1]) : 16000;
+        int reps = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        String[] strings = new String[max];
+        for (int i = 0; i < max; i++) {
+            strings[i] = "sym_" + Integer.toString(i * 7919, 36);
+        }
+
+        if (!check(strings, Math.min(max, 10000))) {
+            System.exit(1);
+        }
+
+        // warm up both paths before timing anything
+        for (int r = 0; r < 3; r++) {
+            intern(strings, Math.min(max, 20000));
+            scan(strings, Math.min(scan, 2000));
+        }
+
+        System.out.println("      size   insert ns   hit ns   lookup ns   scan ns");
+        for (int n = 1000; n <= max; n = n < max && n * 2 > max ? max : n * 2) {
+            long insert = Long.MAX_VALUE;
+            long hit = Long.MAX_VALUE;
+            long lookup = Long.MAX_VALUE;
+            long linear = Long.MAX_VALUE;
+            for (int r = 0; r < reps; r++) {
+                long[] t = intern(strings, n);
+                insert = Math.min(insert, t[0]);
+                hit = Math.min(hit, t[1]);
+                lookup = Math.min(lookup, t[2]);
+                if (n <= scan) {
+                    linear = Math.min(linear, scan(strings, n));
+                }
+            }
+            System.out.println(pad(n, 10) + pad(insert / n, 12) 
+                               + pad(hit / n, 9) + pad(lookup / n, 12)
+                               + (n <= scan ? pad(linear / n, 10) : "         -"));
+            if (n == max) {
+                break;
+            }
+        }
+    }
+
+    /** Interns the first n strings into a fresh table, then interns
+     * them again and then looks them up; returns the time taken by
+     * each pass */
+    static long[] intern(String[] strings, int n) {
+        StringTable table = new StringTable();
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            table.addString(strings[i]);
+        }
+        long mid = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            if (table.addString(strings[i]).equalsIndex(-1)) {
+                throw new RuntimeException("bad index for " + strings[i]);
+            }
+        }
+        long end = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            if (table.lookup(strings[i]).equalsIndex(-1)) {
+                throw new RuntimeException("bad index for " + strings[i]);
+            }
+        }
+        long last = System.nanoTime();
+        return new long[] { mid - start, end - mid, last - end };
+    }
+
+    /** Interns a stream of n strings with repeats into a fresh table
+     * and into a vector searched linearly, and checks that the table
+     * numbers and enumerates its entries the way the vector does.
+     *
+     * @return true if the table agrees with the vector
+     * */
+    static boolean check(String[] strings, int n) {
+        StringTable table = new StringTable();
+        Vector tbl = new Vector();
+        Random rand = new Random(n);
+        for (int i = 0; i < n; i++) {
+            String s = strings[rand.nextInt(n / 2 + 1)];
+            int index = tbl.indexOf(s);
+            if (index < 0) {
+                index = tbl.size();
+                tbl.addElement(s);
+            }
+            if (!table.addString(s).equalsIndex(index)) {
+                System.out.println("check failed: " + s + " is not entry "
+                                   + index);
+                return false;
+            }
+        }
+        int i = 0;
+        for (Enumeration e = table.getSymbols(); e.hasMoreElements(); i++) {
+            AbstractSymbol sym = (AbstractSymbol)e.nextElement();
+            if (i >= tbl.size() || !sym.equalsIndex(i) 
+                || !sym.getString().equals(tbl.elementAt(i))) {
+                System.out.println("check failed: getSymbols() entry " + i 
+                                   + " is " + sym);
+                return false;
+            }
+        }
+        if (i != tbl.size()) {
+            System.out.println("check failed: " + i + " entries for " 
+                               + tbl.size() + " strings");
+            return false;
+        }
+        return true;
+    }
+
+    /** Adds the first n strings to a vector, searching it linearly for
+     * each one first; returns the time taken */
+    static long scan(String[] strings, int n) {
+        Vector tbl = new Vector();
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            String s = strings[i];
+            boolean found = false;
+            for (int j = 0; j < tbl.size(); j++) {
+                if (s.equals(tbl.elementAt(j))) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                tbl.addElement(s);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /** Right-justifies a number in a field of the given width */
+    static String pad(long n, int width) {
+        String s = Long.toString(n);
+        while (s.length() < width) {
+            s = " " + s;
+        }
+        return s;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+Copyright (c) 2000 The Regents of the University of California.
+All rights reserved.
+
+Permission to use, copy, modify, and distribute this software for any
+purpose, without fee, and without written agreement is hereby granted,
+provided that the above copyright notice and the following two
+paragraphs appear in all copies of this software.
+
+IN NO EVENT SHALL THE UNIVERSITY OF CALIFORNIA BE LIABLE TO ANY PARTY FOR
+DIRECT, INDIRECT, SPECIAL, INCIDENTAL, OR CONSEQUENTIAL DAMAGES ARISING OUT
+OF THE USE OF THIS SOFTWARE AND ITS DOCUMENTATION, EVEN IF THE UNIVERSITY OF
+CALIFORNIA HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+THE UNIVERSITY OF CALIFORNIA SPECIFICALLY DISCLAIMS ANY WARRANTIES,
+INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY
+AND FITNESS FOR A PARTICULAR PURPOSE.  THE SOFTWARE PROVIDED HEREUNDER IS
+ON AN "AS IS" BASIS, AND THE UNIVERSITY OF CALIFORNIA HAS NO OBLIGATION TO
+PROVIDE MAINTENANCE, SUPPORT, UPDATES, ENHANCEMENTS, OR MODIFICATIONS.
+*/
+
+import java.io.PrintStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/** Counters describing how the string tables and symbol tables are
+ * used.
+ *
+ * <p>
+ *
+ * Counting is off unless it is switched on with the <tt>-i</tt> or
+ * <tt>-I file</tt> flag.  When the phase exits, the counters are
+ * reported as a JSON object on stderr or in the given file.  The
+ * counters of the string tables are kept by each <a
+ * href="AbstractTable.html">AbstractTable</a>; the report covers the
+ * three global tables.  The counters of the symbol tables are summed
+ * over all <a href="SymbolTable.html">SymbolTable</a> objects and kept
+ * here, since not every phase has a symbol table.  Updates are not
+ * synchronized, so with several threads the counts are approximate.
+ *
+ * @see Flags
+ * */
+class TableCounters {
+    /** Set when the counters are maintained */
+    static boolean enabled = false;
+
+    /** Number of scopes entered */
+    static long scopes = 0;
+
+    /** Largest number of scopes open at once */
+    static int maxScopeDepth = 0;
+
+    /** Number of identifiers added to symbol tables */
+    static long ids = 0;
+
+    /** Number of lookups through all scopes */
+    static long lookups = 0;
+
+    /** Number of lookups that found the identifier */
+    static long lookupHits = 0;
+
+    /** Number of probes of the innermost scope */
+    static long probes = 0;
+
+    /** Starts counting and arranges for the counters to be reported
+     * when the phase exits.
+     *
+     * @param filename the report file, or null for stderr
+     * */
+    static void enable(final String filename) {
+        enabled = true;
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+                public void run() {
+                    report(filename);
+                }
+            });
+    }
+
+    /** Writes the report to a file or to stderr */
+    private static void report(String filename) {
+        if (filename == null) {
+            report(System.err);
+            return;
+        }
+        try {
+            PrintStream s = new PrintStream(new FileOutputStream(filename));
+            report(s);
+            s.close();
+        } catch (IOException ex) {
+            System.err.println("Cannot write table counters to " + filename +
+                               ": " + ex);
+        }
+    }
+
+    /** Prints all counters as a JSON object
+     *
+     * @param s the output stream
+     * */
+    static void report(PrintStream s) {
+        s.println("{");
+        report("stringtable", AbstractTable.stringtable, s);
+        report("idtable", AbstractTable.idtable, s);
+        report("inttable", AbstractTable.inttable, s);
+        s.println("  \"symboltable\": {\"scopes\": " + scopes + 
+                  ", \"max_depth\": " + maxScopeDepth +
+                  ", \"ids\": " + ids +
+                  ", \"lookups\": " + lookups +
+                  ", \"hits\": " + lookupHits +
+                  ", \"probes\": " + probes + "}");
+        s.println("}");
+        s.flush();
+    }
+
+    /** Prints the counters of one string table */
+    private static void report(String name, AbstractTable t, PrintStream s) {
+        s.println("  \"" + name + "\": {\"size\": " + t.tbl.size() + 
+                  ", \"chars\": " + (t.nbytes + t.nchars) +
+                  ", \"interns\": " + t.interns +
+                  ", \"hits\": " + t.hits +
+                  ", \"misses\": " + t.misses +
+                  ", \"lookups\": " + t.lookups +
+                  ", \"probes\": " + t.probes +
+                  ", \"max_probe\": " + t.maxProbe + "},");
+    }
+}
@@ -0,0 +1,308 @@
+/**************************************************************
+  JLex: A Lexical Analyzer Generator for Java(TM)
+  See Main.java for the copyright notice, license, and disclaimer.
+  **************************************************************/
+package JLex;
+
+import java.util.Hashtable;
+import java.util.Random;
+import java.util.Vector;
+
+/***************************************************************
+  Class: GenBench
+  Description: Generator benchmark.  Writes synthetic
+  specifications with growing numbers of keywords, plus the
+  identifier, number, string and white space rules of a typical
+  language, runs the generator on each in turn and reports the
+  size of the machine and the time spent in each phase.  The
+  sizes and phase boundaries are taken from the generator's
+  verbose output, so the benchmark runs unchanged against older
+  generators to compare with them.
+
+  Usage: java JLex.GenBench [-reps <n>] [<keywords> ...]
+  **************************************************************/
+public class GenBench
+{
+  /***************************************************************
+    Constants
+    **************************************************************/
+  private static final int DEFAULT_SIZES[] = { 100, 200, 400, 800 };
+  private static final String PHASES[] = {
+    "Creating NFA machine representation.",
+    "Creating DFA transition table.",
+    "Minimizing DFA transition table.",
+    "Outputting lexical analyzer code."
+  };
+
+  /***************************************************************
+    Class: CLog
+    Description: Output stream recording when each line of the
+    generator's verbose output ends, and counting the progress
+    dots printed for each DFA state.
+    **************************************************************/
+  private static class CLog extends java.io.OutputStream
+  {
+    StringBuffer m_line = new StringBuffer();
+    Vector m_lines = new Vector();
+    Hashtable m_times = new Hashtable();
+    int m_dots = 0;
+
+    public void write
+      (
+       int b
+       )
+	{
+	  if ('\n' == b)
+	    {
+	      String line = m_line.toString().trim();
+	      m_lines.addElement(line);
+	      m_times.put(line, Long.valueOf(System.nanoTime()));
+	      m_line.setLength(0);
+	    }
+	  else
+	    {
+	      if ('.' == b && m_line.toString().startsWith("Working on DFA"))
+		{
+		  ++m_dots;
+		}
+	      m_line.append((char) b);
+	    }
+	}
+
+    /* Returns the number leading the first line ending with the
+       given text, or -1. */
+    int number
+      (
+       String prefix,
+       String suffix
+       )
+	{
+	  int i;
+	  String line;
+
+	  for (i = 0; i < m_lines.size(); ++i)
+	    {
+	      line = (String) m_lines.elementAt(i);
+	      if (line.startsWith(prefix) && line.endsWith(suffix))
+		{
+		  return Integer.parseInt(line.substring(prefix.length(),
+							 line.length() - suffix.length()).trim());
+		}
+	    }
+	  return -1;
+	}
+
+    /* Returns the time a line ending with the given text was
+       printed, or the given default. */
+    long time
+      (
+       String suffix,
+       long dflt
+       )
+	{
+	  java.util.Enumeration e;
+	  String line;
+
+	  for (e = m_times.keys(); e.hasMoreElements(); )
+	    {
+	      line = (String) e.nextElement();
+	      if (line.endsWith(suffix))
+		{
+		  return ((Long) m_times.get(line)).longValue();
+		}
+	    }
+	  return dflt;
+	}
+  }
+
+  /***************************************************************
+    Function: main
+    **************************************************************/
+  public static void main
+    (
+     String arg[]
+     )
+      throws java.io.IOException
+      {
+	int reps = 3;
+	int sizes[] = DEFAULT_SIZES;
+	int first = 0;
+	int i;
+	java.io.File dir;
+
+	if (arg.length >= 2 && arg[0].equals("-reps"))
+	  {
+	    reps = Integer.parseInt(arg[1]);
+	    first = 2;
+	  }
+	if (first < arg.length)
+	  {
+	    sizes = new int[arg.length - first];
+	    for (i = first; i < arg.length; ++i)
+	      {
+		sizes[i - first] = Integer.parseInt(arg[i]);
+	      }
+	  }
+
+	dir = java.io.File.createTempFile("genbench", "");
+	dir.delete();
+	dir.mkdir();
+
+	System.out.println("keywords   nfa  classes    dfa  minimal"
+			   + "    nfa ms    dfa ms    min ms   emit ms");
+	for (i = 0; i < sizes.length; ++i)
+	  {
+	    run(dir, sizes[i], reps);
+	  }
+
+	java.io.File files[] = dir.listFiles();
+	for (i = 0; i < files.length; ++i)
+	  {
+	    files[i].delete();
+	  }
+	dir.delete();
+      }
+
+  /***************************************************************
+    Function: run
+    Description: Generates a lexer for a specification with the
+    given number of keywords, reps times, and reports the sizes
+    and the best time of each phase.
+    **************************************************************/
+  private static void run
+    (
+     java.io.File dir,
+     int keywords,
+     int reps
+     )
+      throws java.io.IOException
+      {
+	String filename;
+	java.io.PrintStream out;
+	CLog log = null;
+	long best[] = { Long.MAX_VALUE, Long.MAX_VALUE,
+			Long.MAX_VALUE, Long.MAX_VALUE };
+	long start;
+	long end;
+	long mark[];
+	int r;
+	int p;
+
+	filename = new java.io.File(dir, "k" + keywords + ".lex").getPath();
+	write_spec(filename, keywords);
+
+	out = System.out;
+	for (r = 0; r < reps; ++r)
+	  {
+	    log = new CLog();
+	    System.setOut(new java.io.PrintStream(log, true));
+	    try
+	      {
+		start = System.nanoTime();
+		new CLexGen(filename).generate();
+		end = System.nanoTime();
+	      }
+	    finally
+	      {
+		System.setOut(out);
+	      }
+
+	    mark = new long[PHASES.length + 1];
+	    for (p = 0; p < PHASES.length; ++p)
+	      {
+		mark[p] = log.time(PHASES[p], start);
+	      }
+	    mark[PHASES.length] = end;
+	    for (p = 0; p < PHASES.length; ++p)
+	      {
+		best[p] = Math.min(best[p], mark[p + 1] - mark[p]);
+	      }
+	  }
+
+	out.println(pad(keywords, 8)
+		    + pad(log.number("NFA comprised of", "states."), 6)
+		    + pad(log.number("NFA has", "distinct character classes."), 9)
+		    + pad(log.m_dots, 7)
+		    + pad(log.number("", "states after removal of redundant states."), 9)
+		    + pad(best[0] / 1000000, 10)
+		    + pad(best[1] / 1000000, 10)
+		    + pad(best[2] / 1000000, 10)
+		    + pad(best[3] / 1000000, 10));
+      }
+
+  /***************************************************************
+    Function: write_spec
+    Description: Writes a specification with the given number of
+    distinct random keywords, in sorted order so that they share
+    prefixes as real keyword sets do.
+    **************************************************************/
+  private static void write_spec
+    (
+     String filename,
+     int keywords
+     )
+      throws java.io.IOException
+      {
+	Random rand = new Random(keywords);
+	java.util.TreeSet words = new java.util.TreeSet();
+	java.util.Iterator it;
+	StringBuffer word;
+	java.io.PrintWriter out;
+	int len;
+	int i;
+	int n;
+
+	while (words.size() < keywords)
+	  {
+	    word = new StringBuffer();
+	    len = 3 + rand.nextInt(8);
+	    for (i = 0; i < len; ++i)
+	      {
+		word.append((char) ('a' + rand.nextInt(26)));
+	      }
+	    words.add(word.toString());
+	  }
+
+	out = new java.io.PrintWriter(new java.io.FileWriter(filename));
+	out.println();
+	out.println("%%");
+	out.println("%class K" + keywords);
+	out.println("%type int");
+	out.println("%eofval{");
+	out.println("return -1;");
+	out.println("%eofval}");
+	out.println("%%");
+	n = 0;
+	for (it = words.iterator(); it.hasNext(); )
+	  {
+	    out.println("\"" + it.next() + "\" { return " + (++n) + "; }");
+	  }
+	out.println("[a-z][a-z0-9_]* { return " + (++n) + "; }");
+	out.println("[0-9]+ { return " + (++n) + "; }");
+	out.println("[0-9]+\".\"[0-9]+([eE][+-]?[0-9]+)? { return "
+		    + (++n) + "; }");
+	out.println("\\\"([^\\\"\\\\\\n]|\\\\.)*\\\" { return " + (++n) + "; }");
+	out.println("[ \\t\\n]+ { }");
+	out.println(". { return " + (++n) + "; }");
+	out.close();
+      }
+
+  /***************************************************************
+    Function: pad
+    Description: Right-justifies a number in a field.
+    **************************************************************/
+  private static String pad
+    (
+     long n,
+     int width
+     )
+      {
+	String s = Long.toString(n);
+
+	while (s.length() < width)
+	  {
+	    s = " " + s;
+	  }
+	return s;
+      }
+}
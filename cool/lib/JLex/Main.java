@@ -178,10 +178,15 @@ import java.lang.System;
 import java.lang.Integer;
 import java.lang.Character;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Enumeration;
 import java.util.Stack;
 import java.util.Hashtable;
 import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /******************************
   Questions:
@@ -291,6 +296,16 @@ class CSpec
   boolean m_unix;
   boolean m_public;
   boolean m_ignorecase;
+  boolean m_buffer_input; /* Scan a CharSequence holding the whole input
+			     instead of refilling a buffer from a Reader. */
+  boolean m_switch_dtrans; /* Emit the transition function as code
+			      instead of as the yy_nxt table. */
+  boolean m_comb_dtrans; /* Emit the transition table as row-displaced
+			    base/next/check vectors. */
+  boolean m_table_resource; /* Write the tables to a binary resource
+			       instead of packing them into strings. */
+  boolean m_action_methods; /* Emit each action as its own method
+			       instead of inline in yylex(). */
 
   char m_init_code[];
   int m_init_read;
@@ -373,6 +388,11 @@ class CSpec
         m_public = false;
 	m_yyeof = false;
 	m_ignorecase = false;
+	m_buffer_input = false;
+	m_switch_dtrans = false;
+	m_comb_dtrans = false;
+	m_table_resource = false;
+	m_action_methods = false;
 
 	/* Initialize variables for JLex runtime options. */
 	m_verbose = true;
@@ -428,6 +448,12 @@ class CEmit
     **************************************************************/
   private CSpec m_spec;
   private java.io.PrintWriter m_outstream;
+  private Vector m_resource_tables; /* Tables for the binary resource,
+				       in the order they are read. */
+  private boolean m_ascii_cmap; /* Classify ASCII through yy_amap and
+				   other characters through yy_cclass. */
+  private Vector m_rules; /* Distinct actions, in order of their
+			     first accepting state. */
 
   /***************************************************************
     Constants: Anchor Types
@@ -441,6 +467,12 @@ class CEmit
     **************************************************************/
   private final boolean EDBG = true;
   private final boolean NOT_EDBG = false;
+  private final int ASCII_SIZE = 128;
+  private final int RULE_BUCKET = 128;
+  private final int RANGE_CHAIN = 3; /* Runs tested one after another
+					rather than split in half. */
+  private final int YY_THROW = -2; /* Target of the characters past
+				      the end of the character set. */
 
   /***************************************************************
     Function: CEmit
@@ -483,6 +515,8 @@ class CEmit
 
 	m_spec = spec;
 	m_outstream = outstream;
+	m_resource_tables = new Vector();
+	m_ascii_cmap = false;
       }
 
   /***************************************************************
@@ -645,17 +679,17 @@ class CEmit
 	  /* Constants */
 	  m_outstream.println("\tprivate final int YY_BUFFER_SIZE = 512;");
 
-	  m_outstream.println("\tprivate final int YY_F = -1;");
-	  m_outstream.println("\tprivate final int YY_NO_STATE = -1;");
+	  m_outstream.println("\tprivate static final int YY_F = -1;");
+	  m_outstream.println("\tprivate static final int YY_NO_STATE = -1;");
 
-	  m_outstream.println("\tprivate final int YY_NOT_ACCEPT = 0;");
-	  m_outstream.println("\tprivate final int YY_START = 1;");
-	  m_outstream.println("\tprivate final int YY_END = 2;");
-	  m_outstream.println("\tprivate final int YY_NO_ANCHOR = 4;");
+	  m_outstream.println("\tprivate static final int YY_NOT_ACCEPT = 0;");
+	  m_outstream.println("\tprivate static final int YY_START = 1;");
+	  m_outstream.println("\tprivate static final int YY_END = 2;");
+	  m_outstream.println("\tprivate static final int YY_NO_ANCHOR = 4;");
 
 	  // internal
-	  m_outstream.println("\tprivate final int YY_BOL = "+m_spec.BOL+";");
-	  m_outstream.println("\tprivate final int YY_EOF = "+m_spec.EOF+";");
+	  m_outstream.println("\tprivate static final int YY_BOL = "+m_spec.BOL+";");
+	  m_outstream.println("\tprivate static final int YY_EOF = "+m_spec.EOF+";");
 	  // external
 	  if (m_spec.m_integer_type || true == m_spec.m_yyeof)
 	    m_outstream.println("\tpublic final int YYEOF = -1;");
@@ -668,12 +702,23 @@ class CEmit
 	    }
 
 	  /* Member Variables */
-	  m_outstream.println("\tprivate java.io.BufferedReader yy_reader;");
-	  m_outstream.println("\tprivate int yy_buffer_index;");
-	  m_outstream.println("\tprivate int yy_buffer_read;");
-	  m_outstream.println("\tprivate int yy_buffer_start;");
-	  m_outstream.println("\tprivate int yy_buffer_end;");
-	  m_outstream.println("\tprivate char yy_buffer[];");
+	  if (m_spec.m_buffer_input)
+	    {
+	      m_outstream.println("\tprivate java.lang.CharSequence yy_input;");
+	      m_outstream.println("\tprivate int yy_input_end;");
+	      m_outstream.println("\tprivate int yy_buffer_index;");
+	      m_outstream.println("\tprivate int yy_buffer_start;");
+	      m_outstream.println("\tprivate int yy_buffer_end;");
+	    }
+	  else
+	    {
+	      m_outstream.println("\tprivate java.io.BufferedReader yy_reader;");
+	      m_outstream.println("\tprivate int yy_buffer_index;");
+	      m_outstream.println("\tprivate int yy_buffer_read;");
+	      m_outstream.println("\tprivate int yy_buffer_start;");
+	      m_outstream.println("\tprivate int yy_buffer_end;");
+	      m_outstream.println("\tprivate char yy_buffer[];");
+	    }
 	  if (m_spec.m_count_chars)
 	    {
 	      m_outstream.println("\tprivate int yychar;");
@@ -718,7 +763,15 @@ class CEmit
 	  m_outstream.println("\t\t\tthrow (new Error(\"Error: Bad input "
 				 + "stream initializer.\"));");
 	  m_outstream.println("\t\t}");
-	  m_outstream.println("\t\tyy_reader = new java.io.BufferedReader(reader);");
+	  if (m_spec.m_buffer_input)
+	    {
+	      m_outstream.println("\t\tyy_input = yy_read_all(reader);");
+	      m_outstream.println("\t\tyy_input_end = yy_input.length();");
+	    }
+	  else
+	    {
+	      m_outstream.println("\t\tyy_reader = new java.io.BufferedReader(reader);");
+	    }
 	  m_outstream.println("\t}");
 	  m_outstream.println();
 
@@ -749,10 +802,23 @@ class CEmit
 	  m_outstream.println("\t\t\tthrow (new Error(\"Error: Bad input "
 				 + "stream initializer.\"));");
 	  m_outstream.println("\t\t}");
-	  m_outstream.println("\t\tyy_reader = new java.io.BufferedReader(new java.io.InputStreamReader(instream));");
+	  if (m_spec.m_buffer_input)
+	    {
+	      m_outstream.println("\t\tyy_input = yy_read_all(new java.io.InputStreamReader(instream));");
+	      m_outstream.println("\t\tyy_input_end = yy_input.length();");
+	    }
+	  else
+	    {
+	      m_outstream.println("\t\tyy_reader = new java.io.BufferedReader(new java.io.InputStreamReader(instream));");
+	    }
 	  m_outstream.println("\t}");
 	  m_outstream.println();
 
+	  if (m_spec.m_buffer_input)
+	    {
+	      emit_buffer_constructors();
+	    }
+
 
 	  /* Function: third, private constructor - only for internal use */
 	  m_outstream.print("\tprivate ");
@@ -772,8 +838,11 @@ class CEmit
 	      m_outstream.println(" {");
 	    }
 	  
-	  m_outstream.println("\t\tyy_buffer = new char[YY_BUFFER_SIZE];");
-	  m_outstream.println("\t\tyy_buffer_read = 0;");
+	  if (false == m_spec.m_buffer_input)
+	    {
+	      m_outstream.println("\t\tyy_buffer = new char[YY_BUFFER_SIZE];");
+	      m_outstream.println("\t\tyy_buffer_read = 0;");
+	    }
 	  m_outstream.println("\t\tyy_buffer_index = 0;");
 	  m_outstream.println("\t\tyy_buffer_start = 0;");
 	  m_outstream.println("\t\tyy_buffer_end = 0;");
@@ -804,6 +873,198 @@ class CEmit
 
 	}
 
+  /***************************************************************
+    Function: emit_buffer_constructors
+    Description: Emits the constructors that scan a buffer holding
+    the whole input in place, such as a file mapped with
+    FileChannel.map.  A CharBuffer is scanned as it is; the bytes of
+    a ByteBuffer are taken as ISO-8859-1 characters.  Neither is
+    copied.
+    **************************************************************/
+  private void emit_buffer_constructors
+    (
+     )
+      throws java.io.IOException
+	{
+	  String params[] = { "java.nio.CharBuffer buffer",
+			      "java.nio.ByteBuffer buffer" };
+	  String inputs[] = { "buffer.slice()",
+			      "new Yy_byte_chars(buffer.slice())" };
+	  int i;
+
+	  for (i = 0; i < params.length; ++i)
+	    {
+	      m_outstream.print("\t");
+	      if (true == m_spec.m_public) {
+		m_outstream.print("public ");
+	      }
+	      m_outstream.print(new String(m_spec.m_class_name));
+	      m_outstream.print(" (" + params[i] + ")");
+
+	      if (null != m_spec.m_init_throw_code)
+		{
+		  m_outstream.println(); 
+		  m_outstream.print("\t\tthrows "); 
+		  m_outstream.println(new String(m_spec.m_init_throw_code,0,
+						    m_spec.m_init_throw_read));
+		  m_outstream.println("\t\t{");
+		}
+	      else
+		{
+		  m_outstream.println(" {");
+		}
+
+	      m_outstream.println("\t\tthis ();");	  
+	      m_outstream.println("\t\tif (null == buffer) {");
+	      m_outstream.println("\t\t\tthrow (new Error(\"Error: Bad input "
+				     + "buffer initializer.\"));");
+	      m_outstream.println("\t\t}");
+	      m_outstream.println("\t\tyy_input = " + inputs[i] + ";");
+	      m_outstream.println("\t\tyy_input_end = yy_input.length();");
+	      m_outstream.println("\t}");
+	      m_outstream.println();
+	    }
+	}
+
+  /***************************************************************
+    Function: emit_buffer_helpers
+    Description: Emits yy_advance for a lexer that scans a buffer
+    holding the whole input, together with the functions that set
+    the buffer up.  The input never has to be shifted or refilled.
+    **************************************************************/
+  private void emit_buffer_helpers
+    (
+     )
+      throws java.io.IOException
+	{
+	  /* Function: yy_advance */
+	  m_outstream.println("\tprivate int yy_advance ()");
+	  m_outstream.println("\t\tthrows java.io.IOException {");
+	  m_outstream.println("\t\tif (yy_buffer_index < yy_input_end) {");
+	  m_outstream.println("\t\t\treturn yy_input.charAt(yy_buffer_index++);");
+	  m_outstream.println("\t\t}");
+	  m_outstream.println("\t\treturn YY_EOF;");
+	  m_outstream.println("\t}");
+
+	  /* Function: yy_read_all */
+	  m_outstream.println("\tprivate static java.nio.CharBuffer yy_read_all "
+			      + "(java.io.Reader reader) {");
+	  m_outstream.println("\t\tchar buf[] = new char[4096];");
+	  m_outstream.println("\t\tint read = 0;");
+	  m_outstream.println("\t\tint next_read;");
+	  m_outstream.println("\t\ttry {");
+	  m_outstream.println("\t\t\twhile (-1 != (next_read = reader.read(buf, "
+			      + "read, buf.length - read))) {");
+	  m_outstream.println("\t\t\t\tread = read + next_read;");
+	  m_outstream.println("\t\t\t\tif (read == buf.length) {");
+	  m_outstream.println("\t\t\t\t\tchar newbuf[] = new char[2*buf.length];");
+	  m_outstream.println("\t\t\t\t\tjava.lang.System.arraycopy(buf, 0, "
+			      + "newbuf, 0, read);");
+	  m_outstream.println("\t\t\t\t\tbuf = newbuf;");
+	  m_outstream.println("\t\t\t\t}");
+	  m_outstream.println("\t\t\t}");
+	  m_outstream.println("\t\t} catch (java.io.IOException e) {");
+	  m_outstream.println("\t\t\tthrow (new Error(\"Error: Unable to read "
+			      + "input: \" + e.getMessage()));");
+	  m_outstream.println("\t\t}");
+	  m_outstream.println("\t\treturn java.nio.CharBuffer.wrap(buf, 0, read);");
+	  m_outstream.println("\t}");
+
+	  /* Class: Yy_byte_chars */
+	  m_outstream.println("\tprivate static class Yy_byte_chars "
+			      + "implements java.lang.CharSequence {");
+	  m_outstream.println("\t\tprivate java.nio.ByteBuffer bytes;");
+	  m_outstream.println("\t\tYy_byte_chars (java.nio.ByteBuffer bytes) {");
+	  m_outstream.println("\t\t\tthis.bytes = bytes;");
+	  m_outstream.println("\t\t}");
+	  m_outstream.println("\t\tpublic int length () {");
+	  m_outstream.println("\t\t\treturn bytes.limit();");
+	  m_outstream.println("\t\t}");
+	  m_outstream.println("\t\tpublic char charAt (int index) {");
+	  m_outstream.println("\t\t\treturn (char) (bytes.get(index) & 0xff);");
+	  m_outstream.println("\t\t}");
+	  m_outstream.println("\t\tpublic java.lang.CharSequence subSequence "
+			      + "(int start, int end) {");
+	  m_outstream.println("\t\t\tjava.nio.ByteBuffer sub = bytes.duplicate();");
+	  m_outstream.println("\t\t\tsub.position(start);");
+	  m_outstream.println("\t\t\tsub.limit(end);");
+	  m_outstream.println("\t\t\treturn new Yy_byte_chars(sub.slice());");
+	  m_outstream.println("\t\t}");
+	  m_outstream.println("\t\tpublic java.lang.String toString () {");
+	  m_outstream.println("\t\t\tchar buf[] = new char[bytes.limit()];");
+	  m_outstream.println("\t\t\tfor (int i = 0; i < buf.length; ++i) {");
+	  m_outstream.println("\t\t\t\tbuf[i] = (char) (bytes.get(i) & 0xff);");
+	  m_outstream.println("\t\t\t}");
+	  m_outstream.println("\t\t\treturn new java.lang.String(buf);");
+	  m_outstream.println("\t\t}");
+	  m_outstream.println("\t}");
+	}
+
+  /***************************************************************
+    Function: yy_char
+    Description: Returns the expression for the input character
+    at the given index of the buffer.
+    **************************************************************/
+  private String yy_char
+    (
+     String index
+     )
+      {
+	if (m_spec.m_buffer_input)
+	  {
+	    return "yy_input.charAt(" + index + ")";
+	  }
+	return "yy_buffer[" + index + "]";
+      }
+
+  /***************************************************************
+    Function: uses
+    Description: Returns true if the user code or one of the
+    actions of the specification mentions the given name.
+    **************************************************************/
+  private boolean uses
+    (
+     String name
+     )
+      {
+	int i;
+	CAccept accept;
+
+	if (mentions(m_spec.m_class_code,m_spec.m_class_read,name)
+	    || mentions(m_spec.m_init_code,m_spec.m_init_read,name)
+	    || mentions(m_spec.m_eof_code,m_spec.m_eof_read,name)
+	    || mentions(m_spec.m_eof_value_code,m_spec.m_eof_value_read,name))
+	  {
+	    return true;
+	  }
+	for (i = 0; i < m_spec.m_accept_vector.size(); ++i)
+	  {
+	    accept = (CAccept) m_spec.m_accept_vector.elementAt(i);
+	    if (null != accept
+		&& mentions(accept.m_action,accept.m_action_read,name))
+	      {
+		return true;
+	      }
+	  }
+	return false;
+      }
+
+  /***************************************************************
+    Function: mentions
+    Description: Returns true if the first read characters of code
+    contain the given name.
+    **************************************************************/
+  private static boolean mentions
+    (
+     char code[],
+     int read,
+     String name
+     )
+      {
+	return null != code
+	  && -1 != new String(code,0,read).indexOf(name);
+      }
+
   /***************************************************************
     Function: emit_states
     Description: Emits constants that serve as lexical states,
@@ -837,7 +1098,7 @@ class CEmit
 	      /*++index;*/
 	    }
 
-	  m_outstream.println("\tprivate final int yy_state_dtrans[] = {");
+	  m_outstream.println("\tprivate static final int yy_state_dtrans[] = {");
 	  for (index = 0; index < m_spec.m_state_dtrans.length; ++index)
 	    {
 	      m_outstream.print("\t\t" + m_spec.m_state_dtrans[index]);
@@ -909,65 +1170,72 @@ class CEmit
 	m_outstream.println("\t}");*/
 
 	/* Function: yy_advance */
-	m_outstream.println("\tprivate int yy_advance ()");
-	m_outstream.println("\t\tthrows java.io.IOException {");
-	/*m_outstream.println("\t\t{");*/
-	m_outstream.println("\t\tint next_read;");
-	m_outstream.println("\t\tint i;");
-	m_outstream.println("\t\tint j;");
-	m_outstream.println();
+	if (m_spec.m_buffer_input)
+	  {
+	    emit_buffer_helpers();
+	  }
+	else
+	  {
+	    m_outstream.println("\tprivate int yy_advance ()");
+	    m_outstream.println("\t\tthrows java.io.IOException {");
+	    /*m_outstream.println("\t\t{");*/
+	    m_outstream.println("\t\tint next_read;");
+	    m_outstream.println("\t\tint i;");
+	    m_outstream.println("\t\tint j;");
+	    m_outstream.println();
 
-	m_outstream.println("\t\tif (yy_buffer_index < yy_buffer_read) {");
-	m_outstream.println("\t\t\treturn yy_buffer[yy_buffer_index++];");
-	/*m_outstream.println("\t\t\t++yy_buffer_index;");*/
-	m_outstream.println("\t\t}");
-	m_outstream.println();
+	    m_outstream.println("\t\tif (yy_buffer_index < yy_buffer_read) {");
+	    m_outstream.println("\t\t\treturn yy_buffer[yy_buffer_index++];");
+	    /*m_outstream.println("\t\t\t++yy_buffer_index;");*/
+	    m_outstream.println("\t\t}");
+	    m_outstream.println();
 
-	m_outstream.println("\t\tif (0 != yy_buffer_start) {");
-	m_outstream.println("\t\t\ti = yy_buffer_start;");
-	m_outstream.println("\t\t\tj = 0;");
-	m_outstream.println("\t\t\twhile (i < yy_buffer_read) {");
-	m_outstream.println("\t\t\t\tyy_buffer[j] = yy_buffer[i];");
-	m_outstream.println("\t\t\t\t++i;");
-	m_outstream.println("\t\t\t\t++j;");
-	m_outstream.println("\t\t\t}");
-	m_outstream.println("\t\t\tyy_buffer_end = yy_buffer_end - yy_buffer_start;");
-	m_outstream.println("\t\t\tyy_buffer_start = 0;");
-	m_outstream.println("\t\t\tyy_buffer_read = j;");
-	m_outstream.println("\t\t\tyy_buffer_index = j;");
-	m_outstream.println("\t\t\tnext_read = yy_reader.read(yy_buffer,");
-	m_outstream.println("\t\t\t\t\tyy_buffer_read,");
-	m_outstream.println("\t\t\t\t\tyy_buffer.length - yy_buffer_read);");
-	m_outstream.println("\t\t\tif (-1 == next_read) {");
-	m_outstream.println("\t\t\t\treturn YY_EOF;");
-	m_outstream.println("\t\t\t}");
-	m_outstream.println("\t\t\tyy_buffer_read = yy_buffer_read + next_read;");
-	m_outstream.println("\t\t}");
-	m_outstream.println();
+	    m_outstream.println("\t\tif (0 != yy_buffer_start) {");
+	    m_outstream.println("\t\t\ti = yy_buffer_start;");
+	    m_outstream.println("\t\t\tj = 0;");
+	    m_outstream.println("\t\t\twhile (i < yy_buffer_read) {");
+	    m_outstream.println("\t\t\t\tyy_buffer[j] = yy_buffer[i];");
+	    m_outstream.println("\t\t\t\t++i;");
+	    m_outstream.println("\t\t\t\t++j;");
+	    m_outstream.println("\t\t\t}");
+	    m_outstream.println("\t\t\tyy_buffer_end = yy_buffer_end - yy_buffer_start;");
+	    m_outstream.println("\t\t\tyy_buffer_start = 0;");
+	    m_outstream.println("\t\t\tyy_buffer_read = j;");
+	    m_outstream.println("\t\t\tyy_buffer_index = j;");
+	    m_outstream.println("\t\t\tnext_read = yy_reader.read(yy_buffer,");
+	    m_outstream.println("\t\t\t\t\tyy_buffer_read,");
+	    m_outstream.println("\t\t\t\t\tyy_buffer.length - yy_buffer_read);");
+	    m_outstream.println("\t\t\tif (-1 == next_read) {");
+	    m_outstream.println("\t\t\t\treturn YY_EOF;");
+	    m_outstream.println("\t\t\t}");
+	    m_outstream.println("\t\t\tyy_buffer_read = yy_buffer_read + next_read;");
+	    m_outstream.println("\t\t}");
+	    m_outstream.println();
 
-	m_outstream.println("\t\twhile (yy_buffer_index >= yy_buffer_read) {");
-	m_outstream.println("\t\t\tif (yy_buffer_index >= yy_buffer.length) {");
-	m_outstream.println("\t\t\t\tyy_buffer = yy_double(yy_buffer);");
-	m_outstream.println("\t\t\t}");
-	m_outstream.println("\t\t\tnext_read = yy_reader.read(yy_buffer,");
-	m_outstream.println("\t\t\t\t\tyy_buffer_read,");
-	m_outstream.println("\t\t\t\t\tyy_buffer.length - yy_buffer_read);");
-	m_outstream.println("\t\t\tif (-1 == next_read) {");
-	m_outstream.println("\t\t\t\treturn YY_EOF;");
-	m_outstream.println("\t\t\t}");
-	m_outstream.println("\t\t\tyy_buffer_read = yy_buffer_read + next_read;");
-	m_outstream.println("\t\t}");
+	    m_outstream.println("\t\twhile (yy_buffer_index >= yy_buffer_read) {");
+	    m_outstream.println("\t\t\tif (yy_buffer_index >= yy_buffer.length) {");
+	    m_outstream.println("\t\t\t\tyy_buffer = yy_double(yy_buffer);");
+	    m_outstream.println("\t\t\t}");
+	    m_outstream.println("\t\t\tnext_read = yy_reader.read(yy_buffer,");
+	    m_outstream.println("\t\t\t\t\tyy_buffer_read,");
+	    m_outstream.println("\t\t\t\t\tyy_buffer.length - yy_buffer_read);");
+	    m_outstream.println("\t\t\tif (-1 == next_read) {");
+	    m_outstream.println("\t\t\t\treturn YY_EOF;");
+	    m_outstream.println("\t\t\t}");
+	    m_outstream.println("\t\t\tyy_buffer_read = yy_buffer_read + next_read;");
+	    m_outstream.println("\t\t}");
 
-	m_outstream.println("\t\treturn yy_buffer[yy_buffer_index++];");
-	m_outstream.println("\t}");
+	    m_outstream.println("\t\treturn yy_buffer[yy_buffer_index++];");
+	    m_outstream.println("\t}");
+	  }
 	
 	/* Function: yy_move_end */
 	m_outstream.println("\tprivate void yy_move_end () {");
 	m_outstream.println("\t\tif (yy_buffer_end > yy_buffer_start &&");
-	m_outstream.println("\t\t    '\\n' == yy_buffer[yy_buffer_end-1])");
+	m_outstream.println("\t\t    '\\n' == " + yy_char("yy_buffer_end-1") + ")");
 	m_outstream.println("\t\t\tyy_buffer_end--;");
 	m_outstream.println("\t\tif (yy_buffer_end > yy_buffer_start &&");
-	m_outstream.println("\t\t    '\\r' == yy_buffer[yy_buffer_end-1])");
+	m_outstream.println("\t\t    '\\r' == " + yy_char("yy_buffer_end-1") + ")");
 	m_outstream.println("\t\t\tyy_buffer_end--;");
 	m_outstream.println("\t}");
 
@@ -981,10 +1249,11 @@ class CEmit
 		m_outstream.println("\t\tint i;");
 		m_outstream.println("\t\tfor (i = yy_buffer_start; " 
 				       + "i < yy_buffer_index; ++i) {");
-		m_outstream.println("\t\t\tif ('\\n' == yy_buffer[i] && !yy_last_was_cr) {");
+		m_outstream.println("\t\t\tif ('\\n' == " + yy_char("i") 
+				       + " && !yy_last_was_cr) {");
 		m_outstream.println("\t\t\t\t++yyline;");
 		m_outstream.println("\t\t\t}");
-		m_outstream.println("\t\t\tif ('\\r' == yy_buffer[i]) {");
+		m_outstream.println("\t\t\tif ('\\r' == " + yy_char("i") + ") {");
 		m_outstream.println("\t\t\t\t++yyline;");
 		m_outstream.println("\t\t\t\tyy_last_was_cr=true;");
 		m_outstream.println("\t\t\t} else yy_last_was_cr=false;");
@@ -1010,20 +1279,28 @@ class CEmit
 	m_outstream.println("\t\tyy_at_bol = "+
 			    "(yy_buffer_end > yy_buffer_start) &&");
 	m_outstream.println("\t\t            "+
-			    "('\\r' == yy_buffer[yy_buffer_end-1] ||");
+			    "('\\r' == " + yy_char("yy_buffer_end-1") + " ||");
 	m_outstream.println("\t\t            "+
-			    " '\\n' == yy_buffer[yy_buffer_end-1] ||");
+			    " '\\n' == " + yy_char("yy_buffer_end-1") + " ||");
 	m_outstream.println("\t\t            "+ /* unicode LS */
-			    " 2028/*LS*/ == yy_buffer[yy_buffer_end-1] ||");
+			    " 2028/*LS*/ == " + yy_char("yy_buffer_end-1") + " ||");
 	m_outstream.println("\t\t            "+ /* unicode PS */
-			    " 2029/*PS*/ == yy_buffer[yy_buffer_end-1]);");
+			    " 2029/*PS*/ == " + yy_char("yy_buffer_end-1") + ");");
 	m_outstream.println("\t}");
 
 	/* Function: yytext */
 	m_outstream.println("\tprivate java.lang.String yytext () {");
-	m_outstream.println("\t\treturn (new java.lang.String(yy_buffer,");
-	m_outstream.println("\t\t\tyy_buffer_start,");
-	m_outstream.println("\t\t\tyy_buffer_end - yy_buffer_start));");
+	if (m_spec.m_buffer_input)
+	  {
+	    m_outstream.println("\t\treturn yy_input.subSequence(yy_buffer_start,");
+	    m_outstream.println("\t\t\tyy_buffer_end).toString();");
+	  }
+	else
+	  {
+	    m_outstream.println("\t\treturn (new java.lang.String(yy_buffer,");
+	    m_outstream.println("\t\t\tyy_buffer_start,");
+	    m_outstream.println("\t\t\tyy_buffer_end - yy_buffer_start));");
+	  }
 	m_outstream.println("\t}");
 
 	/* Function: yylength */
@@ -1031,16 +1308,42 @@ class CEmit
 	m_outstream.println("\t\treturn yy_buffer_end - yy_buffer_start;");
 	m_outstream.println("\t}");
 
+	/* Function: yytext_view, only if some code calls it */
+	if (uses("yytext_view"))
+	  {
+	    m_outstream.println("\tprivate final Yy_text yy_text = new Yy_text();");
+	    m_outstream.println("\tprivate java.lang.CharSequence yytext_view () {");
+	    m_outstream.println("\t\treturn yy_text;");
+	    m_outstream.println("\t}");
+	    m_outstream.println("\tprivate class Yy_text implements java.lang.CharSequence {");
+	    m_outstream.println("\t\tpublic int length () {");
+	    m_outstream.println("\t\t\treturn yy_buffer_end - yy_buffer_start;");
+	    m_outstream.println("\t\t}");
+	    m_outstream.println("\t\tpublic char charAt (int index) {");
+	    m_outstream.println("\t\t\treturn " + yy_char("yy_buffer_start + index") + ";");
+	    m_outstream.println("\t\t}");
+	    m_outstream.println("\t\tpublic java.lang.CharSequence subSequence (int start, int end) {");
+	    m_outstream.println("\t\t\treturn yytext().substring(start, end);");
+	    m_outstream.println("\t\t}");
+	    m_outstream.println("\t\tpublic java.lang.String toString () {");
+	    m_outstream.println("\t\t\treturn yytext();");
+	    m_outstream.println("\t\t}");
+	    m_outstream.println("\t}");
+	  }
+
 	/* Function: yy_double */
-	m_outstream.println("\tprivate char[] yy_double (char buf[]) {");
-	m_outstream.println("\t\tint i;");
-	m_outstream.println("\t\tchar newbuf[];");
-	m_outstream.println("\t\tnewbuf = new char[2*buf.length];");
-	m_outstream.println("\t\tfor (i = 0; i < buf.length; ++i) {");
-	m_outstream.println("\t\t\tnewbuf[i] = buf[i];");
-	m_outstream.println("\t\t}");
-	m_outstream.println("\t\treturn newbuf;");
-	m_outstream.println("\t}");
+	if (false == m_spec.m_buffer_input)
+	  {
+	    m_outstream.println("\tprivate char[] yy_double (char buf[]) {");
+	    m_outstream.println("\t\tint i;");
+	    m_outstream.println("\t\tchar newbuf[];");
+	    m_outstream.println("\t\tnewbuf = new char[2*buf.length];");
+	    m_outstream.println("\t\tfor (i = 0; i < buf.length; ++i) {");
+	    m_outstream.println("\t\t\tnewbuf[i] = buf[i];");
+	    m_outstream.println("\t\t}");
+	    m_outstream.println("\t\treturn newbuf;");
+	    m_outstream.println("\t}");
+	  }
 
 	/* Function: yy_error */
 	m_outstream.println("\tprivate final int YY_E_INTERNAL = 0;");
@@ -1068,11 +1371,13 @@ class CEmit
 	m_outstream.println("\t}");*/
 
 
-	// Function: private int [][] unpackFromString(int size1, int size2, String st)
+	// Function: private static int [][] unpackFromString(int size1, int size2, String st)
 	// Added 6/24/98 Raimondas Lencevicius
 	// May be made more efficient by replacing String operations
 	// Assumes correctly formed input String. Performs no error checking
-	m_outstream.println("\tprivate int[][] unpackFromString"+
+	// Static, like the tables it decodes, so that they are unpacked
+	// once per class rather than once per lexer instance.
+	m_outstream.println("\tprivate static int[][] unpackFromString"+
 			    "(int size1, int size2, String st) {");
 	m_outstream.println("\t\tint colonIndex = -1;");
 	m_outstream.println("\t\tString lengthString;");
@@ -1113,6 +1418,128 @@ class CEmit
 	m_outstream.println("\t\t}");
 	m_outstream.println("\t\treturn res;");
 	m_outstream.println("\t}");
+
+	if (m_spec.m_table_resource)
+	  {
+	    emit_resource_loader();
+	  }
+      }
+
+  /***************************************************************
+    Function: emit_resource_loader
+    Description: Emits unpackFromResource, which reads every table
+    from the binary resource written next to the lexer class the
+    first time a table is needed.  The resource holds the number of
+    tables, then for each table its two dimensions as ints, a byte
+    that is nonzero if the entries need ints, and the entries as
+    big-endian shorts or ints.
+    **************************************************************/
+  private void emit_resource_loader
+    (
+     )
+      throws java.io.IOException
+      {
+	String name;
+
+	name = new String(m_spec.m_class_name) + ".tables";
+	m_outstream.println("\tprivate static int yy_resource[][][];");
+	m_outstream.println("\tprivate static int[][] unpackFromResource (int index) {");
+	m_outstream.println("\t\tif (null == yy_resource) {");
+	m_outstream.println("\t\t\tjava.io.InputStream in = " 
+			    + new String(m_spec.m_class_name) 
+			    + ".class.getResourceAsStream(\"" + name + "\");");
+	m_outstream.println("\t\t\tif (null == in) {");
+	m_outstream.println("\t\t\t\tthrow new Error(\"Missing table resource " 
+			    + name + ".\");");
+	m_outstream.println("\t\t\t}");
+	m_outstream.println("\t\t\ttry {");
+	m_outstream.println("\t\t\t\tjava.io.ByteArrayOutputStream bytes =");
+	m_outstream.println("\t\t\t\t\tnew java.io.ByteArrayOutputStream();");
+	m_outstream.println("\t\t\t\tbyte buf[] = new byte[8192];");
+	m_outstream.println("\t\t\t\tint n;");
+	m_outstream.println("\t\t\t\twhile (-1 != (n = in.read(buf))) {");
+	m_outstream.println("\t\t\t\t\tbytes.write(buf, 0, n);");
+	m_outstream.println("\t\t\t\t}");
+	m_outstream.println("\t\t\t\tin.close();");
+	m_outstream.println("\t\t\t\tjava.nio.ByteBuffer bb =");
+	m_outstream.println("\t\t\t\t\tjava.nio.ByteBuffer.wrap(bytes.toByteArray());");
+	m_outstream.println("\t\t\t\tint res[][][] = new int[bb.getInt()][][];");
+	m_outstream.println("\t\t\t\tfor (int t = 0; t < res.length; t++) {");
+	m_outstream.println("\t\t\t\t\tres[t] = new int[bb.getInt()][bb.getInt()];");
+	m_outstream.println("\t\t\t\t\tboolean wide = (0 != bb.get());");
+	m_outstream.println("\t\t\t\t\tfor (int i = 0; i < res[t].length; i++) {");
+	m_outstream.println("\t\t\t\t\t\tfor (int j = 0; j < res[t][i].length; j++) {");
+	m_outstream.println("\t\t\t\t\t\t\tres[t][i][j] = wide ? bb.getInt() : bb.getShort();");
+	m_outstream.println("\t\t\t\t\t\t}");
+	m_outstream.println("\t\t\t\t\t}");
+	m_outstream.println("\t\t\t\t}");
+	m_outstream.println("\t\t\t\tyy_resource = res;");
+	m_outstream.println("\t\t\t} catch (java.io.IOException e) {");
+	m_outstream.println("\t\t\t\tthrow new Error(\"Unable to read table resource " 
+			    + name + ".\");");
+	m_outstream.println("\t\t\t}");
+	m_outstream.println("\t\t}");
+	m_outstream.println("\t\treturn yy_resource[index];");
+	m_outstream.println("\t}");
+      }
+
+  /***************************************************************
+    Function: emit_resource
+    Description: Writes the tables collected by emit_unpack to the
+    binary resource read by unpackFromResource.
+    **************************************************************/
+  void emit_resource
+    (
+     java.io.OutputStream outstream
+     )
+      throws java.io.IOException
+      {
+	java.io.DataOutputStream out;
+	int[][] ia;
+	int elem;
+	int i;
+	int j;
+	boolean wide;
+
+	out = new java.io.DataOutputStream(
+		new java.io.BufferedOutputStream(outstream));
+	out.writeInt(m_resource_tables.size());
+	for (elem = 0; elem < m_resource_tables.size(); ++elem)
+	  {
+	    ia = (int[][]) m_resource_tables.elementAt(elem);
+	    out.writeInt(ia.length);
+	    out.writeInt(ia.length > 0 ? ia[0].length : 0);
+
+	    /* Most tables fit in shorts, which halves the resource. */
+	    wide = false;
+	    for (i = 0; i < ia.length; ++i)
+	      {
+		for (j = 0; j < ia[i].length; ++j)
+		  {
+		    if (ia[i][j] != (short) ia[i][j])
+		      {
+			wide = true;
+		      }
+		  }
+	      }
+	    out.writeByte(wide ? 1 : 0);
+
+	    for (i = 0; i < ia.length; ++i)
+	      {
+		for (j = 0; j < ia[i].length; ++j)
+		  {
+		    if (wide)
+		      {
+			out.writeInt(ia[i][j]);
+		      }
+		    else
+		      {
+			out.writeShort(ia[i][j]);
+		      }
+		  }
+	      }
+	  }
+	out.close();
       }
 
   /***************************************************************
@@ -1169,7 +1596,7 @@ class CEmit
 	    CUtility.ASSERT(null != m_outstream);
 	  }
 
-	m_outstream.println("\tprivate int yy_acpt[] = {");
+	m_outstream.println("\tprivate static final int yy_acpt[] = {");
 	size = m_spec.m_accept_vector.size();
 	for (elem = 0; elem < size; ++elem)
 	  {
@@ -1212,21 +1639,51 @@ class CEmit
 	  }
 	m_outstream.println("\t};");
 
+	if (m_spec.m_action_methods)
+	  {
+	    m_outstream.print("\tprivate static final int yy_acpt_rule[] = ");
+	    emit_unpack(new int[][] { number_rules() });
+	    m_outstream.println("[0];");
+	    m_outstream.println();
+	  }
+
 	// CSA: modified yy_cmap to use string packing 9-Aug-1999
 	int[] yy_cmap = new int[m_spec.m_ccls_map.length];
 	for (i = 0; i < m_spec.m_ccls_map.length; ++i)
 	    yy_cmap[i] = m_spec.m_col_map[m_spec.m_ccls_map[i]];
-	m_outstream.print("\tprivate int yy_cmap[] = unpackFromString(");
-	emit_table_as_string(new int[][] { yy_cmap });
-	m_outstream.println(")[0];");
-	m_outstream.println();
+
+	if (m_spec.m_switch_dtrans)
+	  {
+	    emit_switch_table(yy_cmap);
+	    return;
+	  }
+
+	m_ascii_cmap = (yy_cmap.length > ASCII_SIZE 
+			&& m_spec.m_dtrans_ncols <= Byte.MAX_VALUE + 1);
+	if (m_ascii_cmap)
+	  {
+	    emit_ascii_cmap(yy_cmap);
+	  }
+	else
+	  {
+	    m_outstream.print("\tprivate static final int yy_cmap[] = ");
+	    emit_unpack(new int[][] { yy_cmap });
+	    m_outstream.println("[0];");
+	    m_outstream.println();
+	  }
 
 	// CSA: modified yy_rmap to use string packing 9-Aug-1999
-	m_outstream.print("\tprivate int yy_rmap[] = unpackFromString(");
-	emit_table_as_string(new int[][] { m_spec.m_row_map });
-	m_outstream.println(")[0];");
+	m_outstream.print("\tprivate static final int yy_rmap[] = ");
+	emit_unpack(new int[][] { m_spec.m_row_map });
+	m_outstream.println("[0];");
 	m_outstream.println();
 
+	if (m_spec.m_comb_dtrans)
+	  {
+	    emit_comb_table();
+	    return;
+	  }
+
 	// 6/24/98 Raimondas Lencevicius
 	// modified to use
 	//    int[][] unpackFromString(int size1, int size2, String st)
@@ -1238,48 +1695,477 @@ class CEmit
 	    yy_nxt[elem] = dtrans.m_dtrans;
 	}
 	m_outstream.print
-	  ("\tprivate int yy_nxt[][] = unpackFromString(");
-	emit_table_as_string(yy_nxt);
-	m_outstream.println(");");
+	  ("\tprivate static final int yy_nxt[][] = ");
+	emit_unpack(yy_nxt);
+	m_outstream.println(";");
 	m_outstream.println();
       }
 
   /***************************************************************
-    Function: emit_driver
-    Description: Output an integer table as a string.  Written by
-    Raimondas Lencevicius 6/24/98; reorganized by CSA 9-Aug-1999.
-    From his original comments:
-	   yy_nxt[][] values are coded into a string
-	   by printing integers and representing
-	   integer sequences as "value:length" pairs.
+    Function: emit_ascii_cmap
+    Description: Emits the character class map as a dense byte
+    table for ASCII, yy_amap, and for the rest of the characters,
+    including the BOL and EOF pseudo-characters, as runs of equal
+    class that yy_cclass searches.  Even under %unicode an ASCII
+    character is classified with a single load from a 128 byte
+    table.
     **************************************************************/
-  private void emit_table_as_string(int[][] ia) {
-	int sequenceLength = 0; // RL - length of the number sequence
-	boolean sequenceStarted = false; // RL - has number sequence started?
-	int previousInt = -20; // RL - Bogus -20 state.
-	
-	// RL - Output matrix size
-	m_outstream.print(ia.length);
-	m_outstream.print(",");
-	m_outstream.print(ia.length>0?ia[0].length:0);
-	m_outstream.println(",");
+  private void emit_ascii_cmap
+    (
+     int[] yy_cmap
+     )
+      throws java.io.IOException
+      {
+	int i;
+	int nruns;
+	int[] yy_rstart;
+	int[] yy_rclass;
 
-	StringBuffer outstr = new StringBuffer();
+	m_outstream.println("\tprivate static final byte yy_amap[] = {");
+	for (i = 0; i < ASCII_SIZE; ++i)
+	  {
+	    if (0 == i % 16)
+	      {
+		m_outstream.print("\t\t");
+	      }
+	    m_outstream.print(yy_cmap[i]);
+	    if (i < ASCII_SIZE - 1)
+	      {
+		m_outstream.print(",");
+	      }
+	    if (15 == i % 16)
+	      {
+		m_outstream.println();
+	      }
+	  }
+	m_outstream.println("\t};");
 
-	//  RL - Output matrix 
-	for (int elem = 0; elem < ia.length; ++elem)
+	nruns = 0;
+	for (i = ASCII_SIZE; i < yy_cmap.length; ++i)
 	  {
-	    for (int i = 0; i < ia[elem].length; ++i)
+	    if (ASCII_SIZE == i || yy_cmap[i] != yy_cmap[i - 1])
 	      {
-		int writeInt = ia[elem][i];
-		if (writeInt == previousInt) // RL - sequence?
-		  {
-		    if (sequenceStarted)
-		      {
-			sequenceLength++;
-		      }
-		    else
-		      {
+		++nruns;
+	      }
+	  }
+	yy_rstart = new int[nruns];
+	yy_rclass = new int[nruns];
+	nruns = 0;
+	for (i = ASCII_SIZE; i < yy_cmap.length; ++i)
+	  {
+	    if (ASCII_SIZE == i || yy_cmap[i] != yy_cmap[i - 1])
+	      {
+		yy_rstart[nruns] = i;
+		yy_rclass[nruns] = yy_cmap[i];
+		++nruns;
+	      }
+	  }
+
+	m_outstream.print("\tprivate static final int yy_rstart[] = ");
+	emit_unpack(new int[][] { yy_rstart });
+	m_outstream.println("[0];");
+	m_outstream.print("\tprivate static final int yy_rclass[] = ");
+	emit_unpack(new int[][] { yy_rclass });
+	m_outstream.println("[0];");
+
+	m_outstream.println("\tprivate static int yy_cclass (int c) {");
+	m_outstream.println("\t\tif (c > YY_EOF) {");
+	m_outstream.println("\t\t\tthrow new java.lang.ArrayIndexOutOfBoundsException(c);");
+	m_outstream.println("\t\t}");
+	m_outstream.println("\t\tint lo = 0;");
+	m_outstream.println("\t\tint hi = yy_rstart.length - 1;");
+	m_outstream.println("\t\twhile (lo < hi) {");
+	m_outstream.println("\t\t\tint mid = (lo + hi + 1) >>> 1;");
+	m_outstream.println("\t\t\tif (yy_rstart[mid] <= c) {");
+	m_outstream.println("\t\t\t\tlo = mid;");
+	m_outstream.println("\t\t\t} else {");
+	m_outstream.println("\t\t\t\thi = mid - 1;");
+	m_outstream.println("\t\t\t}");
+	m_outstream.println("\t\t}");
+	m_outstream.println("\t\treturn yy_rclass[lo];");
+	m_outstream.println("\t}");
+	m_outstream.println();
+      }
+
+  /***************************************************************
+    Function: yy_cmap_of
+    Description: Returns the expression for the character class
+    of the given lookahead.
+    **************************************************************/
+  private String yy_cmap_of
+    (
+     String lookahead
+     )
+      {
+	if (m_ascii_cmap)
+	  {
+	    return "(" + lookahead + " < " + ASCII_SIZE + " ? yy_amap[" 
+	      + lookahead + "] : yy_cclass(" + lookahead + "))";
+	  }
+	return "yy_cmap[" + lookahead + "]";
+      }
+
+  /***************************************************************
+    Function: emit_switch_table
+    Description: Emits the transition function as code in place of
+    the yy_cmap, yy_rmap and yy_nxt tables.  Each distinct row of
+    the table becomes a small method that takes the lookahead itself
+    and finds its target by comparing it against the bounds of the
+    runs of characters that share a target in that row, as a
+    balanced tree of range tests.  yy_next dispatches on the state
+    to the method for its row.  A lookahead beyond the character
+    set throws, as the table lookup would.
+    **************************************************************/
+  private void emit_switch_table
+    (
+     int[] yy_cmap
+     )
+      throws java.io.IOException
+      {
+	int row;
+	int elem;
+	int size;
+	int c;
+	int nruns;
+	int[] start;
+	int[] target;
+	CDTrans dtrans;
+
+	size = m_spec.m_dtrans_vector.size();
+	for (row = 0; row < size; ++row)
+	  {
+	    dtrans = (CDTrans) m_spec.m_dtrans_vector.elementAt(row);
+
+	    /* Runs of characters with the same target, plus one
+	       past the end of the character set that throws. */
+	    start = new int[yy_cmap.length + 1];
+	    target = new int[yy_cmap.length + 1];
+	    nruns = 0;
+	    for (c = 0; c < yy_cmap.length; ++c)
+	      {
+		if (0 == c || dtrans.m_dtrans[yy_cmap[c]] != target[nruns - 1])
+		  {
+		    start[nruns] = c;
+		    target[nruns] = dtrans.m_dtrans[yy_cmap[c]];
+		    ++nruns;
+		  }
+	      }
+	    start[nruns] = yy_cmap.length;
+	    target[nruns] = YY_THROW;
+	    ++nruns;
+
+	    m_outstream.println("\tprivate static int yy_row" + row 
+				+ " (int yy_c) {");
+	    emit_range_tests(start,target,0,nruns - 1,"\t\t");
+	    m_outstream.println("\t}");
+	  }
+
+	m_outstream.println("\tprivate static int yy_next (int yy_state, int yy_c) {");
+	m_outstream.println("\t\tswitch (yy_state) {");
+	for (row = 0; row < size; ++row)
+	  {
+	    for (elem = 0; elem < m_spec.m_row_map.length; ++elem)
+	      {
+		if (m_spec.m_row_map[elem] == row)
+		  {
+		    m_outstream.println("\t\tcase " + elem + ":");
+		  }
+	      }
+	    m_outstream.println("\t\t\treturn yy_row" + row + "(yy_c);");
+	  }
+	m_outstream.println("\t\tdefault:");
+	m_outstream.println("\t\t\treturn " + CDTrans.F + ";");
+	m_outstream.println("\t\t}");
+	m_outstream.println("\t}");
+	m_outstream.println();
+      }
+
+  /***************************************************************
+    Function: emit_range_tests
+    Description: Emits the code returning the target of yy_c,
+    given that yy_c falls in one of the runs first through last.
+    Up to RANGE_CHAIN runs are tested one after another against
+    their upper bounds; more are split in half on the start of
+    the middle run.
+    **************************************************************/
+  private void emit_range_tests
+    (
+     int[] start,
+     int[] target,
+     int first,
+     int last,
+     String indent
+     )
+      throws java.io.IOException
+      {
+	int run;
+	int mid;
+
+	if (last - first < RANGE_CHAIN)
+	  {
+	    for (run = first; run < last; ++run)
+	      {
+		m_outstream.println(indent + "if (yy_c < " + start[run + 1] 
+				    + ") " + range_result(target[run]));
+	      }
+	    m_outstream.println(indent + range_result(target[last]));
+	    return;
+	  }
+
+	mid = (first + last + 1) / 2;
+	m_outstream.println(indent + "if (yy_c < " + start[mid] + ") {");
+	emit_range_tests(start,target,first,mid - 1,indent + "\t");
+	m_outstream.println(indent + "}");
+	emit_range_tests(start,target,mid,last,indent);
+      }
+
+  /***************************************************************
+    Function: range_result
+    Description: Returns the statement yielding a target state.
+    **************************************************************/
+  private String range_result
+    (
+     int target
+     )
+      {
+	if (YY_THROW == target)
+	  {
+	    return "throw new java.lang.ArrayIndexOutOfBoundsException(yy_c);";
+	  }
+	return "return " + target + ";";
+      }
+
+  /***************************************************************
+    Function: emit_comb_table
+    Description: Emits the transition table in place of yy_nxt as
+    row-displaced vectors.  A row may name an earlier row that it
+    mostly agrees with in yy_drow; otherwise yy_drow is YY_F and
+    yy_dflt gives its most frequent target.  Only the entries that
+    differ from that default are kept.  They are stored in yy_cnext
+    at yy_base[row] + class, and yy_check holds the row that owns
+    each slot.  Rows are placed first-fit, the fullest first, so
+    their entries interleave in the gaps left by the others.
+    **************************************************************/
+  private void emit_comb_table
+    (
+     )
+      throws java.io.IOException
+      {
+	int row;
+	int other;
+	int col;
+	int elem;
+	int size;
+	int ncols;
+	int nstates;
+	int next;
+	int diff;
+	int base;
+	int top;
+	int[] count;
+	int[] order;
+	int[] fill;
+	int[] yy_base;
+	int[] yy_drow;
+	int[] yy_dflt;
+	int[] yy_cnext;
+	int[] yy_check;
+	int[] trimmed;
+	int[][] dflt;
+	CDTrans dtrans;
+	CDTrans odtrans;
+
+	size = m_spec.m_dtrans_vector.size();
+	ncols = m_spec.m_dtrans_ncols;
+	nstates = m_spec.m_row_map.length;
+	yy_base = new int[size];
+	yy_drow = new int[size];
+	yy_dflt = new int[size];
+	fill = new int[size];
+	dflt = new int[size][];
+
+	for (row = 0; row < size; ++row)
+	  {
+	    dtrans = (CDTrans) m_spec.m_dtrans_vector.elementAt(row);
+	    count = new int[nstates + 1];
+	    yy_dflt[row] = CDTrans.F;
+	    for (col = 0; col < ncols; ++col)
+	      {
+		next = dtrans.m_dtrans[col];
+		if (++count[next + 1] > count[yy_dflt[row] + 1])
+		  {
+		    yy_dflt[row] = next;
+		  }
+	      }
+	    yy_drow[row] = CDTrans.F;
+	    fill[row] = ncols - count[yy_dflt[row] + 1];
+	    dflt[row] = new int[ncols];
+	    for (col = 0; col < ncols; ++col)
+	      {
+		dflt[row][col] = yy_dflt[row];
+	      }
+
+	    /* Defaulting to an earlier row keeps the chains acyclic. */
+	    for (other = 0; other < row; ++other)
+	      {
+		odtrans = (CDTrans) m_spec.m_dtrans_vector.elementAt(other);
+		diff = 0;
+		for (col = 0; col < ncols; ++col)
+		  {
+		    if (dtrans.m_dtrans[col] != odtrans.m_dtrans[col])
+		      {
+			++diff;
+		      }
+		  }
+		if (diff < fill[row])
+		  {
+		    yy_drow[row] = other;
+		    fill[row] = diff;
+		    dflt[row] = odtrans.m_dtrans;
+		  }
+	      }
+	  }
+
+	/* Sort rows by decreasing number of entries. */
+	order = new int[size];
+	for (row = 0; row < size; ++row)
+	  {
+	    for (elem = row; elem > 0 && fill[order[elem - 1]] < fill[row]; 
+		 --elem)
+	      {
+		order[elem] = order[elem - 1];
+	      }
+	    order[elem] = row;
+	  }
+
+	yy_cnext = new int[size * ncols + ncols];
+	yy_check = new int[size * ncols + ncols];
+	for (elem = 0; elem < yy_check.length; ++elem)
+	  {
+	    yy_check[elem] = CDTrans.F;
+	  }
+
+	top = ncols;
+	for (elem = 0; elem < size; ++elem)
+	  {
+	    row = order[elem];
+	    dtrans = (CDTrans) m_spec.m_dtrans_vector.elementAt(row);
+	    for (base = 0; ; ++base)
+	      {
+		for (col = 0; col < ncols; ++col)
+		  {
+		    if (dtrans.m_dtrans[col] != dflt[row][col]
+			&& CDTrans.F != yy_check[base + col])
+		      {
+			break;
+		      }
+		  }
+		if (col == ncols)
+		  {
+		    break;
+		  }
+	      }
+	    yy_base[row] = base;
+	    for (col = 0; col < ncols; ++col)
+	      {
+		if (dtrans.m_dtrans[col] != dflt[row][col])
+		  {
+		    yy_cnext[base + col] = dtrans.m_dtrans[col];
+		    yy_check[base + col] = row;
+		  }
+	      }
+	    top = Math.max(top, base + ncols);
+	  }
+
+	/* Trim the vectors, keeping room for any class at any base. */
+	trimmed = new int[top];
+	System.arraycopy(yy_cnext, 0, trimmed, 0, top);
+	yy_cnext = trimmed;
+	trimmed = new int[top];
+	System.arraycopy(yy_check, 0, trimmed, 0, top);
+	yy_check = trimmed;
+
+	m_outstream.print("\tprivate static final int yy_base[] = ");
+	emit_unpack(new int[][] { yy_base });
+	m_outstream.println("[0];");
+	m_outstream.println();
+
+	m_outstream.print("\tprivate static final int yy_drow[] = ");
+	emit_unpack(new int[][] { yy_drow });
+	m_outstream.println("[0];");
+	m_outstream.println();
+
+	m_outstream.print("\tprivate static final int yy_dflt[] = ");
+	emit_unpack(new int[][] { yy_dflt });
+	m_outstream.println("[0];");
+	m_outstream.println();
+
+	m_outstream.print("\tprivate static final int yy_cnext[] = ");
+	emit_unpack(new int[][] { yy_cnext });
+	m_outstream.println("[0];");
+	m_outstream.println();
+
+	m_outstream.print("\tprivate static final int yy_check[] = ");
+	emit_unpack(new int[][] { yy_check });
+	m_outstream.println("[0];");
+	m_outstream.println();
+      }
+
+  /***************************************************************
+    Function: emit_unpack
+    Description: Emits the expression that yields a table, either
+    unpacking it from a string or reading it from the binary
+    resource.
+    **************************************************************/
+  private void emit_unpack(int[][] ia) {
+	if (m_spec.m_table_resource)
+	  {
+	    m_outstream.print("unpackFromResource(" 
+			      + m_resource_tables.size() + ")");
+	    m_resource_tables.addElement(ia);
+	    return;
+	  }
+	m_outstream.print("unpackFromString(");
+	emit_table_as_string(ia);
+	m_outstream.print(")");
+  }
+
+  /***************************************************************
+    Function: emit_driver
+    Description: Output an integer table as a string.  Written by
+    Raimondas Lencevicius 6/24/98; reorganized by CSA 9-Aug-1999.
+    From his original comments:
+	   yy_nxt[][] values are coded into a string
+	   by printing integers and representing
+	   integer sequences as "value:length" pairs.
+    **************************************************************/
+  private void emit_table_as_string(int[][] ia) {
+	int sequenceLength = 0; // RL - length of the number sequence
+	boolean sequenceStarted = false; // RL - has number sequence started?
+	int previousInt = -20; // RL - Bogus -20 state.
+	
+	// RL - Output matrix size
+	m_outstream.print(ia.length);
+	m_outstream.print(",");
+	m_outstream.print(ia.length>0?ia[0].length:0);
+	m_outstream.println(",");
+
+	StringBuffer outstr = new StringBuffer();
+
+	//  RL - Output matrix 
+	for (int elem = 0; elem < ia.length; ++elem)
+	  {
+	    for (int i = 0; i < ia[elem].length; ++i)
+	      {
+		int writeInt = ia[elem][i];
+		if (writeInt == previousInt) // RL - sequence?
+		  {
+		    if (sequenceStarted)
+		      {
+			sequenceLength++;
+		      }
+		    else
+		      {
 			outstr.append(writeInt);
 			outstr.append(":");
 			sequenceLength = 2;
@@ -1347,41 +2233,12 @@ class CEmit
 	  
 	  emit_table();
 
-	  if (m_spec.m_integer_type)
-	    {
-	      m_outstream.print("\tpublic int ");
-	      m_outstream.print(new String(m_spec.m_function_name));
-	      m_outstream.println(" ()");
-	    }
-	  else if (m_spec.m_intwrap_type)
-	    {
-	      m_outstream.print("\tpublic java.lang.Integer ");
-	      m_outstream.print(new String(m_spec.m_function_name));
-	      m_outstream.println(" ()");
-	    }
-	  else
-	    {
-	      m_outstream.print("\tpublic ");
-	      m_outstream.print(new String(m_spec.m_type_name));
-	      m_outstream.print(" ");
-	      m_outstream.print(new String(m_spec.m_function_name));
-	      m_outstream.println(" ()");
-	    }
+	  m_outstream.print("\tpublic " + yylex_type() + " ");
+	  m_outstream.print(new String(m_spec.m_function_name));
+	  m_outstream.println(" ()");
 
 	  /*m_outstream.println("\t\tthrows java.io.IOException {");*/
-	  m_outstream.print("\t\tthrows java.io.IOException");
-	  if (null != m_spec.m_yylex_throw_code)
-	    {
-	      m_outstream.print(", "); 
-	      m_outstream.print(new String(m_spec.m_yylex_throw_code,0,
-						m_spec.m_yylex_throw_read));
-	      m_outstream.println();
-	      m_outstream.println("\t\t{");
-	    }
-	  else
-	    {
-	      m_outstream.println(" {");
-	    }
+	  emit_yylex_throws();
 
 	  m_outstream.println("\t\tint yy_lookahead;");
 	  m_outstream.println("\t\tint yy_anchor = YY_NO_ANCHOR;");
@@ -1394,6 +2251,16 @@ class CEmit
 	  m_outstream.println("\t\tint yy_last_accept_state = YY_NO_STATE;");
     	  m_outstream.println("\t\tboolean yy_initial = true;");
 	  m_outstream.println("\t\tint yy_this_accept;");
+	  if (m_spec.m_comb_dtrans && false == m_spec.m_switch_dtrans)
+	    {
+	      m_outstream.println("\t\tint yy_row;");
+	      m_outstream.println("\t\tint yy_class;");
+	      m_outstream.println("\t\tint yy_slot;");
+	    }
+	  if (m_spec.m_action_methods)
+	    {
+	      m_outstream.println("\t\t" + yylex_type() + " yy_value;");
+	    }
 	  m_outstream.println();
 
 	  m_outstream.println("\t\tyy_mark_start();");
@@ -1417,8 +2284,32 @@ class CEmit
 	  m_outstream.println("\t\t\tyy_next_state = YY_F;");
 	  /*m_outstream.println("\t\t\t\tyy_next_state = "
 				 + "yy_next(yy_state,yy_lookahead);");*/
-	  m_outstream.println("\t\t\tyy_next_state = "
- 	   + "yy_nxt[yy_rmap[yy_state]][yy_cmap[yy_lookahead]];");
+	  if (m_spec.m_switch_dtrans)
+	    {
+	      m_outstream.println("\t\t\tyy_next_state = "
+				  + "yy_next(yy_state, yy_lookahead);");
+	    }
+	  else if (m_spec.m_comb_dtrans)
+	    {
+	      m_outstream.println("\t\t\tyy_row = yy_rmap[yy_state];");
+	      m_outstream.println("\t\t\tyy_class = " 
+				  + yy_cmap_of("yy_lookahead") + ";");
+	      m_outstream.println("\t\t\tyy_slot = yy_base[yy_row] + yy_class;");
+	      m_outstream.println("\t\t\twhile (yy_check[yy_slot] != yy_row "
+				  + "&& YY_F != yy_drow[yy_row]) {");
+	      m_outstream.println("\t\t\t\tyy_row = yy_drow[yy_row];");
+	      m_outstream.println("\t\t\t\tyy_slot = yy_base[yy_row] + yy_class;");
+	      m_outstream.println("\t\t\t}");
+	      m_outstream.println("\t\t\tyy_next_state = "
+				  + "(yy_check[yy_slot] == yy_row) "
+				  + "? yy_cnext[yy_slot] : yy_dflt[yy_row];");
+	    }
+	  else
+	    {
+	      m_outstream.println("\t\t\tyy_next_state = "
+				  + "yy_nxt[yy_rmap[yy_state]][" 
+				  + yy_cmap_of("yy_lookahead") + "];");
+	    }
 
 	  if (NOT_EDBG)
 	    {
@@ -1508,15 +2399,29 @@ class CEmit
 	  m_outstream.println("\t\t\t\t\t}");
 	  m_outstream.println("\t\t\t\t\tyy_to_mark();");
 
-	  m_outstream.println("\t\t\t\t\tswitch (yy_last_accept_state) {");
+	  if (m_spec.m_action_methods)
+	    {
+	      m_outstream.println("\t\t\t\t\tyy_value = yy_do_action("
+				  + "yy_acpt_rule[yy_last_accept_state]);");
+	      m_outstream.println("\t\t\t\t\tif (yy_resume) {");
+	      m_outstream.println("\t\t\t\t\t\tyy_resume = false;");
+	      m_outstream.println("\t\t\t\t\t}");
+	      m_outstream.println("\t\t\t\t\telse {");
+	      m_outstream.println("\t\t\t\t\t\treturn yy_value;");
+	      m_outstream.println("\t\t\t\t\t}");
+	    }
+	  else
+	    {
+	      m_outstream.println("\t\t\t\t\tswitch (yy_last_accept_state) {");
 
-	  emit_actions("\t\t\t\t\t");
+	      emit_actions("\t\t\t\t\t");
 
-	  m_outstream.println("\t\t\t\t\tdefault:");
-	  m_outstream.println("\t\t\t\t\t\tyy_error(YY_E_INTERNAL,false);");
-	  /*m_outstream.println("\t\t\t\t\t\treturn null;");*/
-	  m_outstream.println("\t\t\t\t\tcase -1:");
-	  m_outstream.println("\t\t\t\t\t}");
+	      m_outstream.println("\t\t\t\t\tdefault:");
+	      m_outstream.println("\t\t\t\t\t\tyy_error(YY_E_INTERNAL,false);");
+	      /*m_outstream.println("\t\t\t\t\t\treturn null;");*/
+	      m_outstream.println("\t\t\t\t\tcase -1:");
+	      m_outstream.println("\t\t\t\t\t}");
+	    }
 	  
     	  m_outstream.println("\t\t\t\t\tyy_initial = true;");
 	  m_outstream.println("\t\t\t\t\tyy_state "
@@ -1539,6 +2444,11 @@ class CEmit
 	  m_outstream.println("\t\t}");
 	  m_outstream.println("\t}");
 
+	  if (m_spec.m_action_methods)
+	    {
+	      emit_action_methods();
+	    }
+
 	  /*m_outstream.println("\t\t\t\t");
 	  m_outstream.println("\t\t\t");
 	  m_outstream.println("\t\t\t");
@@ -1589,51 +2499,254 @@ class CEmit
 	}
   
   /***************************************************************
-    Function: emit_footer
-    Description:     
+    Function: yylex_type
+    Description: Returns the declared return type of yylex().
     **************************************************************/
-  private void emit_footer
+  private String yylex_type
     (
      )
-      throws java.io.IOException
       {
-	if (CUtility.DEBUG)
+	if (m_spec.m_integer_type)
 	  {
-	    CUtility.ASSERT(null != m_spec);
-	    CUtility.ASSERT(null != m_outstream);
+	    return "int";
+	  }
+	else if (m_spec.m_intwrap_type)
+	  {
+	    return "java.lang.Integer";
 	  }
 
-	m_outstream.println("}");
+	return new String(m_spec.m_type_name);
       }
-}
 
-/***************************************************************
-  Class: CBunch
-  **************************************************************/
-class CBunch
-{
   /***************************************************************
-    Member Variables
+    Function: yylex_default
+    Description: Returns a value of the yylex() return type, 
+    used where an action method falls off its end.
     **************************************************************/
-  Vector m_nfa_set; /* Vector of CNfa states in dfa state. */
-  SparseBitSet m_nfa_bit; /* BitSet representation of CNfa labels. */
-  CAccept m_accept; /* Accepting actions, or null if nonaccepting state. */
-  int m_anchor; /* Anchors on regular expression. */
-  int m_accept_index; /* CNfa index corresponding to accepting actions. */
+  private String yylex_default
+    (
+     )
+      {
+	String type;
+
+	type = yylex_type();
+	if (type.equals("boolean"))
+	  {
+	    return "false";
+	  }
+	else if (type.equals("int") || type.equals("long")
+		 || type.equals("short") || type.equals("byte")
+		 || type.equals("char") || type.equals("float")
+		 || type.equals("double"))
+	  {
+	    return "0";
+	  }
+
+	return "null";
+      }
 
   /***************************************************************
-    Function: CBunch
-    Description: Constructor.
+    Function: emit_yylex_throws
+    Description: Emits the throws clause of yylex() and of the
+    action methods, and the opening brace of the body.
     **************************************************************/
-  CBunch
+  private void emit_yylex_throws
     (
      )
+      throws java.io.IOException
       {
-	m_nfa_set = null;
-	m_nfa_bit = null;
-	m_accept = null;
-	m_anchor = CSpec.NONE;
-	m_accept_index = -1;
+	m_outstream.print("\t\tthrows java.io.IOException");
+	if (null != m_spec.m_yylex_throw_code)
+	  {
+	    m_outstream.print(", "); 
+	    m_outstream.print(new String(m_spec.m_yylex_throw_code,0,
+					 m_spec.m_yylex_throw_read));
+	    m_outstream.println();
+	    m_outstream.println("\t\t{");
+	  }
+	else
+	  {
+	    m_outstream.println(" {");
+	  }
+      }
+
+  /***************************************************************
+    Function: number_rules
+    Description: Numbers the distinct actions in order of their
+    first accepting state, and returns the number of the action
+    of each state, or -1 for nonaccepting states.
+    **************************************************************/
+  private int[] number_rules
+    (
+     )
+      {
+	Hashtable index;
+	CAccept accept;
+	Integer rule;
+	int acpt_rule[];
+	int size;
+	int elem;
+
+	index = new Hashtable();
+	m_rules = new Vector();
+	size = m_spec.m_accept_vector.size();
+	acpt_rule = new int[size];
+	for (elem = 0; elem < size; ++elem)
+	  {
+	    accept = (CAccept) m_spec.m_accept_vector.elementAt(elem);
+	    if (null == accept)
+	      {
+		acpt_rule[elem] = -1;
+		continue;
+	      }
+
+	    rule = (Integer) index.get(accept);
+	    if (null == rule)
+	      {
+		rule = new Integer(m_rules.size());
+		index.put(accept,rule);
+		m_rules.addElement(accept);
+	      }
+	    acpt_rule[elem] = rule.intValue();
+	  }
+
+	return acpt_rule;
+      }
+
+  /***************************************************************
+    Function: emit_action_methods
+    Description: Emits each action as its own method, so that 
+    yylex() stays small enough to be compiled and inlined.  An
+    action that falls off its end sets yy_resume, and yylex()
+    goes on to the next token; an action that returns leaves it
+    clear, and yylex() returns the value.  Actions are dispatched
+    through a switch on the action number, split into buckets of
+    RULE_BUCKET actions so that no one method grows too large.
+    Actions may not refer to the locals of yylex(), and may not
+    use break to leave the action.
+    **************************************************************/
+  private void emit_action_methods
+    (
+     )
+      throws java.io.IOException
+      {
+	CAccept accept;
+	String type;
+	int nrules;
+	int nbuckets;
+	int bucket;
+	int rule;
+
+	type = yylex_type();
+	nrules = m_rules.size();
+	nbuckets = (nrules + RULE_BUCKET - 1) / RULE_BUCKET;
+
+	m_outstream.println();
+	m_outstream.println("\tprivate boolean yy_resume = false;");
+
+	m_outstream.println("\tprivate " + type + " yy_do_action (int yy_rule)");
+	emit_yylex_throws();
+	if (1 < nbuckets)
+	  {
+	    m_outstream.println("\t\tswitch (yy_rule / " + RULE_BUCKET + ") {");
+	    for (bucket = 0; bucket < nbuckets; ++bucket)
+	      {
+		m_outstream.println("\t\tcase " + bucket + ":");
+		m_outstream.println("\t\t\treturn yy_do_action_" + bucket
+				    + "(yy_rule);");
+	      }
+	    emit_action_default();
+	    m_outstream.println("\t}");
+
+	    for (bucket = 0; bucket < nbuckets; ++bucket)
+	      {
+		m_outstream.println("\tprivate " + type + " yy_do_action_" 
+				    + bucket + " (int yy_rule)");
+		emit_yylex_throws();
+		emit_action_switch(bucket * RULE_BUCKET,
+				   Math.min(nrules,(bucket + 1) * RULE_BUCKET));
+		m_outstream.println("\t}");
+	      }
+	  }
+	else
+	  {
+	    emit_action_switch(0,nrules);
+	    m_outstream.println("\t}");
+	  }
+
+	for (rule = 0; rule < nrules; ++rule)
+	  {
+	    accept = (CAccept) m_rules.elementAt(rule);
+	    m_outstream.println("\tprivate " + type + " yy_action_" + rule + " ()");
+	    emit_yylex_throws();
+	    m_outstream.println("\t\tif (true) {");
+	    m_outstream.print("\t\t\t");
+	    m_outstream.print(new String(accept.m_action,0,
+					 accept.m_action_read));
+	    m_outstream.println();
+	    m_outstream.println("\t\t}");
+	    m_outstream.println("\t\tyy_resume = true;");
+	    m_outstream.println("\t\treturn " + yylex_default() + ";");
+	    m_outstream.println("\t}");
+	  }
+      }
+
+  /***************************************************************
+    Function: emit_action_switch
+    Description: Emits the switch calling the action methods
+    numbered from lo up to, but not including, hi.
+    **************************************************************/
+  private void emit_action_switch
+    (
+     int lo,
+     int hi
+     )
+      throws java.io.IOException
+      {
+	int rule;
+
+	m_outstream.println("\t\tswitch (yy_rule) {");
+	for (rule = lo; rule < hi; ++rule)
+	  {
+	    m_outstream.println("\t\tcase " + rule + ":");
+	    m_outstream.println("\t\t\treturn yy_action_" + rule + "();");
+	  }
+	emit_action_default();
+      }
+
+  /***************************************************************
+    Function: emit_action_default
+    Description: Emits the default case of an action switch, 
+    which reports an internal error and goes on lexing.
+    **************************************************************/
+  private void emit_action_default
+    (
+     )
+      throws java.io.IOException
+      {
+	m_outstream.println("\t\tdefault:");
+	m_outstream.println("\t\t\tyy_error(YY_E_INTERNAL,false);");
+	m_outstream.println("\t\t\tyy_resume = true;");
+	m_outstream.println("\t\t\treturn " + yylex_default() + ";");
+	m_outstream.println("\t\t}");
+      }
+  
+  /***************************************************************
+    Function: emit_footer
+    Description:     
+    **************************************************************/
+  private void emit_footer
+    (
+     )
+      throws java.io.IOException
+      {
+	if (CUtility.DEBUG)
+	  {
+	    CUtility.ASSERT(null != m_spec);
+	    CUtility.ASSERT(null != m_outstream);
+	  }
+
+	m_outstream.println("}");
       }
 }
 
@@ -2838,112 +3951,200 @@ class CMinimize
 
   /***************************************************************
     Function: minimize
-    Description: Removes redundant transition table states.
+    Description: Removes redundant transition table states, using
+    Hopcroft's partition refinement.  The states, plus a dead state
+    standing for CDTrans.F, are kept in one array of elements, each
+    block of the partition being a contiguous range of it.  A block
+    is split by moving the states that reach the current splitter to
+    the front of its range, so refinement takes O(n k log n) time
+    for n states and k character classes.
     **************************************************************/
   private void minimize
     (
      )
       {
-	Vector dtrans_group;
-	Vector new_group;
+	int nstates;
+	int ncols;
+	int dead;
 	int i;
-	int j;
-	int old_group_count;
-	int group_count;
-	CDTrans next;
-	CDTrans first;
-	int goto_first;
-	int goto_next;
 	int c;
-	int group_size;
-	boolean added;
-
-	init_groups();
+	int t;
+	int s;
+	int b;
+	int nb;
+	int j;
+	int next;
+	int nblocks;
+	int nsplit;
+	int nwork;
+	int nsplitter;
+	int[] inv_first;
+	int[] inv_fill;
+	int[] inv;
+	int[] elem;
+	int[] loc;
+	int[] block;
+	int[] first;
+	int[] end;
+	int[] mid;
+	int[] split;
+	int[] work;
+	int[] splitter;
+	boolean[] in_work;
+	CDTrans dtrans;
 
-	group_count = m_group.size();
-	old_group_count = group_count - 1;
+	nstates = m_spec.m_dtrans_vector.size();
+	ncols = m_spec.m_dtrans_ncols;
+	dead = nstates;
 
-	while (old_group_count != group_count)
+	/* Invert the transitions: the sources of the transitions
+	   into state t on class c are inv[inv_first[c * (nstates + 1) + t]]
+	   up to inv[inv_first[c * (nstates + 1) + t + 1]]. */
+	inv_first = new int[ncols * (nstates + 1) + 1];
+	for (s = 0; s <= nstates; ++s)
 	  {
-	    old_group_count = group_count;
-
-	    if (CUtility.DEBUG)
+	    for (c = 0; c < ncols; ++c)
 	      {
-		CUtility.ASSERT(m_group.size() == group_count);
+		++inv_first[c * (nstates + 1) + target(s, c, dead) + 1];
 	      }
-
-	    for (i = 0; i < group_count; ++i)
+	  }
+	for (i = 1; i < inv_first.length; ++i)
+	  {
+	    inv_first[i] += inv_first[i - 1];
+	  }
+	inv = new int[inv_first[inv_first.length - 1]];
+	inv_fill = new int[inv_first.length];
+	System.arraycopy(inv_first, 0, inv_fill, 0, inv_first.length);
+	for (s = 0; s <= nstates; ++s)
+	  {
+	    for (c = 0; c < ncols; ++c)
 	      {
-		dtrans_group = (Vector) m_group.elementAt(i);
+		inv[inv_fill[c * (nstates + 1) + target(s, c, dead)]++] = s;
+	      }
+	  }
 
-		group_size = dtrans_group.size();
-		if (group_size <= 1)
-		  {
-		    continue;
-		  }
+	/* Initial partition: one block for each accepting action,
+	   in order of first appearance, and one for the dead state. */
+	elem = new int[nstates + 1];
+	loc = new int[nstates + 1];
+	block = new int[nstates + 1];
+	first = new int[nstates + 1];
+	end = new int[nstates + 1];
+	mid = new int[nstates + 1];
+	nblocks = init_blocks(elem, loc, block, first, end, dead);
+	for (b = 0; b < nblocks; ++b)
+	  {
+	    mid[b] = first[b];
+	  }
 
-		new_group = new Vector();
-		added = false;
-		
-		first = (CDTrans) dtrans_group.elementAt(0);
-		for (j = 1; j < group_size; ++j)
-		  {
-		    next = (CDTrans) dtrans_group.elementAt(j);
+	work = new int[nstates + 1];
+	in_work = new boolean[nstates + 1];
+	for (b = 0; b < nblocks; ++b)
+	  {
+	    work[b] = b;
+	    in_work[b] = true;
+	  }
+	nwork = nblocks;
 
-		    for (c = 0; c < m_spec.m_dtrans_ncols; ++c)
-		      {
-			goto_first = first.m_dtrans[c];
-			goto_next = next.m_dtrans[c];
+	split = new int[nstates + 1];
+	splitter = new int[nstates + 1];
+	while (0 < nwork)
+	  {
+	    b = work[--nwork];
+	    in_work[b] = false;
+
+	    /* Copy the splitter, since marking reorders blocks. */
+	    nsplitter = end[b] - first[b];
+	    System.arraycopy(elem, first[b], splitter, 0, nsplitter);
 
-			if (goto_first != goto_next
-			    && (goto_first == CDTrans.F
-				|| goto_next == CDTrans.F
-				|| m_ingroup[goto_next] != m_ingroup[goto_first]))
+	    for (c = 0; c < ncols; ++c)
+	      {
+		/* Mark every state with a transition on c into the
+		   splitter, moving it to the front of its block. */
+		nsplit = 0;
+		for (i = 0; i < nsplitter; ++i)
+		  {
+		    t = c * (nstates + 1) + splitter[i];
+		    for (j = inv_first[t]; j < inv_first[t + 1]; ++j)
+		      {
+			s = inv[j];
+			nb = block[s];
+			if (loc[s] < mid[nb])
 			  {
-			    if (CUtility.DEBUG)
-			      {
-				CUtility.ASSERT(dtrans_group.elementAt(j) == next);
-			      }
-			    
-			    dtrans_group.removeElementAt(j);
-			    --j;
-			    --group_size;
-			    new_group.addElement(next);
-			    if (false == added)
-			      {
-				added = true;
-				++group_count;
-				m_group.addElement(new_group);
-			      }
-			    m_ingroup[next.m_label] = m_group.size() - 1;
+			    continue;
+			  }
+			if (mid[nb] == first[nb])
+			  {
+			    split[nsplit++] = nb;
+			  }
+			next = elem[mid[nb]];
+			elem[loc[s]] = next;
+			loc[next] = loc[s];
+			elem[mid[nb]] = s;
+			loc[s] = mid[nb];
+			++mid[nb];
+		      }
+		  }
 
-			    if (CUtility.DEBUG)
-			      {
-				CUtility.ASSERT(m_group.contains(new_group)
-						== true);
-				CUtility.ASSERT(m_group.contains(dtrans_group)
-						== true);
-				CUtility.ASSERT(dtrans_group.contains(first)
-						== true);
-				CUtility.ASSERT(dtrans_group.contains(next)
-						== false);
-				CUtility.ASSERT(new_group.contains(first)
-						== false);
-				CUtility.ASSERT(new_group.contains(next)
-						== true);
-				CUtility.ASSERT(dtrans_group.size() == group_size);
-				CUtility.ASSERT(i == m_ingroup[first.m_label]);
-				CUtility.ASSERT((m_group.size() - 1) 
-						== m_ingroup[next.m_label]);
-			      }
+		/* Split off the marked part of each touched block. */
+		for (i = 0; i < nsplit; ++i)
+		  {
+		    nb = split[i];
+		    if (mid[nb] == end[nb])
+		      {
+			mid[nb] = first[nb];
+			continue;
+		      }
+		    first[nblocks] = first[nb];
+		    end[nblocks] = mid[nb];
+		    mid[nblocks] = first[nblocks];
+		    first[nb] = mid[nb];
+		    for (j = first[nblocks]; j < end[nblocks]; ++j)
+		      {
+			block[elem[j]] = nblocks;
+		      }
 
-			    break;
-			  }
+		    /* Hopcroft: a block already waiting brings its new
+		       part along; otherwise the smaller part suffices. */
+		    if (in_work[nb]
+			|| end[nblocks] - first[nblocks] 
+			<= end[nb] - first[nb])
+		      {
+			work[nwork++] = nblocks;
+			in_work[nblocks] = true;
+		      }
+		    else
+		      {
+			work[nwork++] = nb;
+			in_work[nb] = true;
 		      }
+		    ++nblocks;
 		  }
 	      }
 	  }
 
+	/* Number the groups by their lowest state, so the numbering
+	   of the minimized DFA does not depend on the order of the
+	   splits. */
+	m_group = new Vector();
+	m_ingroup = new int[nstates];
+	for (b = 0; b < nblocks; ++b)
+	  {
+	    mid[b] = -1;
+	  }
+	for (s = 0; s < nstates; ++s)
+	  {
+	    b = block[s];
+	    if (-1 == mid[b])
+	      {
+		mid[b] = m_group.size();
+		m_group.addElement(new Vector());
+	      }
+	    dtrans = (CDTrans) m_spec.m_dtrans_vector.elementAt(s);
+	    ((Vector) m_group.elementAt(mid[b])).addElement(dtrans);
+	    m_ingroup[s] = mid[b];
+	  }
+
 	System.out.println(m_group.size() + " states after removal of redundant states.");
 
 	if (m_spec.m_verbose
@@ -2958,101 +4159,102 @@ class CMinimize
       }
 
   /***************************************************************
-    Function: init_groups
-    Description:
+    Function: target
+    Description: Returns the state reached from state s on class c,
+    with the dead state standing for CDTrans.F.
     **************************************************************/
-  private void init_groups
+  private int target
     (
+     int s,
+     int c,
+     int dead
      )
       {
-	int i;
-	int j;
-	int group_count;
-	int size;
-	CAccept accept;
-	CDTrans dtrans;
-	Vector dtrans_group;
-	CDTrans first;
-	boolean group_found;
+	int next;
 
-	m_group = new Vector();
-	group_count = 0;
-	
-	size = m_spec.m_dtrans_vector.size();
-	m_ingroup = new int[size];
-	
-	for (i = 0; i < size; ++i)
+	if (dead == s)
 	  {
-	    group_found = false;
-	    dtrans = (CDTrans) m_spec.m_dtrans_vector.elementAt(i);
+	    return dead;
+	  }
+	next = ((CDTrans) m_spec.m_dtrans_vector.elementAt(s)).m_dtrans[c];
+	return (CDTrans.F == next) ? dead : next;
+      }
 
-	    if (CUtility.DEBUG)
-	      {
-		CUtility.ASSERT(i == dtrans.m_label);
-		CUtility.ASSERT(false == group_found);
-		CUtility.ASSERT(group_count == m_group.size());
-	      }
-	    
-	    for (j = 0; j < group_count; ++j)
+  /***************************************************************
+    Function: init_blocks
+    Description: Lays out the initial partition, grouping states
+    with the same accepting action, and the dead state alone.
+    Returns the number of blocks.
+    **************************************************************/
+  private int init_blocks
+    (
+     int[] elem,
+     int[] loc,
+     int[] block,
+     int[] first,
+     int[] end,
+     int dead
+     )
+      {
+	Hashtable index;
+	CAccept accept;
+	Integer b;
+	int[] count;
+	int nblocks;
+	int none;
+	int s;
+
+	/* Number the blocks by first appearance of their action. */
+	index = new Hashtable();
+	nblocks = 0;
+	none = -1;
+	for (s = 0; s < dead; ++s)
+	  {
+	    accept = ((CDTrans) m_spec.m_dtrans_vector.elementAt(s)).m_accept;
+	    if (null == accept)
 	      {
-		dtrans_group = (Vector) m_group.elementAt(j);
-		
-		if (CUtility.DEBUG)
+		if (-1 == none)
 		  {
-		    CUtility.ASSERT(false == group_found);
-		    CUtility.ASSERT(0 < dtrans_group.size());
-		  }
-
-		first = (CDTrans) dtrans_group.elementAt(0);
-		
-		if (CUtility.SLOW_DEBUG)
-		  {
-		    CDTrans check;
-		    int k;
-		    int s;
-
-		    s = dtrans_group.size();
-		    CUtility.ASSERT(0 < s);
-
-		    for (k = 1; k < s; ++k)
-		      {
-			check = (CDTrans) dtrans_group.elementAt(k);
-			CUtility.ASSERT(check.m_accept == first.m_accept);
-		      }
-		  }
-
-		if (first.m_accept == dtrans.m_accept)
-		  {
-		    dtrans_group.addElement(dtrans);
-		    m_ingroup[i] = j;
-		    group_found = true;
-		    
-		    if (CUtility.DEBUG)
-		      {
-			CUtility.ASSERT(j == m_ingroup[dtrans.m_label]);
-		      }
-
-		    break;
+		    none = nblocks++;
 		  }
+		block[s] = none;
+		continue;
 	      }
-	    
-	    if (false == group_found)
+	    b = (Integer) index.get(accept);
+	    if (null == b)
 	      {
-		dtrans_group = new Vector();
-		dtrans_group.addElement(dtrans);
-		m_ingroup[i] = m_group.size();
-		m_group.addElement(dtrans_group);
-		++group_count;
+		b = new Integer(nblocks++);
+		index.put(accept, b);
 	      }
+	    block[s] = b.intValue();
 	  }
-	
+	block[dead] = nblocks++;
+
+	/* Lay the blocks out in order, each state in its block. */
+	count = new int[nblocks];
+	for (s = 0; s <= dead; ++s)
+	  {
+	    ++count[block[s]];
+	  }
+	for (s = 0; s < nblocks; ++s)
+	  {
+	    first[s] = (0 == s) ? 0 : first[s - 1] + count[s - 1];
+	    end[s] = first[s];
+	  }
+	for (s = 0; s <= dead; ++s)
+	  {
+	    elem[end[block[s]]] = s;
+	    loc[s] = end[block[s]];
+	    ++end[block[s]];
+	  }
+
 	if (m_spec.m_verbose
 	    && true == CUtility.OLD_DUMP_DEBUG)
 	  {
-	    System.out.println("Initial grouping:");
-	    pgroups();
+	    System.out.println("Initial grouping: " + nblocks + " blocks");
 	    System.out.println();
 	  }
+	return nblocks;
       }
 
   /***************************************************************
@@ -3115,9 +4317,14 @@ class CNfa2Dfa
     Member Variables
     **************************************************************/
   private CSpec m_spec;
-  private int m_unmarked_dfa;
   private CLexGen m_lexGen;
 
+  private CNfa m_nfa[]; /* NFA states, indexed by label. */
+  private int m_cols[][]; /* Columns on which each NFA state has
+			     a transition, or null if none. */
+  private int m_closure[][]; /* Epsilon closure of each NFA state,
+				as a list of labels. */
+
   /***************************************************************
     Constants
     **************************************************************/
@@ -3134,8 +4341,8 @@ class CNfa2Dfa
       }
 
   /***************************************************************
-    Function: set 
-    Description: 
+    Function: set
+    Description:
     **************************************************************/
   private void set
     (
@@ -3145,12 +4352,11 @@ class CNfa2Dfa
       {
 	m_lexGen = lexGen;
 	m_spec = spec;
-	m_unmarked_dfa = 0;
       }
 
   /***************************************************************
-    Function: reset 
-    Description: 
+    Function: reset
+    Description:
     **************************************************************/
   private void reset
     (
@@ -3158,7 +4364,9 @@ class CNfa2Dfa
       {
 	m_lexGen = null;
 	m_spec = null;
-	m_unmarked_dfa = 0;
+	m_nfa = null;
+	m_cols = null;
+	m_closure = null;
       }
 
   /***************************************************************
@@ -3171,8 +4379,6 @@ class CNfa2Dfa
      CSpec spec
      )
       {
-	int i;
-
 	reset();
 	set(lexGen,spec);
 
@@ -3186,155 +4392,245 @@ class CNfa2Dfa
 	  }
 
 	free_dfa_states();
-      }     
+	reset();
+      }
 
    /***************************************************************
     Function: make_dtrans
     Description: Creates uncompressed CDTrans transition table.
+    Each lexical state is explored on its own, in parallel; the
+    results are then merged in lexical state order, so that DFA
+    states are numbered exactly as a single sequential pass
+    would number them.
     **************************************************************/
   private void make_dtrans
     (
      )
-     /* throws java.lang.CloneNotSupportedException*/
       {
-	CDfa next;
-	CDfa dfa;
-	CBunch bunch;
-	int i;
-	int nextstate;
-	int size;
-	CDTrans dtrans;
-	CNfa nfa;
+	CSubset subset[];
 	int istate;
 	int nstates;
-	
+
 	System.out.print("Working on DFA states.");
 
-	/* Reference passing type and initializations. */
-	bunch = new CBunch();
-	m_unmarked_dfa = 0;
+	make_closures();
 
 	/* Allocate mapping array. */
 	nstates = m_spec.m_state_rules.length;
 	m_spec.m_state_dtrans = new int[nstates];
 
+	/* CSA bugfix: if we skip all zero size rules, then
+	   an specification with no rules produces an illegal
+	   lexer (0 states) instead of a lexer that rejects
+	   everything (1 nonaccepting state). [27-Jul-1999] */
+	subset = new CSubset[nstates];
+	for (istate = 0; nstates > istate; ++istate)
+	  {
+	    subset[istate] = new CSubset(start_set(istate),
+					 m_nfa,m_cols,m_closure,
+					 m_spec.m_dtrans_ncols);
+	  }
+	ForkJoinTask.invokeAll(subset);
+
 	for (istate = 0; nstates > istate; ++istate)
 	  {
-	    /* CSA bugfix: if we skip all zero size rules, then
-	       an specification with no rules produces an illegal
-	       lexer (0 states) instead of a lexer that rejects
-	       everything (1 nonaccepting state). [27-Jul-1999]
-	    if (0 == m_spec.m_state_rules[istate].size())
-	      {
-		m_spec.m_state_dtrans[istate] = CDTrans.F;
-		continue;
-	      }
-	    */
-		
-	    /* Create start state and initialize fields. */
-	    bunch.m_nfa_set = (Vector) m_spec.m_state_rules[istate].clone();
-	    sortStates(bunch.m_nfa_set);
-	    
-	    bunch.m_nfa_bit = new SparseBitSet();
-	    
-	    /* Initialize bit set. */
-	    size = bunch.m_nfa_set.size();
-	    for (i = 0; size > i; ++i)
-	      {
-		nfa = (CNfa) bunch.m_nfa_set.elementAt(i);
-		bunch.m_nfa_bit.set(nfa.m_label);
-	      }
-	    
-	    bunch.m_accept = null;
-	    bunch.m_anchor = CSpec.NONE;
-	    bunch.m_accept_index = CUtility.INT_MAX;
-	    
-	    e_closure(bunch);
-	    add_to_dstates(bunch);
-	    
 	    m_spec.m_state_dtrans[istate] = m_spec.m_dtrans_vector.size();
+	    merge(subset[istate]);
+	    subset[istate] = null;
+	  }
 
-	    /* Main loop of CDTrans creation. */
-	    while (null != (dfa = get_unmarked()))
-	      {
-		System.out.print(".");
-		System.out.flush();
-		
-		if (CUtility.DEBUG)
-		  {
-		    CUtility.ASSERT(false == dfa.m_mark);
-		  }
+	System.out.println();
+      }
 
-		/* Get first unmarked node, then mark it. */
-		dfa.m_mark = true;
-		
-		/* Allocate new CDTrans, then initialize fields. */
-		dtrans = new CDTrans(m_spec.m_dtrans_vector.size(),m_spec);
-		dtrans.m_accept = dfa.m_accept;
-		dtrans.m_anchor = dfa.m_anchor;
-		
-		/* Set CDTrans array for each character transition. */
-		for (i = 0; i < m_spec.m_dtrans_ncols; ++i)
+  /***************************************************************
+    Function: make_closures
+    Description: Indexes the NFA by label, records the columns
+    on which each state moves, and precomputes the epsilon
+    closure of every state.
+    **************************************************************/
+  private void make_closures
+    (
+     )
+      {
+	CNfa nfa;
+	int ncols;
+	int size;
+	int count;
+	int cols[];
+	int i;
+	int c;
+
+	size = m_spec.m_nfa_states.size();
+	ncols = m_spec.m_dtrans_ncols;
+	m_nfa = new CNfa[size];
+	m_cols = new int[size][];
+	m_closure = new int[size][];
+	cols = new int[ncols];
+
+	for (i = 0; i < size; ++i)
+	  {
+	    nfa = (CNfa) m_spec.m_nfa_states.elementAt(i);
+
+	    if (CUtility.DEBUG)
+	      {
+		CUtility.ASSERT(i == nfa.m_label);
+	      }
+
+	    m_nfa[i] = nfa;
+
+	    if (null == nfa.m_next)
+	      {
+		continue;
+	      }
+
+	    if (CNfa.CCL == nfa.m_edge)
+	      {
+		count = 0;
+		for (c = 0; c < ncols; ++c)
 		  {
-		    if (CUtility.DEBUG)
+		    if (nfa.m_set.contains(c))
 		      {
-			CUtility.ASSERT(0 <= i);
-			CUtility.ASSERT(m_spec.m_dtrans_ncols > i);
+			cols[count++] = c;
 		      }
-		    
-		    /* Create new dfa set by attempting character transition. */
-		    move(dfa.m_nfa_set,dfa.m_nfa_bit,i,bunch);
-		    if (null != bunch.m_nfa_set)
-		      {
-			e_closure(bunch);
-		      }
-		    
-		    if (CUtility.DEBUG)
-		      {
-			CUtility.ASSERT((null == bunch.m_nfa_set 
-					 && null == bunch.m_nfa_bit)
-					|| (null != bunch.m_nfa_set 
-					    && null != bunch.m_nfa_bit));
-		      }
-		    
-		    /* Create new state or set state to empty. */
-		    if (null == bunch.m_nfa_set)
-		      {
-			nextstate = CDTrans.F;
-		      }
-		    else 
-		      {
-			nextstate = in_dstates(bunch);
-			
-			if (NOT_IN_DSTATES == nextstate)
-			  {
-			    nextstate = add_to_dstates(bunch);
-			  }
-		      }
-		    
-		    if (CUtility.DEBUG)
-		      {
-			CUtility.ASSERT(nextstate < m_spec.m_dfa_states.size());
-		      }
-		    
-		    dtrans.m_dtrans[i] = nextstate;
 		  }
-		
-		if (CUtility.DEBUG)
+		m_cols[i] = new int[count];
+		System.arraycopy(cols,0,m_cols[i],0,count);
+	      }
+	    else if (0 <= nfa.m_edge)
+	      {
+		m_cols[i] = new int[] { nfa.m_edge };
+	      }
+	  }
+
+	ForkJoinPool.commonPool().invoke(new CClosure(m_nfa,m_closure,
+						      0,size));
+      }
+
+  /***************************************************************
+    Function: start_set
+    Description: Returns the epsilon closure of the rules
+    of the given lexical state.
+    **************************************************************/
+  private BitSet start_set
+    (
+     int istate
+     )
+      {
+	BitSet set;
+	CNfa nfa;
+	int closure[];
+	int size;
+	int i;
+	int j;
+
+	set = new BitSet(m_nfa.length);
+	size = m_spec.m_state_rules[istate].size();
+	for (i = 0; i < size; ++i)
+	  {
+	    nfa = (CNfa) m_spec.m_state_rules[istate].elementAt(i);
+	    closure = m_closure[nfa.m_label];
+	    for (j = 0; j < closure.length; ++j)
+	      {
+		set.set(closure[j]);
+	      }
+	  }
+
+	return set;
+      }
+
+  /***************************************************************
+    Function: merge
+    Description: Adds the states reachable from the start of
+    a lexical state to the machine, breadth first and in column
+    order.  States whose NFA set is already in the machine are
+    shared rather than explored again.  As before, the start
+    state itself is always added as a new state.
+    **************************************************************/
+  private void merge
+    (
+     CSubset subset
+     )
+      {
+	int global[];
+	int queue[];
+	int head;
+	int tail;
+	int local;
+	int next;
+	int trans[];
+	CDTrans dtrans;
+	CDfa dfa;
+	int i;
+
+	global = new int[subset.m_sets.size()];
+	queue = new int[global.length];
+	for (i = 0; i < global.length; ++i)
+	  {
+	    global[i] = NOT_IN_DSTATES;
+	  }
+
+	head = 0;
+	tail = 0;
+	global[0] = add_to_dstates((BitSet) subset.m_sets.elementAt(0));
+	queue[tail++] = 0;
+
+	while (head < tail)
+	  {
+	    System.out.print(".");
+	    System.out.flush();
+
+	    local = queue[head++];
+	    dfa = (CDfa) m_spec.m_dfa_states.elementAt(global[local]);
+
+	    if (CUtility.DEBUG)
+	      {
+		CUtility.ASSERT(m_spec.m_dtrans_vector.size() == dfa.m_label);
+	      }
+
+	    if (m_spec.m_verbose && true == CUtility.OLD_DUMP_DEBUG)
+	      {
+		System.out.println("---------------");
+		System.out.println("working on DFA state "
+				   + dfa.m_label
+				   + " = NFA states: "
+				   + dfa.m_nfa_bit);
+	      }
+
+	    /* Allocate new CDTrans, then initialize fields. */
+	    dtrans = new CDTrans(dfa.m_label,m_spec);
+	    dtrans.m_accept = dfa.m_accept;
+	    dtrans.m_anchor = dfa.m_anchor;
+
+	    trans = (int[]) subset.m_trans.elementAt(local);
+	    for (i = 0; i < m_spec.m_dtrans_ncols; ++i)
+	      {
+		next = trans[i];
+		if (CDTrans.F == next)
 		  {
-		    CUtility.ASSERT(m_spec.m_dtrans_vector.size() == dfa.m_label);
+		    dtrans.m_dtrans[i] = CDTrans.F;
+		    continue;
 		  }
-		
-		m_spec.m_dtrans_vector.addElement(dtrans);
+
+		if (NOT_IN_DSTATES == global[next])
+		  {
+		    global[next] = in_dstates((BitSet) subset.m_sets.elementAt(next));
+		    if (NOT_IN_DSTATES == global[next])
+		      {
+			global[next] = add_to_dstates((BitSet) subset.m_sets.elementAt(next));
+			queue[tail++] = next;
+		      }
+		  }
+
+		dtrans.m_dtrans[i] = global[next];
 	      }
-	  }
 
-	System.out.println();
+	    m_spec.m_dtrans_vector.addElement(dtrans);
+	  }
       }
 
   /***************************************************************
     Function: free_dfa_states
-    **************************************************************/  
+    **************************************************************/
   private void free_dfa_states
     (
      )
@@ -3345,7 +4641,7 @@ class CNfa2Dfa
 
   /***************************************************************
     Function: free_nfa_states
-    **************************************************************/  
+    **************************************************************/
   private void free_nfa_states
     (
      )
@@ -3359,500 +4655,820 @@ class CNfa2Dfa
       }
 
   /***************************************************************
-    Function: e_closure
-    Description: Alters and returns input set.
+    function: add_to_dstates
+    Description: Takes as input the set of NFA states of
+    a dfa state that needs to be created.
+    1) Allocates a new dfa state and saves it in
+    the appropriate CSpec vector.
+    2) Initializes the fields of the dfa state, taking
+    the accepting action of the lowest numbered accepting
+    NFA state in the set.
+    3) Returns index of new dfa.
     **************************************************************/
-  private void e_closure
+  private int add_to_dstates
     (
-     CBunch bunch
+     BitSet nfa_bit
      )
       {
-	Stack nfa_stack;
-	int size;
+	CDfa dfa;
+	CNfa nfa;
 	int i;
-	CNfa state;
 
-	/* Debug checks. */
+	/* Allocate, passing CSpec so dfa label can be set. */
+	dfa = CAlloc.newCDfa(m_spec);
+
+	/* Initialize fields, including the mark field. */
+	dfa.m_nfa_bit = nfa_bit;
+	dfa.m_accept = null;
+	dfa.m_anchor = CSpec.NONE;
+	dfa.m_mark = false;
+
+	for (i = nfa_bit.nextSetBit(0); 0 <= i; i = nfa_bit.nextSetBit(i + 1))
+	  {
+	    nfa = m_nfa[i];
+	    if (null != nfa.m_accept)
+	      {
+		dfa.m_accept = nfa.m_accept;
+		dfa.m_anchor = nfa.m_anchor;
+		break;
+	      }
+	  }
+
 	if (CUtility.DEBUG)
 	  {
-	    CUtility.ASSERT(null != bunch);
-	    CUtility.ASSERT(null != bunch.m_nfa_set);
-	    CUtility.ASSERT(null != bunch.m_nfa_bit);
+	    CUtility.ASSERT(null != dfa.m_accept
+			    || CSpec.NONE == dfa.m_anchor);
 	  }
 
-	bunch.m_accept = null;
-	bunch.m_anchor = CSpec.NONE;
-	bunch.m_accept_index = CUtility.INT_MAX;
-	
-	/* Create initial stack. */
-	nfa_stack = new Stack();
-	size = bunch.m_nfa_set.size();
-	for (i = 0; i < size; ++i)
+	/* Register dfa state using BitSet in CSpec Hashtable. */
+	m_spec.m_dfa_sets.put(dfa.m_nfa_bit,dfa);
+
+	if (CUtility.OLD_DUMP_DEBUG)
 	  {
-	    state = (CNfa) bunch.m_nfa_set.elementAt(i);
-	    
-	    if (CUtility.DEBUG)
-	      {
-		CUtility.ASSERT(bunch.m_nfa_bit.get(state.m_label));
-	      }
+	    System.out.println("Registering set : " + dfa.m_nfa_bit);
+	  }
+
+	return dfa.m_label;
+      }
+
+  /***************************************************************
+    Function: in_dstates
+    **************************************************************/
+  private int in_dstates
+    (
+     BitSet nfa_bit
+     )
+      {
+	CDfa dfa;
 
-	    nfa_stack.push(state);
+	dfa = (CDfa) m_spec.m_dfa_sets.get(nfa_bit);
+
+	if (null != dfa)
+	  {
+	    return dfa.m_label;
 	  }
 
-	/* Main loop. */
-	while (false == nfa_stack.empty())
+	return NOT_IN_DSTATES;
+      }
+}
+
+/***************************************************************
+  Class: CClosure
+  Description: Computes the epsilon closures of a range of
+  NFA states, splitting the range across the fork-join pool.
+  Each closure is a list of labels in ascending order.
+ **************************************************************/
+class CClosure extends RecursiveAction
+{
+  /***************************************************************
+    Member Variables
+    **************************************************************/
+  private CNfa m_nfa[];
+  private int m_closure[][];
+  private int m_lo;
+  private int m_hi;
+
+  /***************************************************************
+    Constants
+    **************************************************************/
+  private static final int GRAIN = 256;
+
+  /***************************************************************
+    Function: CClosure
+    **************************************************************/
+  CClosure
+    (
+     CNfa nfa[],
+     int closure[][],
+     int lo,
+     int hi
+     )
+      {
+	m_nfa = nfa;
+	m_closure = closure;
+	m_lo = lo;
+	m_hi = hi;
+      }
+
+  /***************************************************************
+    Function: compute
+    **************************************************************/
+  protected void compute
+    (
+     )
+      {
+	int mid;
+
+	if (GRAIN < m_hi - m_lo)
 	  {
-	    state = (CNfa) nfa_stack.pop();
-	    
-	    if (CUtility.OLD_DUMP_DEBUG)
-	      {
-		if (null != state.m_accept)
-		  {
-		    System.out.println("Looking at accepting state " + state.m_label
-				       + " with <"
-				       + (new String(state.m_accept.m_action,0,
-						     state.m_accept.m_action_read))
-				       + ">");
-		  }
-	      }
+	    mid = (m_lo + m_hi) >>> 1;
+	    invokeAll(new CClosure(m_nfa,m_closure,m_lo,mid),
+		      new CClosure(m_nfa,m_closure,mid,m_hi));
+	    return;
+	  }
 
-	    if (null != state.m_accept 
-		&& state.m_label < bunch.m_accept_index)
-	      {
-		bunch.m_accept_index = state.m_label;
-		bunch.m_accept = state.m_accept;
-		bunch.m_anchor = state.m_anchor;
+	closures();
+      }
 
-		if (CUtility.OLD_DUMP_DEBUG)
-		  {
-		    System.out.println("Found accepting state " + state.m_label
-				       + " with <"
-				       + (new String(state.m_accept.m_action,0,
-						     state.m_accept.m_action_read))
-				       + ">");
-		  }
+  /***************************************************************
+    Function: closures
+    Description: Depth first search along epsilon edges, using
+    a stamp per state so the marks need not be cleared.
+    **************************************************************/
+  private void closures
+    (
+     )
+      {
+	int stamp[];
+	int stack[];
+	int found[];
+	int count;
+	int top;
+	int s;
+	int i;
+	CNfa nfa;
 
-		if (CUtility.DEBUG)
-		  {
-		    CUtility.ASSERT(null != bunch.m_accept);
-		    CUtility.ASSERT(CSpec.NONE == bunch.m_anchor
-				    || 0 != (bunch.m_anchor & CSpec.END)
-				    || 0 != (bunch.m_anchor & CSpec.START));
-		  }
-	      }
+	stamp = new int[m_nfa.length];
+	stack = new int[m_nfa.length];
+	found = new int[m_nfa.length];
+
+	for (s = m_lo; s < m_hi; ++s)
+	  {
+	    count = 0;
+	    top = 0;
+	    stamp[s] = s + 1;
+	    stack[top++] = s;
 
-	    if (CNfa.EPSILON == state.m_edge)
+	    while (0 < top)
 	      {
-		if (null != state.m_next)
+		i = stack[--top];
+		found[count++] = i;
+		nfa = m_nfa[i];
+
+		if (CNfa.EPSILON == nfa.m_edge)
 		  {
-		    if (false == bunch.m_nfa_set.contains(state.m_next))
+		    if (null != nfa.m_next
+			&& s + 1 != stamp[nfa.m_next.m_label])
 		      {
-			if (CUtility.DEBUG)
-			  {
-			    CUtility.ASSERT(false == bunch.m_nfa_bit.get(state.m_next.m_label));
-			  }
-			
-			bunch.m_nfa_bit.set(state.m_next.m_label);
-			bunch.m_nfa_set.addElement(state.m_next);
-			nfa_stack.push(state.m_next);
+			stamp[nfa.m_next.m_label] = s + 1;
+			stack[top++] = nfa.m_next.m_label;
 		      }
-		  }
 
-		if (null != state.m_next2)
-		  {
-		    if (false == bunch.m_nfa_set.contains(state.m_next2))
+		    if (null != nfa.m_next2
+			&& s + 1 != stamp[nfa.m_next2.m_label])
 		      {
-			if (CUtility.DEBUG)
-			  {
-			    CUtility.ASSERT(false == bunch.m_nfa_bit.get(state.m_next2.m_label));
-			  }
-			
-			bunch.m_nfa_bit.set(state.m_next2.m_label);
-			bunch.m_nfa_set.addElement(state.m_next2);
-			nfa_stack.push(state.m_next2);
+			stamp[nfa.m_next2.m_label] = s + 1;
+			stack[top++] = nfa.m_next2.m_label;
 		      }
 		  }
 	      }
-	  }
 
-	if (null != bunch.m_nfa_set)
-	  {
-	    sortStates(bunch.m_nfa_set);
+	    m_closure[s] = new int[count];
+	    System.arraycopy(found,0,m_closure[s],0,count);
+	    Arrays.sort(m_closure[s]);
 	  }
+      }
+}
 
-	return;
+/***************************************************************
+  Class: CSubset
+  Description: Subset construction for a single lexical state.
+  Discovers the DFA states reachable from the start set, in
+  breadth first, column order, as dense bitsets of NFA labels.
+  Shares only read-only NFA data, so that lexical states can
+  be explored concurrently.
+ **************************************************************/
+class CSubset extends RecursiveAction
+{
+  /***************************************************************
+    Member Variables
+    **************************************************************/
+  private CNfa m_nfa[];
+  private int m_cols[][];
+  private int m_closure[][];
+  private int m_ncols;
+
+  Vector m_sets; /* NFA set (BitSet) of each local state;
+		    the start set is state 0. */
+  Vector m_trans; /* Transitions (int[]) of each local state,
+		     in local state numbers, or CDTrans.F. */
+
+  /***************************************************************
+    Function: CSubset
+    **************************************************************/
+  CSubset
+    (
+     BitSet start,
+     CNfa nfa[],
+     int cols[][],
+     int closure[][],
+     int ncols
+     )
+      {
+	m_nfa = nfa;
+	m_cols = cols;
+	m_closure = closure;
+	m_ncols = ncols;
+
+	m_sets = new Vector();
+	m_trans = new Vector();
+	m_sets.addElement(start);
       }
 
   /***************************************************************
-    Function: move
-    Description: Returns null if resulting NFA set is empty.
+    Function: compute
     **************************************************************/
-  void move
+  protected void compute
     (
-     Vector nfa_set,
-     SparseBitSet nfa_bit,
-     int b,
-     CBunch bunch
      )
       {
-	int size;
-	int index;
-	CNfa state;
-	
-	bunch.m_nfa_set = null;
-	bunch.m_nfa_bit = null;
+	Hashtable index;
+	BitSet set;
+	BitSet move[];
+	int trans[];
+	int cols[];
+	int closure[];
+	Integer state;
+	int local;
+	int s;
+	int i;
+	int j;
 
-	size = nfa_set.size();
-	for (index = 0; index < size; ++index)
+	index = new Hashtable();
+	index.put(m_sets.elementAt(0),new Integer(0));
+	move = new BitSet[m_ncols];
+
+	for (local = 0; local < m_sets.size(); ++local)
 	  {
-	    state = (CNfa) nfa_set.elementAt(index);
-	    
-	    if (b == state.m_edge
-		|| (CNfa.CCL == state.m_edge
-		    && true == state.m_set.contains(b)))
+	    set = (BitSet) m_sets.elementAt(local);
+
+	    /* Move on every column at once. */
+	    for (s = set.nextSetBit(0); 0 <= s; s = set.nextSetBit(s + 1))
 	      {
-		if (null == bunch.m_nfa_set)
+		cols = m_cols[s];
+		if (null == cols)
 		  {
-		    if (CUtility.DEBUG)
+		    continue;
+		  }
+
+		closure = m_closure[m_nfa[s].m_next.m_label];
+		for (i = 0; i < cols.length; ++i)
+		  {
+		    if (null == move[cols[i]])
 		      {
-			CUtility.ASSERT(null == bunch.m_nfa_bit);
+			move[cols[i]] = new BitSet(m_nfa.length);
+		      }
+		    for (j = 0; j < closure.length; ++j)
+		      {
+			move[cols[i]].set(closure[j]);
 		      }
-		    
-		    bunch.m_nfa_set = new Vector();
-		    /*bunch.m_nfa_bit 
-			= new SparseBitSet(m_spec.m_nfa_states.size());*/
-		    bunch.m_nfa_bit = new SparseBitSet();
 		  }
-
-		bunch.m_nfa_set.addElement(state.m_next);
-		/*System.out.println("Size of bitset: " + bunch.m_nfa_bit.size());
-		System.out.println("Reference index: " + state.m_next.m_label);
-		System.out.flush();*/
-		bunch.m_nfa_bit.set(state.m_next.m_label);
 	      }
-	  }
-	
-	if (null != bunch.m_nfa_set)
-	  {
-	    if (CUtility.DEBUG)
+
+	    trans = new int[m_ncols];
+	    for (i = 0; i < m_ncols; ++i)
 	      {
-		CUtility.ASSERT(null != bunch.m_nfa_bit);
+		if (null == move[i])
+		  {
+		    trans[i] = CDTrans.F;
+		    continue;
+		  }
+
+		state = (Integer) index.get(move[i]);
+		if (null == state)
+		  {
+		    state = new Integer(m_sets.size());
+		    index.put(move[i],state);
+		    m_sets.addElement(move[i]);
+		  }
+		trans[i] = state.intValue();
+		move[i] = null;
 	      }
-	    
-	    sortStates(bunch.m_nfa_set);
+	    m_trans.addElement(trans);
 	  }
-
-	return;
       }
+}
 
+/***************************************************************
+  Class: CAlloc
+  **************************************************************/
+class CAlloc
+{
   /***************************************************************
-    Function: sortStates
+    Function: newCDfa
     **************************************************************/
-  private void sortStates
+  static CDfa newCDfa
     (
-     Vector nfa_set
+     CSpec spec
      )
       {
-	CNfa elem;
-	int begin;
-	int size;
-	int index;
-	int value;
-	int smallest_index;
-	int smallest_value;
-	CNfa begin_elem;
-
-	size = nfa_set.size();
-	for (begin = 0; begin < size; ++begin)
-	  {
-	    elem = (CNfa) nfa_set.elementAt(begin);
-	    smallest_value = elem.m_label;
-	    smallest_index = begin;
+	CDfa dfa;
+	
+	dfa = new CDfa(spec.m_dfa_states.size());
+	spec.m_dfa_states.addElement(dfa);
 
-	    for (index = begin + 1; index < size; ++index)
-	      {
-		elem = (CNfa) nfa_set.elementAt(index);
-		value = elem.m_label;
+	return dfa;
+      }
 
-		if (value < smallest_value)
-		  {
-		    smallest_index = index;
-		    smallest_value = value;
-		  }
-	      }
+  /***************************************************************
+    Function: newCNfaPair
+    Description: 
+    **************************************************************/
+  static CNfaPair newCNfaPair
+    (
+     )
+      {
+	CNfaPair pair = new CNfaPair();
+	
+	return pair;
+      }
+  /***************************************************************
+    Function: newNLPair
+    Description: return a new CNfaPair that matches a new 
+                 line: (\r\n?|[\n\uu2028\uu2029])
+		 Added by CSA 8-Aug-1999, updated 10-Aug-1999
+    **************************************************************/
+  static CNfaPair newNLPair(CSpec spec) {
+    CNfaPair pair = newCNfaPair();
+    pair.m_end=newCNfa(spec); // newline accepting state
+    pair.m_start=newCNfa(spec); // new state with two epsilon edges
+    pair.m_start.m_next = newCNfa(spec);
+    pair.m_start.m_next.m_edge = CNfa.CCL;
+    pair.m_start.m_next.m_set = new CSet();
+    pair.m_start.m_next.m_set.add('\n');
+    if (spec.m_dtrans_ncols-CSpec.NUM_PSEUDO > 2029) {
+      pair.m_start.m_next.m_set.add(2028); /*U+2028 is LS, the line separator*/
+      pair.m_start.m_next.m_set.add(2029); /*U+2029 is PS, the paragraph sep.*/
+    }
+    pair.m_start.m_next.m_next = pair.m_end; // accept '\n', U+2028, or U+2029
+    pair.m_start.m_next2 = newCNfa(spec);
+    pair.m_start.m_next2.m_edge = '\r';
+    pair.m_start.m_next2.m_next = newCNfa(spec);
+    pair.m_start.m_next2.m_next.m_next = pair.m_end; // accept '\r';
+    pair.m_start.m_next2.m_next.m_next2 = newCNfa(spec);
+    pair.m_start.m_next2.m_next.m_next2.m_edge = '\n';
+    pair.m_start.m_next2.m_next.m_next2.m_next = pair.m_end; // accept '\r\n';
+    return pair;
+  }
 
-	    begin_elem = (CNfa) nfa_set.elementAt(begin);
-	    elem = (CNfa) nfa_set.elementAt(smallest_index);
-	    nfa_set.setElementAt(elem,begin);
-	    nfa_set.setElementAt(begin_elem,smallest_index);
-	  }
+  /***************************************************************
+    Function: newCNfa
+    Description: 
+    **************************************************************/
+  static CNfa newCNfa
+    (
+     CSpec spec
+     )
+      {
+	CNfa p;
 
-	if (CUtility.OLD_DEBUG)
-	  {
-	    System.out.print("NFA vector indices: ");  
-	    
-	    for (index = 0; index < size; ++index)
-	      {
-		elem = (CNfa) nfa_set.elementAt(index);
-		System.out.print(elem.m_label + " ");
-	      }
-	    System.out.println();
-	  }	
+	/* UNDONE: Buffer this? */
 
-	return;
+	p = new CNfa();
+	
+	/*p.m_label = spec.m_nfa_states.size();*/
+	spec.m_nfa_states.addElement(p);
+	p.m_edge = CNfa.EPSILON;
+	
+	return p;
       }
+}
 
+/***************************************************************
+  Class: Main
+  Description: Top-level lexical analyzer generator function.
+ **************************************************************/
+public class Main
+{
   /***************************************************************
-    Function: get_unmarked
-    Description: Returns next unmarked DFA state.
+    Function: main
     **************************************************************/
-  private CDfa get_unmarked
+  public static void main
     (
+     String arg[]
      )
+    throws java.io.IOException
       {
-	int size;
-	CDfa dfa;
+	CLexGen lg;
+	CCache cache;
+	String filename;
 
-	size = m_spec.m_dfa_states.size();
-	while (m_unmarked_dfa < size)
+	if (3 == arg.length && arg[0].equals("-cache"))
 	  {
-	    dfa = (CDfa) m_spec.m_dfa_states.elementAt(m_unmarked_dfa);
-
-	    if (false == dfa.m_mark)
-	      {
-		if (CUtility.OLD_DUMP_DEBUG)
-		  {
-		    System.out.print("*");
-		    System.out.flush();
-		  }
+	    filename = arg[2];
+	    cache = new CCache(arg[1],filename);
+	  }
+	else if (1 == arg.length)
+	  {
+	    filename = arg[0];
+	    cache = null;
+	  }
+	else
+	  {
+	    System.out.println("Usage: JLex.Main [-cache <directory>] "
+			       + "<filename>");
+	    return;
+	  }
 
-		if (m_spec.m_verbose && true == CUtility.OLD_DUMP_DEBUG)
-		  {
-		    System.out.println("---------------");
-		    System.out.print("working on DFA state " 
-				     + m_unmarked_dfa
-				     + " = NFA states: ");
-		    m_lexGen.print_set(dfa.m_nfa_set);
-		    System.out.println();
-		  }
+	if (null != cache && cache.restore())
+	  {
+	    System.out.println("Reused cached lexer for " + filename + ".");
+	    return;
+	  }
 
-		return dfa;
-	      }
+	/* Note: For debuging, it may be helpful to remove the try/catch
+	   block and permit the Exception to propagate to the top level. 
+	   This gives more information. */
+	try 
+	  {	
+	    lg = new CLexGen(filename);
+	    lg.generate();
+	  }
+	catch (Error e)
+	  {
+	    System.out.println(e.getMessage());
+	    return;
+	  }
 
-	    ++m_unmarked_dfa;
+	if (null != cache)
+	  {
+	    cache.store(lg.outputs());
 	  }
+      }
+}    
 
-	return null;
+/***************************************************************
+  Class: CCache
+  Description: Content-addressed cache of generated lexers.
+  An entry is keyed by a digest of the generator's own class
+  files and of the specification, so a changed spec or a rebuilt
+  JLex never hits a stale entry.  Each entry is a directory
+  holding the generated source as lexer.java, plus any table
+  resource under its own name.  Entries are written to a scratch
+  directory and renamed into place, so concurrent builds never
+  see a partial entry.  Cache failures are reported, and the
+  lexer is then simply generated as usual.
+  **************************************************************/
+class CCache
+{
+  /***************************************************************
+    Member Variables
+    **************************************************************/
+  private java.io.File m_dir; /* Cache directory. */
+  private String m_filename; /* Name of the specification file. */
+  private String m_key; /* Hex digest, or null if unavailable. */
+
+  /***************************************************************
+    Constants
+    **************************************************************/
+  private static final String SOURCE = "lexer.java";
+  private static final String PACKAGE = "JLex/";
+
+  /***************************************************************
+    Function: CCache
+    **************************************************************/
+  CCache
+    (
+     String dir,
+     String filename
+     )
+      {
+	m_dir = new java.io.File(dir);
+	m_filename = filename;
+
+	try
+	  {
+	    m_key = digest();
+	  }
+	catch (java.io.IOException e)
+	  {
+	    System.out.println("Warning: Lexer cache disabled: " + e);
+	    m_key = null;
+	  }
+	catch (java.security.NoSuchAlgorithmException e)
+	  {
+	    System.out.println("Warning: Lexer cache disabled: " + e);
+	    m_key = null;
+	  }
       }
-  
+
   /***************************************************************
-    function: add_to_dstates
-    Description: Takes as input a CBunch with details of
-    a dfa state that needs to be created.
-    1) Allocates a new dfa state and saves it in 
-    the appropriate CSpec vector.
-    2) Initializes the fields of the dfa state
-    with the information in the CBunch.
-    3) Returns index of new dfa.
+    Function: digest
+    Description: Hashes every class file of the JLex package, as
+    loaded from its directory or jar, and the spec.
     **************************************************************/
-  private int add_to_dstates
+  private String digest
     (
-     CBunch bunch
      )
+      throws java.io.IOException, java.security.NoSuchAlgorithmException
       {
-	CDfa dfa;
-	
-	if (CUtility.DEBUG)
+	java.security.MessageDigest md;
+	java.security.CodeSource source;
+	java.io.File location;
+	StringBuffer hex;
+	byte sum[];
+	int i;
+
+	source = CCache.class.getProtectionDomain().getCodeSource();
+	if (null == source || null == source.getLocation())
+	  {
+	    throw new java.io.IOException("cannot locate the JLex classes");
+	  }
+	try
+	  {
+	    location = new java.io.File(source.getLocation().toURI());
+	  }
+	catch (java.net.URISyntaxException e)
+	  {
+	    throw new java.io.IOException("cannot locate the JLex classes: "
+					  + source.getLocation());
+	  }
+	catch (IllegalArgumentException e)
+	  {
+	    throw new java.io.IOException("cannot locate the JLex classes: "
+					  + source.getLocation());
+	  }
+
+	md = java.security.MessageDigest.getInstance("SHA-256");
+	if (location.isDirectory())
+	  {
+	    updateDirectory(md,new java.io.File(location,PACKAGE));
+	  }
+	else
 	  {
-	    CUtility.ASSERT(null != bunch.m_nfa_set);
-	    CUtility.ASSERT(null != bunch.m_nfa_bit);
-	    CUtility.ASSERT(null != bunch.m_accept 
-			    || CSpec.NONE == bunch.m_anchor);
+	    updateJar(md,location);
 	  }
+	update(md,new java.io.FileInputStream(m_filename));
 
-	/* Allocate, passing CSpec so dfa label can be set. */
-	dfa = CAlloc.newCDfa(m_spec);
-	
-	/* Initialize fields, including the mark field. */
-	dfa.m_nfa_set = (Vector) bunch.m_nfa_set.clone();
-	dfa.m_nfa_bit = (SparseBitSet) bunch.m_nfa_bit.clone();
-	dfa.m_accept = bunch.m_accept;
-	dfa.m_anchor = bunch.m_anchor;
-	dfa.m_mark = false;
-	
-	/* Register dfa state using BitSet in CSpec Hashtable. */
-	m_spec.m_dfa_sets.put(dfa.m_nfa_bit,dfa);
-	/*registerCDfa(dfa);*/
-
-	if (CUtility.OLD_DUMP_DEBUG)
+	sum = md.digest();
+	hex = new StringBuffer();
+	for (i = 0; i < sum.length; ++i)
 	  {
-	    System.out.print("Registering set : ");
-	    m_lexGen.print_set(dfa.m_nfa_set);
-	    System.out.println();
+	    hex.append(Character.forDigit((sum[i] >> 4) & 0xf,16));
+	    hex.append(Character.forDigit(sum[i] & 0xf,16));
 	  }
-
-	return dfa.m_label;
+	return hex.toString();
       }
 
   /***************************************************************
-    Function: in_dstates
+    Function: updateDirectory
+    Description: Feeds the names and contents of the class files
+    in a package directory, in name order.
     **************************************************************/
-  private int in_dstates
+  private void updateDirectory
     (
-     CBunch bunch
+     java.security.MessageDigest md,
+     java.io.File dir
      )
+      throws java.io.IOException
       {
-	CDfa dfa;
-	
-	if (CUtility.OLD_DEBUG)
+	String names[];
+	int i;
+
+	names = dir.list();
+	if (null == names)
 	  {
-	    System.out.print("Looking for set : ");
-	    m_lexGen.print_set(bunch.m_nfa_set);
+	    throw new java.io.IOException("cannot list " + dir);
 	  }
-
-	dfa = (CDfa) m_spec.m_dfa_sets.get(bunch.m_nfa_bit);
-
-	if (null != dfa)
+	java.util.Arrays.sort(names);
+	for (i = 0; i < names.length; ++i)
 	  {
-	    if (CUtility.OLD_DUMP_DEBUG)
+	    if (names[i].endsWith(".class"))
 	      {
-		System.out.println(" FOUND!");
+		md.update(names[i].getBytes("UTF-8"));
+		update(md,new java.io.FileInputStream(new java.io.File(dir,names[i])));
 	      }
-	    
-	    return dfa.m_label;
-	  }
-
-	if (CUtility.OLD_DUMP_DEBUG)
-	  {
-	    System.out.println(" NOT FOUND!");
 	  }
-	return NOT_IN_DSTATES;
       }
 
-}
-
-/***************************************************************
-  Class: CAlloc
-  **************************************************************/
-class CAlloc
-{
   /***************************************************************
-    Function: newCDfa
+    Function: updateJar
+    Description: Feeds the names and contents of the class files
+    of the JLex package in a jar, in name order.
     **************************************************************/
-  static CDfa newCDfa
+  private void updateJar
     (
-     CSpec spec
+     java.security.MessageDigest md,
+     java.io.File file
      )
+      throws java.io.IOException
       {
-	CDfa dfa;
-	
-	dfa = new CDfa(spec.m_dfa_states.size());
-	spec.m_dfa_states.addElement(dfa);
+	java.util.jar.JarFile jar;
+	java.util.Enumeration entries;
+	java.util.Vector found;
+	String names[];
+	String name;
+	int i;
 
-	return dfa;
+	jar = new java.util.jar.JarFile(file);
+	try
+	  {
+	    found = new java.util.Vector();
+	    entries = jar.entries();
+	    while (entries.hasMoreElements())
+	      {
+		name = ((java.util.jar.JarEntry) entries.nextElement()).getName();
+		if (name.startsWith(PACKAGE)
+		    && name.endsWith(".class")
+		    && -1 == name.indexOf('/',PACKAGE.length()))
+		  {
+		    found.addElement(name);
+		  }
+	      }
+	    if (0 == found.size())
+	      {
+		throw new java.io.IOException("no JLex classes in " + file);
+	      }
+
+	    names = new String[found.size()];
+	    found.copyInto(names);
+	    java.util.Arrays.sort(names);
+	    for (i = 0; i < names.length; ++i)
+	      {
+		md.update(names[i].substring(PACKAGE.length()).getBytes("UTF-8"));
+		update(md,jar.getInputStream(jar.getJarEntry(names[i])));
+	      }
+	  }
+	finally
+	  {
+	    jar.close();
+	  }
       }
 
   /***************************************************************
-    Function: newCNfaPair
-    Description: 
+    Function: update
+    Description: Feeds and closes an input stream.
     **************************************************************/
-  static CNfaPair newCNfaPair
+  private void update
     (
+     java.security.MessageDigest md,
+     java.io.InputStream in
      )
+      throws java.io.IOException
       {
-	CNfaPair pair = new CNfaPair();
-	
-	return pair;
+	byte buf[];
+	int n;
+
+	buf = new byte[8192];
+	try
+	  {
+	    while (0 < (n = in.read(buf)))
+	      {
+		md.update(buf,0,n);
+	      }
+	  }
+	finally
+	  {
+	    in.close();
+	  }
       }
-  /***************************************************************
-    Function: newNLPair
-    Description: return a new CNfaPair that matches a new 
-                 line: (\r\n?|[\n\uu2028\uu2029])
-		 Added by CSA 8-Aug-1999, updated 10-Aug-1999
-    **************************************************************/
-  static CNfaPair newNLPair(CSpec spec) {
-    CNfaPair pair = newCNfaPair();
-    pair.m_end=newCNfa(spec); // newline accepting state
-    pair.m_start=newCNfa(spec); // new state with two epsilon edges
-    pair.m_start.m_next = newCNfa(spec);
-    pair.m_start.m_next.m_edge = CNfa.CCL;
-    pair.m_start.m_next.m_set = new CSet();
-    pair.m_start.m_next.m_set.add('\n');
-    if (spec.m_dtrans_ncols-CSpec.NUM_PSEUDO > 2029) {
-      pair.m_start.m_next.m_set.add(2028); /*U+2028 is LS, the line separator*/
-      pair.m_start.m_next.m_set.add(2029); /*U+2029 is PS, the paragraph sep.*/
-    }
-    pair.m_start.m_next.m_next = pair.m_end; // accept '\n', U+2028, or U+2029
-    pair.m_start.m_next2 = newCNfa(spec);
-    pair.m_start.m_next2.m_edge = '\r';
-    pair.m_start.m_next2.m_next = newCNfa(spec);
-    pair.m_start.m_next2.m_next.m_next = pair.m_end; // accept '\r';
-    pair.m_start.m_next2.m_next.m_next2 = newCNfa(spec);
-    pair.m_start.m_next2.m_next.m_next2.m_edge = '\n';
-    pair.m_start.m_next2.m_next.m_next2.m_next = pair.m_end; // accept '\r\n';
-    return pair;
-  }
 
   /***************************************************************
-    Function: newCNfa
-    Description: 
+    Function: restore
+    Description: Copies a cached entry into place beside the
+    spec.  Returns false if there is no usable entry.
     **************************************************************/
-  static CNfa newCNfa
+  boolean restore
     (
-     CSpec spec
      )
       {
-	CNfa p;
+	java.io.File entry;
+	java.io.File dir;
+	String names[];
+	int i;
 
-	/* UNDONE: Buffer this? */
+	if (null == m_key)
+	  {
+	    return false;
+	  }
 
-	p = new CNfa();
-	
-	/*p.m_label = spec.m_nfa_states.size();*/
-	spec.m_nfa_states.addElement(p);
-	p.m_edge = CNfa.EPSILON;
-	
-	return p;
+	entry = new java.io.File(m_dir,m_key);
+	names = entry.list();
+	if (null == names)
+	  {
+	    return false;
+	  }
+
+	dir = new java.io.File(m_filename).getAbsoluteFile().getParentFile();
+	try
+	  {
+	    for (i = 0; i < names.length; ++i)
+	      {
+		if (SOURCE.equals(names[i]))
+		  {
+		    copy(new java.io.File(entry,names[i]),
+			 new java.io.File(m_filename + ".java"));
+		  }
+		else
+		  {
+		    copy(new java.io.File(entry,names[i]),
+			 new java.io.File(dir,names[i]));
+		  }
+	      }
+	  }
+	catch (java.io.IOException e)
+	  {
+	    System.out.println("Warning: Unable to reuse cached lexer: " + e);
+	    return false;
+	  }
+
+	return true;
       }
-}
 
-/***************************************************************
-  Class: Main
-  Description: Top-level lexical analyzer generator function.
- **************************************************************/
-public class Main
-{
   /***************************************************************
-    Function: main
+    Function: store
+    Description: Saves the generated files as a new entry.  The
+    first file is the generated source.
     **************************************************************/
-  public static void main
+  void store
     (
-     String arg[]
+     Vector outputs
      )
-    throws java.io.IOException
       {
-	CLexGen lg;
+	java.io.File scratch;
+	java.io.File file;
+	String names[];
+	int i;
 
-	if (arg.length < 1)
+	if (null == m_key)
 	  {
-	    System.out.println("Usage: JLex.Main <filename>");
 	    return;
 	  }
 
-	/* Note: For debuging, it may be helpful to remove the try/catch
-	   block and permit the Exception to propagate to the top level. 
-	   This gives more information. */
-	try 
-	  {	
-	    lg = new CLexGen(arg[0]);
-	    lg.generate();
+	scratch = null;
+	try
+	  {
+	    if (false == m_dir.isDirectory() && false == m_dir.mkdirs())
+	      {
+		throw new java.io.IOException("cannot create " + m_dir);
+	      }
+
+	    scratch = java.nio.file.Files.createTempDirectory(
+		m_dir.toPath(),m_key + ".").toFile();
+	    for (i = 0; i < outputs.size(); ++i)
+	      {
+		file = (java.io.File) outputs.elementAt(i);
+		copy(file,new java.io.File(scratch,
+					   (0 == i) ? SOURCE : file.getName()));
+	      }
+
+	    /* Losing a race to another build is fine: its entry
+	       holds the same files. */
+	    if (scratch.renameTo(new java.io.File(m_dir,m_key)))
+	      {
+		scratch = null;
+	      }
 	  }
-	catch (Error e)
+	catch (java.io.IOException e)
 	  {
-	    System.out.println(e.getMessage());
+	    System.out.println("Warning: Unable to cache lexer: " + e);
+	  }
+
+	if (null != scratch)
+	  {
+	    names = scratch.list();
+	    for (i = 0; null != names && i < names.length; ++i)
+	      {
+		new java.io.File(scratch,names[i]).delete();
+	      }
+	    scratch.delete();
 	  }
       }
-}    
+
+  /***************************************************************
+    Function: copy
+    **************************************************************/
+  private void copy
+    (
+     java.io.File from,
+     java.io.File to
+     )
+      throws java.io.IOException
+      {
+	java.nio.file.Files.copy(from.toPath(),to.toPath(),
+				 java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+      }
+}
 
 /***************************************************************
   Class: CDTrans
@@ -3900,8 +5516,7 @@ class CDfa
   boolean m_mark;
   CAccept m_accept;
   int m_anchor;
-  Vector m_nfa_set;
-  SparseBitSet m_nfa_bit;
+  BitSet m_nfa_bit;
   int m_label;
 
   /***************************************************************
@@ -3918,7 +5533,6 @@ class CDfa
 	m_accept = null;
 	m_anchor = CSpec.NONE;
 
-	m_nfa_set = null;
 	m_nfa_bit = null;
 
 	m_label = label;
@@ -4817,6 +6431,8 @@ class CLexGen
   private CSimplifyNfa m_simplifyNfa; /* NFA simplifier using char classes */
   private CEmit m_emit; /* Output module that emits source code
 			   into the generated lexer file. */
+  private String m_filename; /* Name of the specification file. */
+  private Vector m_outputs; /* Files written by generate(). */
 
 
   /********************************************************
@@ -4858,6 +6474,8 @@ class CLexGen
       {
 	/* Successful initialization flag. */
 	m_init_flag = false;
+	m_filename = filename;
+	m_outputs = new Vector();
 	
 	/* Open input stream. */
 	m_instream = new java.io.FileReader(filename);
@@ -4977,12 +6595,37 @@ class CLexGen
 	  }
 	m_emit.emit(m_spec,m_outstream);
 
+	if (m_spec.m_table_resource)
+	  {
+	    /* The resource goes beside the generated source file. */
+	    java.io.File dir 
+	      = new java.io.File(m_filename).getAbsoluteFile().getParentFile();
+	    java.io.File tables 
+	      = new java.io.File(dir, new String(m_spec.m_class_name) 
+				 + ".tables");
+	    m_emit.emit_resource(new java.io.FileOutputStream(tables));
+	    m_outputs.addElement(tables);
+	  }
+
 	if (m_spec.m_verbose && true == CUtility.OLD_DUMP_DEBUG)
 	  {
 	    details();
 	  }
 	
 	m_outstream.close();
+	m_outputs.insertElementAt(new java.io.File(m_filename + ".java"),0);
+      }
+
+  /***************************************************************
+    Function: outputs
+    Description: Returns the files written by generate(), the 
+    generated source file first.
+    **************************************************************/
+  Vector outputs
+    (
+     )
+      {
+	return m_outputs;
       }
 
   /***************************************************************
@@ -5236,6 +6879,12 @@ class CLexGen
     '\0'
     };
 
+  private char m_comb_dir[] = { 
+    '%', 'c', 'o',
+    'm', 'b',
+    '\0'
+    };
+
   private char m_class_dir[] = { 
     '%', 'c', 'l', 
     'a', 's', 's',
@@ -5404,11 +7053,38 @@ class CLexGen
     '\0'
     };
   
+  private char m_resource_dir[] = { 
+    '%', 'r', 'e',
+    's', 'o', 'u', 
+    'r', 'c', 'e',
+    '\0'
+    };
+
   private char m_public_dir[] = { 
     '%', 'p', 'u',
     'b', 'l', 'i', 
     'c', '\0'
     };
+
+  private char m_buffer_dir[] = { 
+    '%', 'b', 'u',
+    'f', 'f', 'e', 
+    'r', '\0'
+    };
+
+  private char m_switch_dir[] = { 
+    '%', 's', 'w',
+    'i', 't', 'c', 
+    'h', '\0'
+    };
+
+  private char m_actionmethods_dir[] = { 
+    '%', 'a', 'c',
+    't', 'i', 'o', 
+    'n', 'm', 'e',
+    't', 'h', 'o',
+    'd', 's', '\0'
+    };
   
   /***************************************************************
     Function: userDeclare
@@ -5497,6 +7173,42 @@ class CLexGen
 					 m_input.m_line_number);
 		      break;
 
+		    case 'a':
+		      if (0 == CUtility.charncmp(m_input.m_line,
+						 0,
+						 m_actionmethods_dir,
+						 0,
+						 m_actionmethods_dir.length - 1))
+			{
+			  /* Emit each action as its own method. */
+			  m_input.m_line_index = m_actionmethods_dir.length;
+			  m_spec.m_action_methods = true;
+			  break;
+			}
+
+		      /* Bad directive. */
+		      CError.parse_error(CError.E_DIRECT,
+					 m_input.m_line_number);
+		      break;
+
+		    case 'b':
+		      if (0 == CUtility.charncmp(m_input.m_line,
+						 0,
+						 m_buffer_dir,
+						 0,
+						 m_buffer_dir.length - 1))
+			{
+			  /* Scan the whole input as one CharSequence. */
+			  m_input.m_line_index = m_buffer_dir.length;
+			  m_spec.m_buffer_input = true;
+			  break;
+			}
+
+		      /* Bad directive. */
+		      CError.parse_error(CError.E_DIRECT,
+					 m_input.m_line_number);
+		      break;
+
 		    case 'c':
 		      if (0 == CUtility.charncmp(m_input.m_line,
 						 0,
@@ -5537,6 +7249,17 @@ class CLexGen
 			      "java_cup.runtime.Symbol".toCharArray();
 			  break;
 			}
+		      else if (0 == CUtility.charncmp(m_input.m_line,
+						      0,
+						      m_comb_dir,
+						      0,
+						      m_comb_dir.length - 1))
+			{
+			  /* Compress the transition table. */
+			  m_input.m_line_index = m_comb_dir.length;
+			  m_spec.m_comb_dtrans = true;
+			  break;
+			}
 	      
 		      /* Bad directive. */
 		      CError.parse_error(CError.E_DIRECT,
@@ -5747,6 +7470,24 @@ class CLexGen
 					 m_input.m_line_number);
 		      break;
 
+		    case 'r':
+		      if (0 == CUtility.charncmp(m_input.m_line,
+						 0,
+						 m_resource_dir,
+						 0,
+						 m_resource_dir.length - 1))
+			{
+			  /* Write tables to a binary resource. */
+			  m_input.m_line_index = m_resource_dir.length;
+			  m_spec.m_table_resource = true;
+			  break;
+			}
+
+		      /* Bad directive. */
+		      CError.parse_error(CError.E_DIRECT,
+					 m_input.m_line_number);
+		      break;
+
 		    case 's':
 		      if (0 == CUtility.charncmp(m_input.m_line,
 						 0,
@@ -5759,6 +7500,17 @@ class CLexGen
 			  saveStates();
 			  break;
 			}
+		      else if (0 == CUtility.charncmp(m_input.m_line,
+						      0,
+						      m_switch_dir,
+						      0,
+						      m_switch_dir.length - 1))
+			{
+			  /* Emit transitions as code. */
+			  m_input.m_line_index = m_switch_dir.length;
+			  m_spec.m_switch_dtrans = true;
+			  break;
+			}
 
 		      /* Undefined directive. */
 		      CError.parse_error(CError.E_DIRECT,
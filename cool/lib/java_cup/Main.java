@@ -35,6 +35,9 @@ import java.io.*;
  *   <dd> compact tables by defaulting to most frequent reduce
  *   <dt> -nowarn        
  *   <dd> don't warn about useless productions, etc.
+ *   <dt> -table_resource
+ *   <dd> write the parse tables to a binary resource, parser.tables,
+ *        rather than into string literals in the parser class
  *   <dt> -nosummary     
  *   <dd> don't print the usual summary of parse states, etc.
  *   <dt> -progress      
@@ -248,6 +251,7 @@ public class Main {
 "    -expect #      number of conflicts expected/allowed [default 0]\n" + 
 "    -compact_red   compact tables by defaulting to most frequent reduce\n" +
 "    -nowarn        don't warn about useless productions, etc.\n" +
+"    -table_resource  write parse tables to a binary resource file\n" +
 "    -nosummary     don't print the usual summary of parse states, etc.\n" +
 "    -nopositions   don't propagate the left and right token position values\n" +
 "    -noscanner     don't refer to java_cup.runtime.Scanner\n" +
@@ -328,6 +332,7 @@ public class Main {
 	  else if (argv[i].equals("-compact_red"))  opt_compact_red = true;
 	  else if (argv[i].equals("-nosummary"))    no_summary = true;
 	  else if (argv[i].equals("-nowarn"))       emit.nowarn = true;
+	  else if (argv[i].equals("-table_resource")) emit.table_resource = true;
 	  else if (argv[i].equals("-dump_states"))  opt_dump_states = true;
 	  else if (argv[i].equals("-dump_tables"))  opt_dump_tables = true; 
 	  else if (argv[i].equals("-progress"))     print_progress = true;
@@ -592,6 +597,21 @@ public class Main {
       emit.parser(parser_class_file, action_table, reduce_table, 
 		  start_state.index(), emit.start_production, opt_compact_red,
 		  suppress_scanner);
+      if (emit.table_resource) emit_table_resource();
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Write the binary table resource beside the parser class. */
+  protected static void emit_table_resource()
+    {
+      String out_name = emit.parser_class_name + ".tables";
+      try {
+	emit.table_resource(new FileOutputStream(new File(out_name)));
+      } catch(IOException e) {
+	System.err.println("Can't write \"" + out_name + "\"");
+	System.exit(5);
+      }
     }
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
@@ -2,6 +2,7 @@ package java_cup;
 
 import java.io.PrintWriter;
 import java.util.Stack;
+import java.util.Vector;
 import java.util.Enumeration;
 import java.util.Date;
 
@@ -168,6 +169,15 @@ public class emit {
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
+  /** Do we write the parse tables to a binary resource instead of packing
+   *  them into string literals? */
+  public static boolean table_resource = false;
+
+  /** Tables for the binary resource, in the order the parser reads them. */
+  protected static Vector resource_tables = new Vector();
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
   /** Count of the number on non-reduced productions found. */
   public static int not_reduced = 0;
 
@@ -511,9 +521,7 @@ public class emit {
       out.println();
       out.println("  /** Production table. */");
       out.println("  protected static final short _production_table[][] = ");
-      out.print  ("    unpackFromStrings(");
-      do_table_as_string(out, prod_table);
-      out.println(");");
+      do_table(out, prod_table);
 
       /* do the public accessor method */
       out.println();
@@ -618,9 +626,7 @@ public class emit {
       out.println();
       out.println("  /** Parse-action table. */");
       out.println("  protected static final short[][] _action_table = "); 
-      out.print  ("    unpackFromStrings(");
-      do_table_as_string(out, action_table);
-      out.println(");");
+      do_table(out, action_table);
 
       /* do the public accessor method */
       out.println();
@@ -680,9 +686,7 @@ public class emit {
       out.println();
       out.println("  /** <code>reduce_goto</code> table. */");
       out.println("  protected static final short[][] _reduce_table = "); 
-      out.print  ("    unpackFromStrings(");
-      do_table_as_string(out, reduce_goto_table);
-      out.println(");");
+      do_table(out, reduce_goto_table);
 
       /* do the public accessor method */
       out.println();
@@ -693,6 +697,18 @@ public class emit {
       goto_table_time = System.currentTimeMillis() - start_time;
     }
 
+  // print the expression that yields the given short[][] array, either
+  // unpacked from strings or read from the binary table resource.
+  protected static void do_table(PrintWriter out, short[][] sa) {
+    if (table_resource) {
+      out.println("    unpackFromResource(" + resource_tables.size() + ");");
+      resource_tables.addElement(sa);
+      return;
+    }
+    out.print  ("    unpackFromStrings(");
+    do_table_as_string(out, sa);
+    out.println(");");
+  }
   // print a string array encoding the given short[][] array.
   protected static void do_table_as_string(PrintWriter out, short[][] sa) {
     out.println("new String[] {");
@@ -746,6 +762,88 @@ public class emit {
 
   /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
 
+  /** Emit the method that reads the parse tables from the binary table 
+   *  resource.  All of the tables are read, with one bulk read, the first
+   *  time one is needed.  The resource holds the number of tables, then 
+   *  for each table its number of rows, and for each row its length and
+   *  its entries.  Counts are big-endian ints and entries are shorts.
+   * @param out stream to produce output on.
+   */
+  protected static void emit_resource_loader(PrintWriter out)
+    {
+      String name = parser_class_name + ".tables";
+
+      out.println();
+      out.println("  /** Parse tables read from the binary table resource. */");
+      out.println("  private static short[][][] _resource_tables;");
+      out.println();
+      out.println("  /** Read a table from the binary table resource " + 
+		  "<code>" + name + "</code>. */");
+      out.println("  protected static short[][] unpackFromResource(int index)");
+      out.println("    {");
+      out.println("      if (_resource_tables == null) {");
+      out.println("        java.io.InputStream in = " + parser_class_name + 
+		  ".class.getResourceAsStream(\"" + name + "\");");
+      out.println("        if (in == null)");
+      out.println("          throw new Error(\"Missing table resource " + 
+		  name + "\");");
+      out.println("        try {");
+      out.println("          java.io.ByteArrayOutputStream bytes =");
+      out.println("            new java.io.ByteArrayOutputStream();");
+      out.println("          byte[] buf = new byte[8192];");
+      out.println("          int n;");
+      out.println("          while ((n = in.read(buf)) != -1)");
+      out.println("            bytes.write(buf, 0, n);");
+      out.println("          in.close();");
+      out.println("          java.nio.ByteBuffer bb =");
+      out.println("            java.nio.ByteBuffer.wrap(bytes.toByteArray());");
+      out.println("          short[][][] result = new short[bb.getInt()][][];");
+      out.println("          for (int t=0; t<result.length; t++) {");
+      out.println("            result[t] = new short[bb.getInt()][];");
+      out.println("            for (int i=0; i<result[t].length; i++) {");
+      out.println("              result[t][i] = new short[bb.getInt()];");
+      out.println("              bb.asShortBuffer().get(result[t][i]);");
+      out.println("              bb.position(bb.position() + 2*result[t][i].length);");
+      out.println("            }");
+      out.println("          }");
+      out.println("          _resource_tables = result;");
+      out.println("        } catch (java.io.IOException e) {");
+      out.println("          throw new Error(\"Unable to read table resource " +
+		  name + "\");");
+      out.println("        }");
+      out.println("      }");
+      out.println("      return _resource_tables[index];");
+      out.println("    }");
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
+  /** Write the tables collected while emitting the parser to the binary
+   *  table resource read by the code from emit_resource_loader().
+   * @param os stream to write the resource on.
+   */
+  public static void table_resource(java.io.OutputStream os)
+    throws java.io.IOException
+    {
+      java.io.DataOutputStream out = new java.io.DataOutputStream(
+	new java.io.BufferedOutputStream(os, 4096));
+      out.writeInt(resource_tables.size());
+      for (int t = 0; t < resource_tables.size(); t++)
+	{
+	  short[][] sa = (short[][])resource_tables.elementAt(t);
+	  out.writeInt(sa.length);
+	  for (int i = 0; i < sa.length; i++)
+	    {
+	      out.writeInt(sa[i].length);
+	      for (int j = 0; j < sa[i].length; j++)
+		out.writeShort(sa[i][j]);
+	    }
+	}
+      out.close();
+    }
+
+  /*. . . . . . . . . . . . . . . . . . . . . . . . . . . . . .*/
+
   /** Emit the parser subclass with embedded tables. 
    * @param out             stream to produce output on.
    * @param action_table    internal representation of the action table.
@@ -801,6 +899,7 @@ public class emit {
       }
 
       /* emit the various tables */
+      if (table_resource) emit_resource_loader(out);
       emit_production_table(out);
       do_action_table(out, action_table, compact_reduces);
       do_reduce_table(out, reduce_table);
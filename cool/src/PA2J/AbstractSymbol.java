@@ -38,35 +38,75 @@ import java.io.PrintStream;
  *
  * codeDef and codeRef (defined by subclasses) are used by the code to
  * produce definitions and references (respectively) to constants.
+ * <p>
+ *
+ * A symbol is also a CharSequence over its characters in the table,
+ * so they can be compared or interned into another table without
+ * building a String first.
  *
  * @see AbstractTable
  * */
-abstract class AbstractSymbol {
-    /** The stored string */
-    protected String str;
+abstract class AbstractSymbol implements CharSequence {
+    /** The table whose arena holds this symbol's string */
+    protected AbstractTable table;
+
+    /** The offset of this symbol's string in the table's Latin-1 arena,
+     * or, for a string with characters beyond Latin-1, the complement
+     * (<code>~</code>) of its offset in the table's wide arena */
+    protected int offset;
+
+    /** The length of this symbol's string */
+    protected int len;
 
     /** The index of this entry in the string table */
     protected int index;
 
     /** Constructs a new table entry.
+     *
+     * The characters of the entry are not copied; the symbol is a view
+     * of <code>len</code> characters starting at <code>offset</code> in
+     * the Latin-1 arena of <code>table</code>, or at
+     * <code>~offset</code> in its wide arena if <code>offset</code> is
+     * negative.
      * 
-     * @param str the entry string 
-     * @param len the length of the str prefix that is acually used
+     * @param table the table owning the characters
+     * @param offset the offset of the string in the table's arenas
+     * @param len the length of the string
      * @param index the table index
      * */
-    public AbstractSymbol(String str, int len, int index) {
-	this.str = str.length() == len ? str : str.substring(0, len);
+    public AbstractSymbol(AbstractTable table, int offset, int len, int index) {
+	this.table = table;
+	this.offset = offset;
+	this.len = len;
 	this.index = index;
     }
 
     /** Tests if the string argument is equal to the string in this symbol.
      *
      * @param str the string to compare
+     * @param len the length of the str prefix to compare
      * @return true if the strings are equal
      * */
-    public boolean equalString(String str, int len) {
-	String other = str.length() == len ? str : str.substring(0, len);
-	return this.str.equals(other);
+    public boolean equalString(CharSequence str, int len) {
+	if (this.len != len) {
+	    return false;
+	}
+	if (offset >= 0) {
+	    byte[] bytes = table.bytes;
+	    for (int i = 0; i < len; i++) {
+		if ((bytes[offset + i] & 0xff) != str.charAt(i)) {
+		    return false;
+		}
+	    }
+	} else {
+	    char[] chars = table.chars;
+	    for (int i = 0; i < len; i++) {
+		if (chars[~offset + i] != str.charAt(i)) {
+		    return false;
+		}
+	    }
+	}
+	return true;
     }
 
     /** Tests if the index argument is equal to the index of this symbol.
@@ -95,17 +135,52 @@ abstract class AbstractSymbol {
 	    ((AbstractSymbol)another).index == this.index;
     }
 
-    /** Returns the string representation of this symbol. */
+    /** Returns the length of the string of this symbol. */
+    public int length() {
+	return len;
+    }
+
+    /** Returns a character of the string of this symbol.
+     *
+     * @param i the index of the character
+     * @return the character, read from the table's arena
+     * */
+    public char charAt(int i) {
+	if (i < 0 || i >= len) {
+	    throw new IndexOutOfBoundsException("index " + i);
+	}
+	if (offset >= 0) {
+	    return (char)(table.bytes[offset + i] & 0xff);
+	}
+	return table.chars[~offset + i];
+    }
+
+    /** Returns a part of the string of this symbol as a String. */
+    public CharSequence subSequence(int start, int end) {
+	return getString().substring(start, end);
+    }
+
+    /** Returns the string representation of this symbol.
+     *
+     * The string is built from the table's arena on every call and is
+     * not retained by the symbol.  Use equalString or charAt to examine
+     * the characters without building a String.
+     * */
+    @SuppressWarnings("deprecation")
     public String getString() {
-	return str;
+	if (offset >= 0) {
+	    // the bytes are Latin-1 characters, which this constructor
+	    // copies into a compact String without decoding them
+	    return new String(table.bytes, 0, offset, len);
+	}
+	return new String(table.chars, ~offset, len);
     }
 
     /** Returns a printable representation of this symbol. */
     public String toString() {
-	return str;
+	return getString();
     }
 
     /** Returns a copy of this symbol */
     public abstract Object clone();
 }
-
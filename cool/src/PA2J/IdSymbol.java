@@ -27,13 +27,13 @@ class IdSymbol extends AbstractSymbol {
      * 
      * @see AbstractSymbol
      * */
-    public IdSymbol(String str, int len, int index) {
-	super(str, len, index);
+    public IdSymbol(AbstractTable table, int offset, int len, int index) {
+	super(table, offset, len, index);
     }
 
     /** Returns a copy of this symbol */
     public Object clone() {
-	return new IdSymbol(str, str.length(), index);
+	return new IdSymbol(table, offset, len, index);
     }
 }
 
@@ -21,6 +21,21 @@ PROVIDE MAINTENANCE, SUPPORT, UPDATES, ENHANCEMENTS, OR MODIFICATIONS.
 
 import java.util.Vector;
 import java.util.Enumeration;
+import java.util.BitSet;
+import java.util.Arrays;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /** Abstract string table implementation.
     
@@ -40,11 +55,18 @@ import java.util.Enumeration;
     each string.  The Cool string table class provides methods for
     inserting and querying string tables in a variety of ways.  While
     production compilers use hashed data structures to implement string
-    tables, the Cool string tables are implemented as vectors.  The
+    tables, the Cool string tables are implemented as vectors.  A hash
+    index on the string contents is kept alongside the vector so that
+    adding and looking up a string does not require a scan of the whole
+    table.  The
     components of Cool string tables are of type <a
     href="AbstractSymbol.html"> AbstractSymbol</a>).  Each
-    AbstractSymbol stores a string, and an integer index unique to the
-    string.
+    AbstractSymbol refers to a string, and an integer index unique to the
+    string.  The characters of all strings in a table are stored
+    back to back in an arena owned by the table, one byte per
+    character, and each AbstractSymbol is an (offset, length) view into
+    that arena.  The few strings with characters beyond Latin-1 go into
+    a second arena of chars.
 
     <p>
 
@@ -80,7 +102,11 @@ import java.util.Enumeration;
     @see IdSymbol
     @see IntSymbol */
 abstract class AbstractTable {
-    /** Global string table of string constants */
+    /** Global string table of string constants.  Like the other two
+     * global tables it belongs to the default compilation context;
+     * operations on it are forwarded to the current thread's context.
+     *
+     * @see CompilationContext */
     public static StringTable stringtable = new StringTable();
 
     /** Global string table of identifiers */
@@ -94,9 +120,324 @@ abstract class AbstractTable {
     /** Vector of table entries */
     protected Vector tbl = new Vector();
 
-    /** Creates a new symbol of the appropriate type */
-    protected abstract AbstractSymbol getNewSymbol(String s, 
-						   int len, int index);
+    /** The table whose first entries this table shares, or null
+     * @see #share(AbstractTable) */
+    protected AbstractTable base = null;
+
+    /** Number of entries shared with the base table.  The entries of
+     * this table itself are numbered from here on. */
+    protected int baseSize = 0;
+
+    /** Arena holding the Latin-1 strings of the table entries, one
+     * byte per character */
+    protected volatile byte[] bytes = new byte[1024];
+
+    /** Number of bytes used in the Latin-1 arena */
+    protected int nbytes = 0;
+
+    /** Arena holding the strings with characters beyond Latin-1 */
+    protected volatile char[] chars = new char[0];
+
+    /** Number of characters used in the wide arena */
+    protected int nchars = 0;
+
+    /** Number of stripes the hash index is split into */
+    private static final int STRIPES = 16;
+
+    /** Stripes of the hash index, selected by the low bits of the
+     * spread hash code of an entry */
+    private Stripe[] stripes = new Stripe[STRIPES];
+
+    /** Set if entries may be added by several threads at once */
+    protected boolean concurrent = false;
+
+    /** Indices of the entries referenced by the generated code */
+    protected BitSet reachable = new BitSet();
+
+    /** Number of strings added, whether or not they were present
+     * @see TableCounters */
+    protected long interns = 0;
+
+    /** Number of added strings that were already present */
+    protected long hits = 0;
+
+    /** Number of added strings that were new */
+    protected long misses = 0;
+
+    /** Number of lookups by string */
+    protected long lookups = 0;
+
+    /** Number of hash index slots examined */
+    protected long probes = 0;
+
+    /** Largest number of slots examined by one search */
+    protected int maxProbe = 0;
+
+    /** Lock held while a new entry is appended to the arena and vector
+     * in concurrent mode */
+    private final Object appendLock = new Object();
+
+    /** One stripe of the open-addressed hash index of the entries.  A
+     * slot holds the position of an entry in the vector plus one; zero
+     * marks an empty slot.  In concurrent mode the stripe is its own
+     * lock. */
+    private static class Stripe {
+	int[] slots = new int[16];
+	int[] hashes = new int[16];
+	int count = 0;
+    }
+
+    /** Creates an empty table */
+    protected AbstractTable() {
+	for (int i = 0; i < STRIPES; i++) {
+	    stripes[i] = new Stripe();
+	}
+    }
+
+    /** Creates a new symbol of the appropriate type
+     *
+     * @param offset the offset of the symbol's string in the arena
+     * @param len the length of the symbol's string
+     * @param index the table index of the new symbol
+     * */
+    protected abstract AbstractSymbol getNewSymbol(int offset, int len, 
+						   int index);
+
+    /** Returns the table that operations on this table should act on.
+     * For the global tables this is the corresponding table of the
+     * current thread's compilation context.
+     * */
+    protected AbstractTable forContext() {
+	if (!CompilationContext.entered) {
+	    return this;
+	}
+	return CompilationContext.current().tableFor(this);
+    }
+
+    /** Makes the entries of another table the first entries of this
+     * empty table, with the same indices.  Nothing is copied: strings
+     * are looked up among the shared entries of the other table before
+     * the entries of this one, and the entries added to this table are
+     * numbered after the shared ones.  Entries added to the other table
+     * afterwards are not shared.  Unless it is in concurrent mode, the
+     * other table must not be added to while this one is in use.
+     *
+     * @param base the table to share, which shares no table itself
+     * */
+    protected void share(AbstractTable base) {
+	this.base = base;
+	this.baseSize = base.tbl.size();
+    }
+
+    /** Returns the entry with the given index, shared or not */
+    private AbstractSymbol entry(int index) {
+	if (index < baseSize) {
+	    return (AbstractSymbol)base.tbl.elementAt(index);
+	}
+	return (AbstractSymbol)tbl.elementAt(index - baseSize);
+    }
+
+    /** Finds a string among the entries shared with the base table.
+     *
+     * @return the shared entry, or null if there is none
+     * */
+    private AbstractSymbol findShared(CharSequence s, int len, int h) {
+	if (baseSize == 0) {
+	    return null;
+	}
+	Stripe st = base.stripes[h & (STRIPES - 1)];
+	int e;
+	if (base.concurrent) {
+	    synchronized (st) {
+		e = st.slots[base.findSlot(st, s, len, h)];
+	    }
+	} else {
+	    e = st.slots[base.findSlot(st, s, len, h)];
+	}
+	if (e == 0 || e > baseSize) {
+	    return null;
+	}
+	return (AbstractSymbol)base.tbl.elementAt(e - 1);
+    }
+
+    /** Adds an entry known not to be in the hash index yet to the
+     * index.
+     *
+     * @param sym the entry, already in the vector
+     * @param h the spread hash code of its string
+     * */
+    private void insert(AbstractSymbol sym, int h) {
+	Stripe st = stripes[h & (STRIPES - 1)];
+	int mask = st.slots.length - 1;
+	int slot = (h >>> 4) & mask;
+	while (st.slots[slot] != 0) {
+	    slot = (slot + 1) & mask;
+	}
+	st.slots[slot] = sym.index - baseSize + 1;
+	st.hashes[slot] = h;
+	if (++st.count * 2 > st.slots.length) {
+	    growStripe(st);
+	}
+    }
+
+    /** Enables or disables concurrent interning.
+     *
+     * In concurrent mode every stripe of the hash index is guarded by
+     * its own lock, so threads adding strings that fall into different
+     * stripes do not contend.  A new entry is appended to the arena and
+     * the vector under a short table-wide lock, so indices stay dense
+     * and every string still maps to exactly one symbol.  The mode must
+     * be chosen before the table is shared between threads.
+     *
+     * @param concurrent true to allow adding from several threads
+     * */
+    public void setConcurrent(boolean concurrent) {
+	this.concurrent = concurrent;
+    }
+
+    /** Computes the hash code of a prefix of a character sequence.
+     * This is the same function as String.hashCode, so for a whole
+     * String the value cached by the String is used. */
+    private static int hash(CharSequence s, int len) {
+	int h = 0;
+	if (len == s.length() && s instanceof String) {
+	    h = s.hashCode();
+	} else {
+	    for (int i = 0; i < len; i++) {
+		h = 31 * h + s.charAt(i);
+	    }
+	}
+	return h ^ (h >>> 16);
+    }
+
+    /** Finds the slot of a string in a stripe of the hash index.
+     *
+     * @return the slot holding the entry for the string, or the empty
+     * slot where it would be inserted
+     * */
+    private int findSlot(Stripe st, CharSequence s, int len, int h) {
+	int mask = st.slots.length - 1;
+	int slot = (h >>> 4) & mask;
+	int n = 1;
+	int e;
+	while ((e = st.slots[slot]) != 0) {
+	    if (st.hashes[slot] == h && 
+		((AbstractSymbol)tbl.elementAt(e - 1)).equalString(s, len)) {
+		break;
+	    }
+	    slot = (slot + 1) & mask;
+	    n++;
+	}
+	if (TableCounters.enabled) {
+	    probes += n;
+	    if (n > maxProbe) {
+		maxProbe = n;
+	    }
+	}
+	return slot;
+    }
+
+    /** Doubles the size of a stripe and reinserts its entries */
+    private void growStripe(Stripe st) {
+	int[] oldslots = st.slots;
+	int[] oldhashes = st.hashes;
+	st.slots = new int[oldslots.length * 2];
+	st.hashes = new int[oldslots.length * 2];
+	int mask = st.slots.length - 1;
+	for (int i = 0; i < oldslots.length; i++) {
+	    if (oldslots[i] != 0) {
+		int slot = (oldhashes[i] >>> 4) & mask;
+		while (st.slots[slot] != 0) {
+		    slot = (slot + 1) & mask;
+		}
+		st.slots[slot] = oldslots[i];
+		st.hashes[slot] = oldhashes[i];
+	    }
+	}
+    }
+
+    /** Copies a string into an arena and appends a symbol for it to
+     * the vector of entries.  The string goes into the Latin-1 arena
+     * unless one of its characters does not fit in a byte. */
+    private AbstractSymbol append(CharSequence s, int len) {
+	byte[] arena = bytes;
+	if (nbytes + len > arena.length) {
+	    byte[] newbytes = new byte[Math.max(arena.length * 2, nbytes + len)];
+	    System.arraycopy(arena, 0, newbytes, 0, nbytes);
+	    arena = newbytes;
+	    bytes = arena;
+	}
+	int i = 0;
+	char c;
+	while (i < len && (c = s.charAt(i)) <= 0xff) {
+	    arena[nbytes + i] = (byte)c;
+	    i++;
+	}
+
+	AbstractSymbol sym;
+	if (i == len) {
+	    sym = getNewSymbol(nbytes, len, baseSize + tbl.size());
+	    nbytes += len;
+	} else {
+	    char[] wide = chars;
+	    if (nchars + len > wide.length) {
+		char[] newchars = new char[Math.max(wide.length * 2, nchars + len)];
+		System.arraycopy(wide, 0, newchars, 0, nchars);
+		wide = newchars;
+	    }
+	    for (i = 0; i < len; i++) {
+		wide[nchars + i] = s.charAt(i);
+	    }
+	    chars = wide;
+	    sym = getNewSymbol(~nchars, len, baseSize + tbl.size());
+	    nchars += len;
+	}
+	tbl.addElement(sym);
+	return sym;
+    }
+
+    /** Returns the symbol for a string, adding it to the table if it is
+     * not there yet.  The caller holds the stripe lock in concurrent
+     * mode. */
+    private AbstractSymbol intern(Stripe st, CharSequence s, int len, int h, 
+				  boolean locked) {
+	AbstractSymbol shared = findShared(s, len, h);
+	if (shared != null) {
+	    if (TableCounters.enabled) {
+		interns++;
+		hits++;
+	    }
+	    return shared;
+	}
+	int slot = findSlot(st, s, len, h);
+	if (TableCounters.enabled) {
+	    interns++;
+	    if (st.slots[slot] != 0) {
+		hits++;
+	    } else {
+		misses++;
+	    }
+	}
+	if (st.slots[slot] != 0) {
+	    return (AbstractSymbol)tbl.elementAt(st.slots[slot] - 1);
+	}
+
+	AbstractSymbol sym;
+	if (locked) {
+	    synchronized (appendLock) {
+		sym = append(s, len);
+	    }
+	} else {
+	    sym = append(s, len);
+	}
+
+	st.slots[slot] = sym.index - baseSize + 1;
+	st.hashes[slot] = h;
+	if (++st.count * 2 > st.slots.length) {
+	    growStripe(st);
+	}
+	return sym;
+    }
 
     /** Adds prefix of the specified length to this string table
      *
@@ -105,21 +446,19 @@ abstract class AbstractTable {
      * @return the symbol for the string s
      * */
     public AbstractSymbol addString(String s, int maxchars) {
+	AbstractTable t = forContext();
+	if (t != this) {
+	    return t.addString(s, maxchars);
+	}
 	int len = Math.min(s.length(), maxchars);
-	AbstractSymbol sym = null;
-	for (int i = 0; i < tbl.size(); i++) {
-	    try {
-		sym = (AbstractSymbol)tbl.elementAt(i);
-	    } catch (ArrayIndexOutOfBoundsException ex) {
-		Utilities.fatalError("Unexpected exception: " + ex);
-	    }
-	    if (sym.equalString(s, len)) {
-		return sym;
+	int h = hash(s, len);
+	Stripe st = stripes[h & (STRIPES - 1)];
+	if (concurrent) {
+	    synchronized (st) {
+		return intern(st, s, len, h, true);
 	    }
 	}
-	sym = getNewSymbol(s, len, tbl.size());
-	tbl.addElement(sym);
-	return sym;
+	return intern(st, s, len, h, false);
     }
 		
 
@@ -132,6 +471,30 @@ abstract class AbstractTable {
 	return addString(s, MAXSIZE);
     }
 
+    /** Adds the characters of a character sequence to this string
+     * table.  No String is created when the characters are already in
+     * the table, so a lexer can intern the text of a token straight
+     * from its input buffer.
+     *
+     * @param s the characters to add
+     * @return the symbol for the characters of s
+     * */
+    public AbstractSymbol addString(CharSequence s) {
+	AbstractTable t = forContext();
+	if (t != this) {
+	    return t.addString(s);
+	}
+	int len = Math.min(s.length(), MAXSIZE);
+	int h = hash(s, len);
+	Stripe st = stripes[h & (STRIPES - 1)];
+	if (concurrent) {
+	    synchronized (st) {
+		return intern(st, s, len, h, true);
+	    }
+	}
+	return intern(st, s, len, h, false);
+    }
+
     /** Adds the string representation of the specified integer to this
      * string table
      *
@@ -148,7 +511,27 @@ abstract class AbstractTable {
      * @see java.util.Enumeration
      * */
     public Enumeration getSymbols() {
-	return tbl.elements();
+	AbstractTable t = forContext();
+	if (t != this) {
+	    return t.getSymbols();
+	}
+	if (baseSize == 0) {
+	    return tbl.elements();
+	}
+	return new Enumeration() {
+		int i = 0;
+
+		public boolean hasMoreElements() {
+		    return i < baseSize + tbl.size();
+		}
+
+		public Object nextElement() {
+		    if (!hasMoreElements()) {
+			throw new java.util.NoSuchElementException();
+		    }
+		    return entry(i++);
+		}
+	    };
     }
     
     /** Looks up a symbol in this string table by its index
@@ -159,9 +542,13 @@ abstract class AbstractTable {
      * @return a symbol corresponding to the index
      * */
     public AbstractSymbol lookup(int index) { 
+	AbstractTable t = forContext();
+	if (t != this) {
+	    return t.lookup(index);
+	}
 	AbstractSymbol sym = null;
 	try {
-	    sym = (AbstractSymbol)tbl.elementAt(index);
+	    sym = entry(index);
 	} catch (ArrayIndexOutOfBoundsException ex) {
 	    Utilities.fatalError("Symbol index out of bounds: " + index);
 	}
@@ -177,29 +564,342 @@ abstract class AbstractTable {
      * @return a symbol corresponding to the string
      * */
     public AbstractSymbol lookup(String s) {
+	AbstractTable t = forContext();
+	if (t != this) {
+	    return t.lookup(s);
+	}
+	if (TableCounters.enabled) {
+	    lookups++;
+	}
 	int len = s.length();
-	AbstractSymbol sym = null;
-	for (int i = 0; i < tbl.size(); i++) {
+	int h = hash(s, len);
+	AbstractSymbol shared = findShared(s, len, h);
+	if (shared != null) {
+	    return shared;
+	}
+	Stripe st = stripes[h & (STRIPES - 1)];
+	int e;
+	if (concurrent) {
+	    synchronized (st) {
+		e = st.slots[findSlot(st, s, len, h)];
+	    }
+	} else {
+	    e = st.slots[findSlot(st, s, len, h)];
+	}
+	if (e == 0) {
+	    Utilities.fatalError("String table lookup failed on string: " + s);
+	}
+	return (AbstractSymbol)tbl.elementAt(e - 1);
+    }
+
+    /** Format version of symbol table snapshots.  A snapshot written
+     * with a different version is ignored. */
+    static final int SNAPSHOT_VERSION = 3;
+
+    /** Magic number at the start of a snapshot file */
+    private static final int SNAPSHOT_MAGIC = 0x436f6f6c;
+
+    /** Starts the global tables from a snapshot.
+     *
+     * <p>
+     *
+     * Every compiler phase interns the same symbols at startup, most of
+     * them in TreeConstants.  If the snapshot file exists and was
+     * written by this version for this set of TreeConstants, it is
+     * mapped into memory and its entries become the first entries of
+     * the three global tables, with the same indices a fresh run would
+     * give them.  Symbols interned afterwards are appended after the
+     * snapshot entries as an overlay; the file itself is never changed
+     * by a compilation.
+     *
+     * <p>
+     *
+     * The phases have different TreeConstants, so each keeps its own
+     * snapshot: the file used is the given name followed by a dash and
+     * the start of the phase's stamp in hex, and one <code>-S</code>
+     * name can be passed to every phase of the compiler.
+     *
+     * <p>
+     *
+     * If the file is missing, of another version, stamped for other
+     * TreeConstants, inconsistent, or unreadable, the tables are built
+     * the normal way and a new snapshot is written for the next run.
+     * Nothing is loaded unless all three tables are still empty.
+     *
+     * @param filename the name the snapshot file is derived from
+     * */
+    public static void warmStart(String filename) {
+	if (stringtable.tbl.size() != 0 || idtable.tbl.size() != 0 ||
+	    inttable.tbl.size() != 0) {
+	    return;
+	}
+	byte[] stamp = snapshotStamp();
+	if (stamp == null) {
+	    return;
+	}
+	filename = snapshotFile(filename, stamp);
+	if (loadSnapshot(filename, stamp)) {
+	    return;
+	}
+	try {
+	    Class.forName("TreeConstants");
+	} catch (ClassNotFoundException ex) {
+	    // the phase interns its symbols as it goes
+	}
+	saveSnapshot(filename, stamp);
+    }
+
+    /** Returns the snapshot file of the phase with the given stamp: the
+     * name followed by a dash and the first eight bytes of the stamp
+     * in hex. */
+    static String snapshotFile(String filename, byte[] stamp) {
+	StringBuffer name = new StringBuffer(filename).append('-');
+	for (int i = 0; i < 8; i++) {
+	    name.append(Character.forDigit((stamp[i] >> 4) & 0xf, 16));
+	    name.append(Character.forDigit(stamp[i] & 0xf, 16));
+	}
+	return name.toString();
+    }
+
+    /** Computes the stamp identifying the startup symbols of this
+     * phase.  It is a digest of the class file of TreeConstants, which
+     * holds the names, order and strings of all the constants, read
+     * without initializing the class.  A phase without TreeConstants
+     * gets the digest of no bytes.
+     *
+     * @return the stamp, or null if it cannot be computed
+     * */
+    private static byte[] snapshotStamp() {
+	try {
+	    MessageDigest md = MessageDigest.getInstance("SHA-256");
+	    InputStream in = AbstractTable.class.getClassLoader()
+		.getResourceAsStream("TreeConstants.class");
+	    if (in != null) {
+		try {
+		    byte[] b = new byte[4096];
+		    int n;
+		    while ((n = in.read(b)) > 0) {
+			md.update(b, 0, n);
+		    }
+		} finally {
+		    in.close();
+		}
+	    }
+	    return md.digest();
+	} catch (NoSuchAlgorithmException ex) {
+	    return null;
+	} catch (IOException ex) {
+	    return null;
+	}
+    }
+
+    /** Maps a snapshot file and loads its entries into the empty global
+     * tables.
+     *
+     * @param stamp the stamp of this phase
+     * @return true if the snapshot was loaded
+     * */
+    private static boolean loadSnapshot(String filename, byte[] stamp) {
+	MappedByteBuffer buf;
+	try {
+	    FileInputStream in = new FileInputStream(filename);
 	    try {
-		sym = (AbstractSymbol)tbl.elementAt(i);
-	    } catch (ArrayIndexOutOfBoundsException ex) {
-		Utilities.fatalError("Unexpected exception: " + ex);
+		FileChannel ch = in.getChannel();
+		buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+	    } finally {
+		in.close();
+	    }
+	} catch (IOException ex) {
+	    return false;
+	}
+	try {
+	    if (buf.getInt() != SNAPSHOT_MAGIC ||
+		buf.getInt() != SNAPSHOT_VERSION) {
+		return false;
 	    }
-	    if (sym.equalString(s, len)) {
-		return sym;
+	    byte[] found = new byte[stamp.length];
+	    buf.get(found);
+	    if (!Arrays.equals(found, stamp)) {
+		return false;
+	    }
+	    // check all sections before touching any table: the entries
+	    // must fit in the file and their lengths must add up to the
+	    // arenas of their section
+	    int start = buf.position();
+	    for (int i = 0; i < 3; i++) {
+		int count = buf.getInt();
+		int nb = buf.getInt();
+		int nc = buf.getInt();
+		if (count < 0 || nb < 0 || nc < 0 ||
+		    (long)count * 8 + nb + (long)nc * 2 > buf.remaining()) {
+		    return false;
+		}
+		long narrow = 0;
+		long wide = 0;
+		for (int j = 0; j < count; j++) {
+		    int len = buf.getInt(buf.position() + j * 8);
+		    if (len >= 0) {
+			narrow += len;
+		    } else {
+			wide += ~len;
+		    }
+		}
+		if (narrow != nb || wide != nc) {
+		    return false;
+		}
+		buf.position(buf.position() + count * 8 + nb + nc * 2);
+	    }
+	    buf.position(start);
+	} catch (BufferUnderflowException ex) {
+	    return false;
+	} catch (IllegalArgumentException ex) {
+	    return false;
+	}
+	stringtable.readSnapshot(buf);
+	idtable.readSnapshot(buf);
+	inttable.readSnapshot(buf);
+	return true;
+    }
+
+    /** Writes the entries of the global tables to a snapshot file.  The
+     * file is written under a temporary name and renamed into place, so
+     * a concurrent reader never sees a partial snapshot.  Failure to
+     * write the snapshot is not an error. */
+    private static void saveSnapshot(String filename, byte[] stamp) {
+	File file = new File(filename).getAbsoluteFile();
+	File tmp = null;
+	try {
+	    tmp = File.createTempFile("symtab", ".tmp", file.getParentFile());
+	    DataOutputStream out = 
+		new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+	    try {
+		out.writeInt(SNAPSHOT_MAGIC);
+		out.writeInt(SNAPSHOT_VERSION);
+		out.write(stamp);
+		stringtable.writeSnapshot(out);
+		idtable.writeSnapshot(out);
+		inttable.writeSnapshot(out);
+	    } finally {
+		out.close();
+	    }
+	    if (!tmp.renameTo(file)) {
+		tmp.delete();
+	    }
+	} catch (IOException ex) {
+	    if (tmp != null) {
+		tmp.delete();
 	    }
 	}
-	Utilities.fatalError("String table lookup failed on string: " + s);
-	return null;
+    }
+
+    /** Writes the entries of this table.  The section holds the number
+     * of entries, the sizes of the two arenas, the length and hash
+     * code of every entry and then the contents of the arenas.  The
+     * length of an entry in the wide arena is stored complemented. */
+    protected void writeSnapshot(DataOutputStream out) throws IOException {
+	out.writeInt(tbl.size());
+	out.writeInt(nbytes);
+	out.writeInt(nchars);
+	for (int i = 0; i < tbl.size(); i++) {
+	    AbstractSymbol sym = (AbstractSymbol)tbl.elementAt(i);
+	    out.writeInt(sym.offset >= 0 ? sym.len : ~sym.len);
+	    out.writeInt(hash(sym, sym.len));
+	}
+	out.write(bytes, 0, nbytes);
+	for (int i = 0; i < nchars; i++) {
+	    out.writeChar(chars[i]);
+	}
+    }
+
+    /** Loads the entries of this empty table from a section of a
+     * snapshot.  The arenas are filled in one bulk transfer each, and
+     * the stored hash codes are used to index the entries without
+     * rehashing their strings. */
+    protected void readSnapshot(ByteBuffer buf) {
+	int count = buf.getInt();
+	int nb = buf.getInt();
+	int nc = buf.getInt();
+	int entries = buf.position();
+	buf.position(entries + count * 8);
+
+	byte[] arena = new byte[Math.max(bytes.length, nb)];
+	buf.get(arena, 0, nb);
+	bytes = arena;
+	nbytes = nb;
+	char[] wide = new char[nc];
+	buf.asCharBuffer().get(wide, 0, nc);
+	buf.position(buf.position() + nc * 2);
+	chars = wide;
+	nchars = nc;
+
+	int offset = 0;
+	int woffset = 0;
+	for (int i = 0; i < count; i++) {
+	    int len = buf.getInt(entries + i * 8);
+	    AbstractSymbol sym;
+	    if (len >= 0) {
+		sym = getNewSymbol(offset, len, i);
+		offset += len;
+	    } else {
+		sym = getNewSymbol(~woffset, ~len, i);
+		woffset += ~len;
+	    }
+	    tbl.addElement(sym);
+	    insert(sym, buf.getInt(entries + i * 8 + 4));
+	}
+    }
+
+    /** Records that the generated code refers to the given entry.
+     * Only entries marked this way are emitted by the code generator
+     * when dead constants are dropped.
+     *
+     * @param sym the referenced entry of this table
+     * */
+    public void markReachable(AbstractSymbol sym) {
+	AbstractTable t = forContext();
+	if (t != this) {
+	    t.markReachable(sym);
+	    return;
+	}
+	if (concurrent) {
+	    synchronized (reachable) {
+		reachable.set(sym.index);
+	    }
+	} else {
+	    reachable.set(sym.index);
+	}
+    }
+
+    /** Tests whether the generated code refers to the given entry.
+     *
+     * @param sym an entry of this table
+     * @return true if the entry was marked reachable
+     * @see #markReachable(AbstractSymbol)
+     * */
+    public boolean isReachable(AbstractSymbol sym) {
+	AbstractTable t = forContext();
+	if (t != this) {
+	    return t.isReachable(sym);
+	}
+	if (concurrent) {
+	    synchronized (reachable) {
+		return reachable.get(sym.index);
+	    }
+	}
+	return reachable.get(sym.index);
     }
 
     /** Produces a printable representation of the string table */
     public String toString() {
+	AbstractTable t = forContext();
+	if (t != this) {
+	    return t.toString();
+	}
 	String res = "[\n";
 	AbstractSymbol sym = null;
-	for (int i = 0; i < tbl.size(); i++) {
+	for (int i = 0; i < baseSize + tbl.size(); i++) {
 	    try {
-		sym = (AbstractSymbol)tbl.elementAt(i);
+		sym = entry(i);
 	    } catch (ArrayIndexOutOfBoundsException ex) {
 		Utilities.fatalError("Unexpected exception: " + ex);
 	    }
@@ -33,8 +33,8 @@ class IntSymbol extends AbstractSymbol {
      * 
      * @see AbstractSymbol
      * */
-    public IntSymbol(String str, int len, int index) {
-	super(str, len, index);
+    public IntSymbol(AbstractTable table, int offset, int len, int index) {
+	super(table, offset, len, index);
     }
 
     /** Generates code for the integer constant definition.  This method
@@ -56,19 +56,21 @@ class IntSymbol extends AbstractSymbol {
 	/* Add code to reference the dispatch table for class Int here */
 
 	s.println("");		// dispatch table
-	s.println(CgenSupport.WORD + str); // integer value
+	s.println(CgenSupport.WORD + getString()); // integer value
     }
 
-    /** Emits a reference to this integer constant.
+    /** Emits a reference to this integer constant and marks it
+     * reachable.
      * @param s the output stream
      * */
     public void codeRef(PrintStream s) {
+	AbstractTable.inttable.markReachable(this);
 	s.print(CgenSupport.INTCONST_PREFIX + index);
     }
 
     /** Returns a copy of this symbol */
     public Object clone() {
-	return new IntSymbol(str, str.length(), index);
+	return new IntSymbol(table, offset, len, index);
     }
 }
 
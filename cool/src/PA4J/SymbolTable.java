@@ -19,8 +19,7 @@ ON AN "AS IS" BASIS, AND THE UNIVERSITY OF CALIFORNIA HAS NO OBLIGATION TO
 PROVIDE MAINTENANCE, SUPPORT, UPDATES, ENHANCEMENTS, OR MODIFICATIONS.
 */
 
-import java.util.Stack;
-import java.util.Hashtable;
+import java.util.HashMap;
 
 /** Implements the symbol table data abstraction.
  *
@@ -48,36 +47,93 @@ import java.util.Hashtable;
  *
  * <p>
  *
- * Cool symbol tables are implemented using Java hashtables.  Each
- * hashtable represents a scope and associates a symbol with some
- * data. The ``data'' is whatever data the programmer wishes to
- * associate with each identifier.  An example illustrating the use of
- * symbol tables is in the file SymtabExample.java.
+ * Cool symbol tables are implemented using a single Java hash map
+ * that associates a symbol with a chain of bindings, innermost scope
+ * first.  The ``data'' of a binding is whatever data the programmer
+ * wishes to associate with each identifier.  Every binding added is
+ * also recorded in an undo log; exiting a scope unwinds the log down
+ * to the point where the scope was entered and restores the bindings
+ * the scope hid.  A lookup therefore costs one hash probe no matter how
+ * deeply scopes are nested.  An example illustrating the use of symbol
+ * tables is in the file SymtabExample.java.
  *
  * @see AbstractSymbol
  * @see SymtabExample
  * */
 class SymbolTable {
-    private Stack tbl;
+    /** A binding of a symbol in one scope.  Bindings of the same symbol
+     * are chained from the innermost scope outwards. */
+    private static class Binding {
+	AbstractSymbol sym;
+	Object info;
+	int scope;
+	Binding next;
+
+	Binding(AbstractSymbol sym, Object info, int scope, Binding next) {
+	    this.sym = sym;
+	    this.info = info;
+	    this.scope = scope;
+	    this.next = next;
+	}
+    }
+
+    /** Innermost binding of every bound symbol */
+    private HashMap bindings;
+
+    /** Undo log: the bindings in the order they were added */
+    private Binding[] log;
+
+    /** Number of bindings in the undo log */
+    private int nlog;
+
+    /** Undo log position at which each open scope was entered */
+    private int[] marks;
+
+    /** Number of open scopes */
+    private int depth;
     
     /** Creates an empty symbol table. */
     public SymbolTable() {
-	tbl = new Stack();
+	bindings = new HashMap();
+	log = new Binding[64];
+	nlog = 0;
+	marks = new int[16];
+	depth = 0;
     }
     
     /** Enters a new scope. A scope must be entered before anything
      * can be added to the table.
      * */
     public void enterScope() {
-	tbl.push(new Hashtable());
+	if (depth == marks.length) {
+	    int[] newmarks = new int[marks.length * 2];
+	    System.arraycopy(marks, 0, newmarks, 0, depth);
+	    marks = newmarks;
+	}
+	marks[depth++] = nlog;
+	if (TableCounters.enabled) {
+	    TableCounters.scopes++;
+	    if (depth > TableCounters.maxScopeDepth) {
+		TableCounters.maxScopeDepth = depth;
+	    }
+	}
     }
 
     /** Exits the most recently entered scope. */
     public void exitScope() {
-	if (tbl.empty()) {
+	if (depth == 0) {
 	    Utilities.fatalError("existScope: can't remove scope from an empty symbol table.");
 	}
-	tbl.pop();
+	int mark = marks[--depth];
+	while (nlog > mark) {
+	    Binding b = log[--nlog];
+	    log[nlog] = null;
+	    if (b.next == null) {
+		bindings.remove(b.sym);
+	    } else {
+		bindings.put(b.sym, b.next);
+	    }
+	}
     }
 
     /** Adds a new entry to the symbol table.
@@ -86,10 +142,20 @@ class SymbolTable {
      * @param info the data asosciated with id
      * */
     public void addId(AbstractSymbol id, Object info) {
-	if (tbl.empty()) {
+	if (depth == 0) {
 	    Utilities.fatalError("addId: can't add a symbol without a scope.");
 	}
-	((Hashtable)tbl.peek()).put(id, info);
+	if (nlog == log.length) {
+	    Binding[] newlog = new Binding[log.length * 2];
+	    System.arraycopy(log, 0, newlog, 0, nlog);
+	    log = newlog;
+	}
+	if (TableCounters.enabled) {
+	    TableCounters.ids++;
+	}
+	Binding b = new Binding(id, info, depth, (Binding)bindings.get(id));
+	bindings.put(id, b);
+	log[nlog++] = b;
     }
 
     /**
@@ -101,16 +167,17 @@ class SymbolTable {
      * @return the info associated with sym, or null if not found
      * */
     public Object lookup(AbstractSymbol sym) {
-	if (tbl.empty()) {
+	if (depth == 0) {
 	    Utilities.fatalError("lookup: no scope in symbol table.");
 	}
-	// I break the abstraction here a bit by knowing that stack is 
-	// really a vector...
-	for (int i = tbl.size() - 1; i >= 0; i--) {
-	    Object info = ((Hashtable)tbl.elementAt(i)).get(sym);
-	    if (info != null) return info;
+	Binding b = (Binding)bindings.get(sym);
+	if (TableCounters.enabled) {
+	    TableCounters.lookups++;
+	    if (b != null) {
+		TableCounters.lookupHits++;
+	    }
 	}
-	return null;
+	return b == null ? null : b.info;
     }
 
     /** 
@@ -122,10 +189,14 @@ class SymbolTable {
      * @return the info associated with sym, or null if not found
      * */
     public Object probe(AbstractSymbol sym) {
-	if (tbl.empty()) {
+	if (depth == 0) {
 	    Utilities.fatalError("lookup: no scope in symbol table.");
 	}
-	return ((Hashtable)tbl.peek()).get(sym);
+	if (TableCounters.enabled) {
+	    TableCounters.probes++;
+	}
+	Binding b = (Binding)bindings.get(sym);
+	return b != null && b.scope == depth ? b.info : null;
     }
     
     /** Gets the string representation of the symbol table.  
@@ -134,14 +205,16 @@ class SymbolTable {
      * */
     public String toString() {
 	String res = "";
-	// I break the abstraction here a bit by knowing that stack is 
-	// really a vector...
-	for (int i = tbl.size() - 1, j = 0; i >= 0; i--, j++) {
-	    res += "Scope " + j + ": " + tbl.elementAt(i) + "\n";
+	int end = nlog;
+	for (int i = depth - 1, j = 0; i >= 0; i--, j++) {
+	    res += "Scope " + j + ": {";
+	    for (int k = end - 1; k >= marks[i]; k--) {
+		res += log[k].sym + "=" + log[k].info;
+		if (k > marks[i]) res += ", ";
+	    }
+	    res += "}\n";
+	    end = marks[i];
 	}
 	return res;
     }
 }
-    
-	
-	
@@ -0,0 +1,334 @@
+/*
+Copyright (c) 2000 The Regents of the University of California.
+All rights reserved.
+
+Permission to use, copy, modify, and distribute this software for any
+purpose, without fee, and without written agreement is hereby granted,
+provided that the above copyright notice and the following two
+paragraphs appear in all copies of this software.
+
+IN NO EVENT SHALL THE UNIVERSITY OF CALIFORNIA BE LIABLE TO ANY PARTY FOR
+DIRECT, INDIRECT, SPECIAL, INCIDENTAL, OR CONSEQUENTIAL DAMAGES ARISING OUT
+OF THE USE OF THIS SOFTWARE AND ITS DOCUMENTATION, EVEN IF THE UNIVERSITY OF
+CALIFORNIA HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+THE UNIVERSITY OF CALIFORNIA SPECIFICALLY DISCLAIMS ANY WARRANTIES,
+INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY
+AND FITNESS FOR A PARTICULAR PURPOSE.  THE SOFTWARE PROVIDED HEREUNDER IS
+ON AN "AS IS" BASIS, AND THE UNIVERSITY OF CALIFORNIA HAS NO OBLIGATION TO
+PROVIDE MAINTENANCE, SUPPORT, UPDATES, ENHANCEMENTS, OR MODIFICATIONS.
+*/
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java_cup.runtime.Symbol;
+
+/** A stress test of concurrent interning.
+ *
+ * <p>
+ *
+ * Several threads intern overlapping sets of strings into one table in
+ * concurrent mode, each in its own order.  Afterwards every string must
+ * map to exactly one symbol, the indices must run densely from 0 to the
+ * size of the table minus one, and <code>lookup</code> must agree with
+ * <code>addString</code>.  This is done for a string table, an
+ * identifier table and an integer table; the threads add to the
+ * integer table through both <code>addInt</code> and
+ * <code>addString</code>.
+ *
+ * <p>
+ *
+ * Then the same number of threads each run an ASTLexer over the same
+ * inputs at once, so that all of them enter their identifiers, strings
+ * and integers in the three global tables, and the same checks are
+ * made on those.  The inputs are the given AST files, or else made up
+ * texts with <code>strings</code> distinct constants of each kind,
+ * every thread lexing them in its own order.
+ *
+ * <p>
+ *
+ * Usage: <code>TableStress [threads [strings [rounds [file ...]]]]</code>
+ *
+ * @see AbstractTable#setConcurrent(boolean)
+ * */
+class TableStress {
+    /** The number of failed checks */
+    static int failures = 0;
+
+    public static void main(String args[]) 
+	throws InterruptedException, IOException {
+	int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+	int strings = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+	int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+	String[] inputs;
+	if (args.length > 3) {
+	    inputs = new String[args.length - 3];
+	    for (int i = 3; i < args.length; i++) {
+		inputs[i - 3] = read(args[i]);
+	    }
+	} else {
+	    inputs = new String[threads];
+	    for (int i = 0; i < threads; i++) {
+		inputs[i] = input(i, strings);
+	    }
+	}
+
+	for (int r = 0; r < rounds; r++) {
+	    stress("StringTable", new StringTable(), false, threads, strings);
+	    stress("IdTable", new IdTable(), false, threads, strings);
+	    stress("IntTable", new IntTable(), true, threads, strings);
+	}
+	// the lexers enter their tokens in the global tables, which can
+	// only be filled once
+	lex(threads, inputs);
+	if (failures > 0) {
+	    System.out.println(failures + " checks failed");
+	    System.exit(1);
+	}
+	System.out.println("ok: " + rounds + " rounds of " + threads 
+			   + " threads over " + strings + " strings, " 
+			   + threads + " lexers over " + inputs.length 
+			   + " inputs");
+    }
+
+    /** The string with the given number */
+    static String name(int k, boolean ints) {
+	return ints ? Integer.toString(k) : "s" + k;
+    }
+
+    /** Interns strings from several threads at once and checks the
+     * table */
+    static void stress(String what, final AbstractTable table,
+		       final boolean ints, int threads, final int strings) 
+	throws InterruptedException {
+	table.setConcurrent(true);
+
+	// thread t adds three quarters of the strings, starting at its
+	// own offset and stepping through them in its own order
+	final int share = strings - strings / 4;
+	final AbstractSymbol[][] got = new AbstractSymbol[threads][share];
+	final int[][] added = new int[threads][share];
+	Thread[] workers = new Thread[threads];
+	for (int t = 0; t < threads; t++) {
+	    final int id = t;
+	    workers[t] = new Thread() {
+		    public void run() {
+			int start = id * (strings / got.length);
+			int step = 2 * id + 1;
+			for (int i = 0; i < share; i++) {
+			    int k = (start + i * step) % strings;
+			    added[id][i] = k;
+			    if (ints && (i & 1) == 0) {
+				got[id][i] = ((IntTable)table).addInt(k);
+			    } else {
+				got[id][i] = table.addString(name(k, ints));
+			    }
+			}
+		    }
+		};
+	}
+	for (int t = 0; t < threads; t++) {
+	    workers[t].start();
+	}
+	for (int t = 0; t < threads; t++) {
+	    workers[t].join();
+	}
+
+	// every string maps to exactly one symbol
+	Hashtable first = new Hashtable();
+	for (int t = 0; t < threads; t++) {
+	    for (int i = 0; i < share; i++) {
+		record(what, first, name(added[t][i], ints), got[t][i]);
+	    }
+	}
+	check(what, table, first);
+    }
+
+    /** Records the symbol a thread got for a string, and checks that it
+     * is the symbol any other thread got for it */
+    static void record(String what, Hashtable first, String s,
+		       AbstractSymbol sym) {
+	AbstractSymbol seen = (AbstractSymbol)first.get(s);
+	if (seen == null) {
+	    first.put(s, sym);
+	} else if (seen != sym) {
+	    fail(what, "two symbols for " + s);
+	}
+	if (!sym.getString().equals(s)) {
+	    fail(what, "symbol " + sym.getString() + " for " + s);
+	}
+    }
+
+    /** Checks that the entries of a table are exactly the symbols
+     * recorded for it, densely numbered, and that lookup agrees */
+    static void check(String what, AbstractTable table, Hashtable first) {
+	// the indices are dense, in the order of the entries
+	int size = 0;
+	for (Enumeration e = table.getSymbols(); e.hasMoreElements(); ) {
+	    AbstractSymbol sym = (AbstractSymbol)e.nextElement();
+	    if (!sym.equalsIndex(size)) {
+		fail(what, "entry " + size + " has another index");
+	    }
+	    if (first.get(sym.getString()) != sym) {
+		fail(what, "entry " + size + " was never returned");
+	    }
+	    size++;
+	}
+	if (size != first.size()) {
+	    fail(what, size + " entries for " + first.size() + " strings");
+	}
+
+	// lookup agrees with addString
+	for (Enumeration e = first.keys(); e.hasMoreElements(); ) {
+	    String s = (String)e.nextElement();
+	    AbstractSymbol sym = (AbstractSymbol)first.get(s);
+	    if (table.lookup(s) != sym || table.addString(s) != sym) {
+		fail(what, "lookup disagrees for " + s);
+	    }
+	}
+	for (int i = 0; i < size; i++) {
+	    if (!table.lookup(i).equalsIndex(i)) {
+		fail(what, "lookup of index " + i);
+	    }
+	}
+    }
+
+    /** Lexes the inputs with one ASTLexer per thread, all at once, and
+     * checks the global tables they entered their tokens in */
+    static void lex(int threads, final String[] inputs) 
+	throws InterruptedException {
+	AbstractTable.stringtable.setConcurrent(true);
+	AbstractTable.idtable.setConcurrent(true);
+	AbstractTable.inttable.setConcurrent(true);
+
+	final Symbol[][][] tokens = new Symbol[threads][inputs.length][];
+	final Throwable[] errors = new Throwable[threads];
+	Thread[] workers = new Thread[threads];
+	for (int t = 0; t < threads; t++) {
+	    final int id = t;
+	    workers[t] = new Thread() {
+		    public void run() {
+			try {
+			    for (int i = 0; i < inputs.length; i++) {
+				int k = (id + i) % inputs.length;
+				tokens[id][k] = tokens(new StringReader(inputs[k]));
+			    }
+			} catch (Throwable ex) {
+			    errors[id] = ex;
+			}
+		    }
+		};
+	}
+	for (int t = 0; t < threads; t++) {
+	    workers[t].start();
+	}
+	for (int t = 0; t < threads; t++) {
+	    workers[t].join();
+	    if (errors[t] != null) {
+		fail("ASTLexer", "thread " + t + ": " + errors[t]);
+		return;
+	    }
+	}
+
+	Hashtable strs = new Hashtable();
+	Hashtable ids = new Hashtable();
+	Hashtable ints = new Hashtable();
+	for (int t = 0; t < threads; t++) {
+	    for (int i = 0; i < inputs.length; i++) {
+		Symbol[] toks = tokens[t][i];
+		if (toks.length != tokens[0][i].length) {
+		    fail("ASTLexer", "thread " + t + " read " + toks.length 
+			 + " tokens from input " + i);
+		    continue;
+		}
+		for (int j = 0; j < toks.length; j++) {
+		    AbstractSymbol sym = (AbstractSymbol)toks[j].value;
+		    String s = sym.getString();
+		    switch (toks[j].sym) {
+		    case ASTConstants.STR_CONST:
+			record("stringtable", strs, s, sym);
+			break;
+		    case ASTConstants.ID:
+			record("idtable", ids, s, sym);
+			break;
+		    case ASTConstants.INT_CONST:
+			record("inttable", ints, s, sym);
+			break;
+		    }
+		}
+	    }
+	}
+	check("stringtable", AbstractTable.stringtable, strs);
+	check("idtable", AbstractTable.idtable, ids);
+	check("inttable", AbstractTable.inttable, ints);
+    }
+
+    /** Lexes an input and returns its identifier, string and integer
+     * tokens */
+    static Symbol[] tokens(Reader in) throws IOException {
+	ASTLexer lexer = new ASTLexer(in);
+	java.util.Vector toks = new java.util.Vector();
+	Symbol sym;
+	while ((sym = lexer.next_token()).sym != ASTConstants.EOF) {
+	    if (sym.sym == ASTConstants.STR_CONST || sym.sym == ASTConstants.ID
+		|| sym.sym == ASTConstants.INT_CONST) {
+		toks.addElement(sym);
+	    }
+	}
+	Symbol[] res = new Symbol[toks.size()];
+	toks.copyInto(res);
+	return res;
+    }
+
+    /** Makes up an input with an identifier, a string and an integer
+     * for each of the given number of constants, in an order of its
+     * own, in the line format of the parser's output */
+    static String input(int id, int strings) {
+	StringBuffer buf = new StringBuffer();
+	// a step with no factor in common with the number of constants
+	// visits every one of them once
+	int step = 2 * id + 1;
+	while (gcd(step, strings) != 1) {
+	    step += 2;
+	}
+	for (int i = 0; i < strings; i++) {
+	    int k = (id * 7 + i * step) % strings;
+	    buf.append("#" + (i + 1) + "\n");
+	    buf.append("x" + k + "\n");
+	    buf.append("\"s" + k + "\"\n");
+	    buf.append(k + "\n");
+	}
+	return buf.toString();
+    }
+
+    static int gcd(int a, int b) {
+	return b == 0 ? a : gcd(b, a % b);
+    }
+
+    /** Reads a whole file */
+    static String read(String filename) throws IOException {
+	Reader in = new FileReader(filename);
+	StringBuffer buf = new StringBuffer();
+	char[] b = new char[8192];
+	int n;
+	try {
+	    while ((n = in.read(b)) > 0) {
+		buf.append(b, 0, n);
+	    }
+	} finally {
+	    in.close();
+	}
+	return buf.toString();
+    }
+
+    static void fail(String what, String msg) {
+	if (failures++ < 10) {
+	    System.out.println(what + ": " + msg);
+	}
+    }
+}
@@ -0,0 +1,235 @@
+/*
+Copyright (c) 2000 The Regents of the University of California.
+All rights reserved.
+
+Permission to use, copy, modify, and distribute this software for any
+purpose, without fee, and without written agreement is hereby granted,
+provided that the above copyright notice and the following two
+paragraphs appear in all copies of this software.
+
+IN NO EVENT SHALL THE UNIVERSITY OF CALIFORNIA BE LIABLE TO ANY PARTY FOR
+DIRECT, INDIRECT, SPECIAL, INCIDENTAL, OR CONSEQUENTIAL DAMAGES ARISING OUT
+OF THE USE OF THIS SOFTWARE AND ITS DOCUMENTATION, EVEN IF THE UNIVERSITY OF
+CALIFORNIA HAS BEEN ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+THE UNIVERSITY OF CALIFORNIA SPECIFICALLY DISCLAIMS ANY WARRANTIES,
+INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY
+AND FITNESS FOR A PARTICULAR PURPOSE.  THE SOFTWARE PROVIDED HEREUNDER IS
+ON AN "AS IS" BASIS, AND THE UNIVERSITY OF CALIFORNIA HAS NO OBLIGATION TO
+PROVIDE MAINTENANCE, SUPPORT, UPDATES, ENHANCEMENTS, OR MODIFICATIONS.
+*/
+
+import java.lang.management.ManagementFactory;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.StringTokenizer;
+import java.util.Vector;
+import javax.management.ObjectName;
+
+/** A comparison of the heap kept live by a symbol table.
+ *
+ * <p>
+ *
+ * The comparison interns the same distinct strings twice: once into a
+ * string table, which keeps the characters of all its symbols in an
+ * arena, and once into a table of symbols that each hold their own
+ * <code>String</code>, the way the tables stored them before the
+ * arena.  Both tables have the same open-addressed hash index.  After
+ * each fill it forces a few collections and reports the growth in used
+ * heap, in total and per entry, followed by the classes whose instances
+ * account for that growth according to the class histogram of the
+ * heap.  The strings are built fresh for every entry, so the table of
+ * strings holds the only reference to each.
+ *
+ * <p>
+ *
+ * The comparison is also a test.  It fails unless the arena table
+ * takes less heap than the table of strings, and, when the histogram
+ * is available, unless filling the arena table left fewer than one
+ * String, byte array or char array per hundred entries.
+ *
+ * <p>
+ *
+ * Usage: <code>TableFootprint [entries]</code>
+ * */
+class TableFootprint {
+    /** A symbol as the tables stored them before the arena, with a
+     * string of its own */
+    static class StringEntry {
+	String str;
+	int len;
+	int index;
+
+	StringEntry(String str, int index) {
+	    this.str = str;
+	    this.len = str.length();
+	    this.index = index;
+	}
+    }
+
+    /** A table of string entries with the hash index of
+     * <code>AbstractTable</code>, less its striping */
+    static class StringEntryTable {
+	Vector tbl = new Vector();
+	int[] slots = new int[16];
+	int[] hashes = new int[16];
+
+	void addString(String s) {
+	    int h = s.hashCode();
+	    h ^= h >>> 16;
+	    int mask = slots.length - 1;
+	    int slot = h & mask;
+	    int e;
+	    while ((e = slots[slot]) != 0) {
+		if (hashes[slot] == h && 
+		    ((StringEntry)tbl.elementAt(e - 1)).str.equals(s)) {
+		    return;
+		}
+		slot = (slot + 1) & mask;
+	    }
+	    tbl.addElement(new StringEntry(s, tbl.size()));
+	    slots[slot] = tbl.size();
+	    hashes[slot] = h;
+	    if (tbl.size() * 2 > slots.length) {
+		grow();
+	    }
+	}
+
+	void grow() {
+	    int[] oldslots = slots;
+	    int[] oldhashes = hashes;
+	    slots = new int[oldslots.length * 2];
+	    hashes = new int[oldslots.length * 2];
+	    int mask = slots.length - 1;
+	    for (int i = 0; i < oldslots.length; i++) {
+		if (oldslots[i] != 0) {
+		    int slot = oldhashes[i] & mask;
+		    while (slots[slot] != 0) {
+			slot = (slot + 1) & mask;
+		    }
+		    slots[slot] = oldslots[i];
+		    hashes[slot] = oldhashes[i];
+		}
+	    }
+	}
+    }
+
+    public static void main(String args[]) {
+	int n = args.length > 0 ? Integer.parseInt(args[0]) : 300000;
+
+	Hashtable hist = histogram();
+	long before = used();
+	StringTable table = new StringTable();
+	for (int i = 0; i < n; i++) {
+	    table.addString(name(i));
+	}
+	long arena = used() - before;
+	Hashtable after = histogram();
+	report("arena", arena, n, hist, after);
+	String[] perEntry = { "java.lang.String", "[B", "[C" };
+	for (int i = 0; i < perEntry.length; i++) {
+	    long count = growth(perEntry[i], hist, after)[0];
+	    if (count * 100 >= n) {
+		fail("the arena table holds " + count + " instances of " 
+		     + perEntry[i]);
+	    }
+	}
+
+	hist = histogram();
+	before = used();
+	StringEntryTable strings = new StringEntryTable();
+	for (int i = 0; i < n; i++) {
+	    strings.addString(name(i));
+	}
+	long separate = used() - before;
+	report("string per entry", separate, n, hist, histogram());
+
+	// keep both alive until they have been measured
+	if (table.lookup(n - 1) == null || strings.tbl.size() != n) {
+	    throw new RuntimeException("lost entries");
+	}
+	if (arena >= separate) {
+	    fail("the arena table is not smaller");
+	}
+	if (failed) {
+	    System.exit(1);
+	}
+	System.out.println("ok");
+    }
+
+    /** Set once a check has failed */
+    static boolean failed = false;
+
+    static void fail(String msg) {
+	System.out.println("failed: " + msg);
+	failed = true;
+    }
+
+    /** Prints the growth of the heap over one fill, and the classes
+     * making up at least a hundredth of it */
+    static void report(String what, long growth, int n, 
+		       Hashtable before, Hashtable after) {
+	System.out.println(what + ": " + n + " entries, " + growth / 1024 
+			   + " KB, " + growth / n + " bytes per entry");
+	for (Enumeration e = after.keys(); e.hasMoreElements(); ) {
+	    String name = (String)e.nextElement();
+	    long[] g = growth(name, before, after);
+	    if (g[1] * 100 >= growth) {
+		System.out.println("    " + name + ": " + g[0] + " instances, " 
+				   + g[1] / 1024 + " KB");
+	    }
+	}
+    }
+
+    /** Returns the growth in instance count and bytes of a class
+     * between two histograms */
+    static long[] growth(String name, Hashtable before, Hashtable after) {
+	long[] a = (long[])after.get(name);
+	long[] b = (long[])before.get(name);
+	return new long[] { (a == null ? 0 : a[0]) - (b == null ? 0 : b[0]),
+			    (a == null ? 0 : a[1]) - (b == null ? 0 : b[1]) };
+    }
+
+    /** Takes a class histogram of the live heap, mapping each class
+     * name to its instance count and size in bytes.  The map is empty
+     * if the virtual machine does not offer the histogram. */
+    static Hashtable histogram() {
+	Hashtable hist = new Hashtable();
+	String text;
+	try {
+	    text = (String)ManagementFactory.getPlatformMBeanServer()
+		.invoke(new ObjectName("com.sun.management:type=DiagnosticCommand"),
+			"gcClassHistogram", new Object[] { new String[0] },
+			new String[] { String[].class.getName() });
+	} catch (Exception ex) {
+	    return hist;
+	}
+	StringTokenizer lines = new StringTokenizer(text, "\n");
+	while (lines.hasMoreTokens()) {
+	    StringTokenizer fields = new StringTokenizer(lines.nextToken());
+	    if (fields.countTokens() < 4 || !fields.nextToken().endsWith(":")) {
+		continue;
+	    }
+	    long count = Long.parseLong(fields.nextToken());
+	    long bytes = Long.parseLong(fields.nextToken());
+	    hist.put(fields.nextToken(), new long[] { count, bytes });
+	}
+	return hist;
+    }
+
+    /** An identifier-like name, built fresh on every call */
+    static String name(int i) {
+	return "v_" + Integer.toString(i * 7919, 36);
+    }
+
+    /** The heap in use after collecting everything that can go */
+    static long used() {
+	Runtime rt = Runtime.getRuntime();
+	long used = Long.MAX_VALUE;
+	for (int i = 0; i < 4; i++) {
+	    System.gc();
+	    used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+	}
+	return used;
+    }
+}